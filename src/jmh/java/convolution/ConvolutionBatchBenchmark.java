@@ -0,0 +1,66 @@
+package convolution;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 長さ 100 から 2000 の畳み込みを多数計算する場合の、個別の呼び出しと Convolution.convolutionBatch の比較
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvolutionBatchBenchmark {
+	private static final int MOD = 998_244_353;
+
+	/** 畳み込みの数 */
+	@Param({ "1000" })
+	int count;
+
+	int[][] a;
+	int[][] b;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(count);
+		a = new int[count][];
+		b = new int[count][];
+		for (int i = 0; i < count; i++) {
+			a[i] = random.ints(100 + random.nextInt(1901), 0, MOD).toArray();
+			b[i] = random.ints(100 + random.nextInt(1901), 0, MOD).toArray();
+		}
+	}
+
+	@Benchmark
+	public int[][] convolution() {
+		int[][] c = new int[count][];
+		for (int i = 0; i < count; i++) {
+			c[i] = Convolution.convolution(a[i], b[i], MOD);
+		}
+		return c;
+	}
+
+	@Benchmark
+	public int[][] convolutionBatch() {
+		return Convolution.convolutionBatch(a, b, MOD);
+	}
+
+	@Benchmark
+	public int[][] convolutionBatchParallel() {
+		return Convolution.convolutionBatchParallel(a, b, MOD);
+	}
+}
@@ -0,0 +1,151 @@
+package convolution;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Convolution, Convolution2 のベンチマーク
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvolutionBenchmark {
+	private static final int MOD = 998_244_353;
+	/** NTT を使用できない mod */
+	private static final int ARBITRARY_MOD = 1_000_000_007;
+	/** StreamingConvolution のフィルターの長さ */
+	private static final int FILTER_LENGTH = 256;
+
+	/** 配列の長さ */
+	@Param({ "1024", "65536", "524288" })
+	int size;
+	/** 値の分布、random: [0, MOD) の一様乱数、small: [0, 1000) の一様乱数 */
+	@Param({ "random", "small" })
+	String distribution;
+
+	long[] a, b;
+	int[] ia, ib;
+	int[] out;
+	ConvolutionWorkspace workspace;
+	TransformedKernel kernel;
+	long[] filter;
+	StreamingConvolution streaming;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		int upper = "small".equals(distribution) ? 1000 : MOD;
+		a = new long[size];
+		b = new long[size];
+		ia = new int[size];
+		ib = new int[size];
+		for (int i = 0; i < size; i++) {
+			ia[i] = random.nextInt(upper);
+			ib[i] = random.nextInt(upper);
+			a[i] = ia[i];
+			b[i] = ib[i];
+		}
+		out = new int[2 * size - 1];
+		workspace = new ConvolutionWorkspace();
+		kernel = new TransformedKernel(b, size, MOD);
+		filter = Arrays.copyOf(b, FILTER_LENGTH);
+		streaming = new StreamingConvolution(filter, MOD);
+	}
+
+	@Benchmark
+	public long[] convolutionShortFilter() {
+		return Convolution.convolution(a, filter, MOD);
+	}
+
+	@Benchmark
+	public long streamingConvolution() {
+		// 1000 要素ずつ与え、出力の合計を返す
+		long sum = 0L;
+		for (int i = 0; i < size; i += 1000) {
+			for (long x : streaming.push(a, i, Math.min(size, i + 1000))) {
+				sum += x;
+			}
+		}
+		for (long x : streaming.finish()) {
+			sum += x;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long[] convolution() {
+		return Convolution.convolution(a, b, MOD);
+	}
+
+	@Benchmark
+	public int[] convolutionInt() {
+		return Convolution.convolution(ia, ib, MOD);
+	}
+
+	@Benchmark
+	public int[] convolutionWorkspace() {
+		workspace.convolution(ia, ib, MOD, out);
+		return out;
+	}
+
+	@Benchmark
+	public int[] convolutionTransformedKernel() {
+		return kernel.convolution(ia);
+	}
+
+	@Benchmark
+	public int[] convolutionTruncated() {
+		return Convolution.convolutionTruncated(ia, ib, size, MOD);
+	}
+
+	@Benchmark
+	public int[] convolutionMiddle() {
+		return Convolution.convolutionWindow(ia, 0, size, ib, 0, size / 2, size / 2 - 1, size, MOD);
+	}
+
+	@Benchmark
+	public int[] convolutionParallel() {
+		return Convolution.convolutionParallel(ia, ib, MOD);
+	}
+
+	@Benchmark
+	public long[] convolutionLong() {
+		return Convolution.convolutionLong(a, b);
+	}
+
+	@Benchmark
+	public long[] convolutionLongParallel() {
+		return Convolution.convolutionLongParallel(a, b);
+	}
+
+	@Benchmark
+	public int[] convolution2() {
+		return Convolution2.convolution(ia, ib, MOD);
+	}
+
+	@Benchmark
+	public int[] convolutionArbitraryMod() {
+		return Convolution.convolutionArbitraryMod(ia, ib, ARBITRARY_MOD);
+	}
+
+	@Benchmark
+	public int[] convolution2ArbitraryMod() {
+		return Convolution2.convolution(ia, ib, ARBITRARY_MOD);
+	}
+}
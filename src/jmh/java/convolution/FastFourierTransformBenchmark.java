@@ -0,0 +1,80 @@
+package convolution;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Convolution2.FastFourierTransform の実部と虚部を分けた配列と、交互に並べた配列の比較
+ *
+ * 値が発散しないよう、順変換と逆変換を組にして計測する<br/>
+ * SIMD の実装と比較する場合は -P benchmark,vector で実行する
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastFourierTransformBenchmark {
+	/** 変換する配列の長さ */
+	@Param({ "1024", "65536", "1048576" })
+	int size;
+
+	double[][] split;
+	double[] interleaved;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		split = new double[2][size];
+		interleaved = new double[size << 1];
+		for (int i = 0; i < size; i++) {
+			interleaved[i << 1] = split[0][i] = random.nextInt(1 << 15);
+			interleaved[i << 1 | 1] = split[1][i] = random.nextInt(1 << 15);
+		}
+	}
+
+	@Benchmark
+	public double[][] fftSplit() {
+		Convolution2.FastFourierTransform.fft(split, false);
+		Convolution2.FastFourierTransform.fft(split, true);
+		return split;
+	}
+
+	@Benchmark
+	public double[] fftInterleaved() {
+		Convolution2.FastFourierTransform.fft(interleaved, false);
+		Convolution2.FastFourierTransform.fft(interleaved, true);
+		return interleaved;
+	}
+
+	/** -P benchmark,vector でコンパイルした場合も、スカラーの実装を計測する */
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = "-Dconvolution.vector=false")
+	public double[] fftInterleavedScalar() {
+		Convolution2.FastFourierTransform.fft(interleaved, false);
+		Convolution2.FastFourierTransform.fft(interleaved, true);
+		return interleaved;
+	}
+
+	/** -P benchmark,vector でコンパイルした場合のみ jdk.incubator.vector の実装を計測する */
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+	public double[] fftInterleavedVector() {
+		Convolution2.FastFourierTransform.fft(interleaved, false);
+		Convolution2.FastFourierTransform.fft(interleaved, true);
+		return interleaved;
+	}
+}
@@ -0,0 +1,77 @@
+package convolution;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MultiDimensionalConvolution と、行を詰めて 1 次元の畳み込みを計算する方法のベンチマーク
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiDimensionalConvolutionBenchmark {
+	private static final int MOD = 998_244_353;
+
+	/** 入力の 1 辺の長さ */
+	@Param({ "256", "1024" })
+	int size;
+	/** フィルターの 1 辺の長さ */
+	@Param({ "16", "128" })
+	int filter;
+
+	long[] a, b;
+	int[] aShape, bShape;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		aShape = new int[] { size, size };
+		bShape = new int[] { filter, filter };
+		a = random.longs(size * size, 0, MOD).toArray();
+		b = random.longs(filter * filter, 0, MOD).toArray();
+	}
+
+	@Benchmark
+	public long[] convolution() {
+		return MultiDimensionalConvolution.convolution(a, aShape, b, bShape, MOD);
+	}
+
+	@Benchmark
+	public long[] convolutionValid() {
+		// 端の影響を受けない範囲のみ
+		return MultiDimensionalConvolution.convolution(a, aShape, b, bShape, new int[] { filter - 1, filter - 1 },
+				new int[] { size, size }, MOD);
+	}
+
+	@Benchmark
+	public long[] convolutionFlatten() {
+		// 各行を結果の幅 w に詰めて 1 次元の畳み込みとし、必要な範囲を取り出す
+		int w = size + filter - 1;
+		long[] fa = new long[size * w], fb = new long[filter * w];
+		for (int i = 0; i < size; i++) {
+			System.arraycopy(a, i * size, fa, i * w, size);
+		}
+		for (int i = 0; i < filter; i++) {
+			System.arraycopy(b, i * filter, fb, i * w, filter);
+		}
+		long[] c = Convolution.convolution(fa, fb, MOD);
+		long[] ans = new long[w * w];
+		System.arraycopy(c, 0, ans, 0, Math.min(c.length, ans.length));
+		return ans;
+	}
+}
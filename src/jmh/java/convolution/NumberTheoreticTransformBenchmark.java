@@ -0,0 +1,98 @@
+package convolution;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * NumberTheoreticTransform の butterfly のベンチマーク
+ *
+ * 変換後の値も範囲内に収まるため、同じ配列を繰り返し変換する<br/>
+ * SIMD の実装と比較する場合は -P benchmark,vector で実行する
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumberTheoreticTransformBenchmark {
+	/** 変換する配列の長さ */
+	@Param({ "1024", "65536", "1048576" })
+	int size;
+	/** mod */
+	@Param({ "998244353", "754974721" })
+	int mod;
+
+	NumberTheoreticTransform ntt;
+	long[] a;
+	int[] ia;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		ntt = NumberTheoreticTransform.of(mod);
+		a = new long[size];
+		ia = new int[size];
+		for (int i = 0; i < size; i++) {
+			a[i] = ia[i] = random.nextInt(mod);
+		}
+	}
+
+	@Benchmark
+	public long[] butterflySafeMod() {
+		ntt.butterflySafeMod(a);
+		return a;
+	}
+
+	@Benchmark
+	public long[] butterflyMontgomery() {
+		ntt.butterflyMontgomery(a);
+		return a;
+	}
+
+	@Benchmark
+	public long[] butterflyInvSafeMod() {
+		ntt.butterflyInvSafeMod(a);
+		return a;
+	}
+
+	@Benchmark
+	public long[] butterflyInvMontgomery() {
+		ntt.butterflyInvMontgomery(a);
+		return a;
+	}
+
+	@Benchmark
+	public int[] butterflySixStep() {
+		SixStepTransform.butterfly(ntt, ia);
+		return ia;
+	}
+
+	/** -P benchmark,vector でコンパイルした場合も、スカラーの実装を計測する */
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = "-Dconvolution.vector=false")
+	public int[] butterflyMontgomeryInt() {
+		ntt.butterflyMontgomery(ia);
+		return ia;
+	}
+
+	/** -P benchmark,vector でコンパイルした場合のみ jdk.incubator.vector の実装を計測する */
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+	public int[] butterflyMontgomeryIntVector() {
+		ntt.butterflyMontgomery(ia);
+		return ia;
+	}
+}
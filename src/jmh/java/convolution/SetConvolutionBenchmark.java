@@ -0,0 +1,72 @@
+package convolution;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SetConvolution のベンチマーク
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetConvolutionBenchmark {
+	private static final int MOD = 998_244_353;
+
+	/** 配列の長さの指数 */
+	@Param({ "16", "20" })
+	int log;
+
+	int[] a, b;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(log);
+		a = random.ints(1 << log, 0, MOD).toArray();
+		b = random.ints(1 << log, 0, MOD).toArray();
+	}
+
+	@Benchmark
+	public int[] xorConvolution() {
+		return SetConvolution.xorConvolution(a, b, MOD);
+	}
+
+	@Benchmark
+	public int[] xorConvolutionParallel() {
+		return SetConvolution.xorConvolutionParallel(a, b, MOD);
+	}
+
+	@Benchmark
+	public int[] orConvolution() {
+		return SetConvolution.orConvolution(a, b, MOD);
+	}
+
+	@Benchmark
+	public int[] subsetConvolution() {
+		return SetConvolution.subsetConvolution(a, b, MOD);
+	}
+
+	@Benchmark
+	public int[] subsetConvolutionParallel() {
+		return SetConvolution.subsetConvolutionParallel(a, b, MOD);
+	}
+
+	@Benchmark
+	public int[] gcdConvolution() {
+		return SetConvolution.gcdConvolution(a, b, MOD);
+	}
+}
@@ -0,0 +1,65 @@
+package dsu;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DisjointSetUnion のベンチマーク
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DisjointSetUnionBenchmark {
+	/** 項目数 */
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+	/** マージの分布、random: 一様乱数、chain: i と i+1 を順にマージ */
+	@Param({ "random", "chain" })
+	String distribution;
+
+	int[] as, bs;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		as = new int[size];
+		bs = new int[size];
+		for (int i = 0; i < size; i++) {
+			if ("chain".equals(distribution)) {
+				as[i] = i;
+				bs[i] = (i + 1) % size;
+			} else {
+				as[i] = random.nextInt(size);
+				bs[i] = random.nextInt(size);
+			}
+		}
+	}
+
+	@Benchmark
+	public int mergeAndLeader() {
+		DisjointSetUnion dsu = new DisjointSetUnion(size);
+		for (int i = 0; i < size; i++) {
+			dsu.merge(as[i], bs[i]);
+		}
+		int sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum += dsu.leader(i);
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,82 @@
+package fenwicktree;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FenwickTree のベンチマーク
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FenwickTreeBenchmark {
+	/** 項目数、クエリ数 */
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+	/** クエリの分布、random: 一様乱数、sequential: 先頭から順に */
+	@Param({ "random", "sequential" })
+	String distribution;
+
+	int[] ps, ls, rs;
+	long[] xs;
+	FenwickTree fw;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		ps = new int[size];
+		ls = new int[size];
+		rs = new int[size];
+		xs = new long[size];
+		for (int i = 0; i < size; i++) {
+			if ("sequential".equals(distribution)) {
+				ps[i] = i;
+				ls[i] = i;
+				rs[i] = size;
+			} else {
+				ps[i] = random.nextInt(size);
+				int l = random.nextInt(size + 1), r = random.nextInt(size + 1);
+				ls[i] = Math.min(l, r);
+				rs[i] = Math.max(l, r);
+			}
+			xs[i] = random.nextInt(1_000_000_000);
+		}
+		fw = new FenwickTree(size);
+		for (int i = 0; i < size; i++) {
+			fw.add(i, xs[i]);
+		}
+	}
+
+	@Benchmark
+	public FenwickTree add() {
+		FenwickTree fw = new FenwickTree(size);
+		for (int i = 0; i < size; i++) {
+			fw.add(ps[i], xs[i]);
+		}
+		return fw;
+	}
+
+	@Benchmark
+	public long sum() {
+		long sum = 0L;
+		for (int i = 0; i < size; i++) {
+			sum += fw.sum(ls[i], rs[i]);
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,88 @@
+package flow;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MaxFlowGraph, MinCostFlowGraph のベンチマーク
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlowBenchmark {
+	/** ノード数 */
+	@Param({ "100", "1000", "5000" })
+	int size;
+	/** グラフの形、random: ランダムな辺、bipartite: 二部マッチング */
+	@Param({ "random", "bipartite" })
+	String distribution;
+
+	int[] froms, tos;
+	long[] caps, costs;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		int m = size * 4;
+		froms = new int[m];
+		tos = new int[m];
+		caps = new long[m];
+		costs = new long[m];
+		int half = (size - 2) / 2;
+		for (int i = 0; i < m; i++) {
+			if ("bipartite".equals(distribution)) {
+				// 0: 始点, 1: 終点, [2, 2 + half): 左側, [2 + half, size): 右側
+				if (i < half) {
+					froms[i] = 0;
+					tos[i] = 2 + i;
+				} else if (i < 2 * half) {
+					froms[i] = 2 + i;
+					tos[i] = 1;
+				} else {
+					froms[i] = 2 + random.nextInt(half);
+					tos[i] = 2 + half + random.nextInt(half);
+				}
+				caps[i] = 1L;
+			} else {
+				froms[i] = random.nextInt(size);
+				tos[i] = random.nextInt(size);
+				caps[i] = random.nextInt(1_000_000);
+			}
+			costs[i] = random.nextInt(1000);
+		}
+	}
+
+	@Benchmark
+	public long maxFlow() {
+		MaxFlowGraph g = new MaxFlowGraph(size);
+		for (int i = 0; i < froms.length; i++) {
+			g.addEdge(froms[i], tos[i], caps[i]);
+		}
+		return g.flow(0, 1);
+	}
+
+	@Benchmark
+	public List<MinCostFlowGraph.Result> minCostFlowSlope() {
+		MinCostFlowGraph g = new MinCostFlowGraph(size);
+		for (int i = 0; i < froms.length; i++) {
+			g.addEdge(froms[i], tos[i], caps[i], costs[i]);
+		}
+		return g.slope(0, 1);
+	}
+}
@@ -0,0 +1,154 @@
+package lazysegtree;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LazySegTree, IntLazySegTree のベンチマーク
+ *
+ * 区間加算、区間最小値のクエリで計測する
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LazySegTreeBenchmark {
+	/** 項目数、クエリ数 */
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+	/** 区間の分布、random: 一様乱数、short: 長さ 16 以下の区間 */
+	@Param({ "random", "short" })
+	String distribution;
+
+	int[] ls, rs, xs;
+	Long[] v;
+	int[] iv;
+
+	private static class Seg extends LazySegTree<Long, Long> {
+		Seg(Long[] v) {
+			super(v);
+		}
+
+		@Override
+		Long op(Long a, Long b) {
+			return Math.min(a, b);
+		}
+
+		@Override
+		Long e() {
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		Long mapping(Long f, Long s) {
+			return (Long.MAX_VALUE == s) ? s : f + s;
+		}
+
+		@Override
+		Long composition(Long a, Long b) {
+			return a + b;
+		}
+
+		@Override
+		Long id() {
+			return 0L;
+		}
+	}
+
+	private static class IntSeg extends IntLazySegTree {
+		IntSeg(int[] v) {
+			super(v);
+		}
+
+		@Override
+		int op(int a, int b) {
+			return Math.min(a, b);
+		}
+
+		@Override
+		int e() {
+			return Integer.MAX_VALUE;
+		}
+
+		@Override
+		int mapping(int f, int s) {
+			return (Integer.MAX_VALUE == s) ? s : f + s;
+		}
+
+		@Override
+		int composition(int a, int b) {
+			return a + b;
+		}
+
+		@Override
+		int id() {
+			return 0;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		ls = new int[size];
+		rs = new int[size];
+		xs = new int[size];
+		v = new Long[size];
+		iv = new int[size];
+		for (int i = 0; i < size; i++) {
+			int l, r;
+			if ("short".equals(distribution)) {
+				l = random.nextInt(size);
+				r = Math.min(size, l + 1 + random.nextInt(16));
+			} else {
+				l = random.nextInt(size + 1);
+				r = random.nextInt(size + 1);
+			}
+			ls[i] = Math.min(l, r);
+			rs[i] = Math.max(l, r);
+			xs[i] = random.nextInt(1000);
+			iv[i] = random.nextInt(1_000_000);
+			v[i] = (long) iv[i];
+		}
+	}
+
+	@Benchmark
+	public Seg build() {
+		return new Seg(v);
+	}
+
+	@Benchmark
+	public long applyRangeAndProd() {
+		Seg seg = new Seg(v);
+		long sum = 0L;
+		for (int i = 0; i < size; i++) {
+			seg.apply(ls[i], rs[i], (long) xs[i]);
+			sum += seg.prod(ls[i], rs[i]);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long intApplyRangeAndProd() {
+		IntSeg seg = new IntSeg(iv);
+		long sum = 0L;
+		for (int i = 0; i < size; i++) {
+			seg.apply(ls[i], rs[i], xs[i]);
+			sum += seg.prod(ls[i], rs[i]);
+		}
+		return sum;
+	}
+}
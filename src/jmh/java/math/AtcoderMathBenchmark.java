@@ -0,0 +1,79 @@
+package math;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * AtcoderMath のベンチマーク
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtcoderMathBenchmark {
+	/** 呼び出し回数 */
+	@Param({ "1000", "100000" })
+	int size;
+	/** 引数の分布、random: 1e9 程度の一様乱数、small: 1000 未満の一様乱数 */
+	@Param({ "random", "small" })
+	String distribution;
+
+	long[] xs, ns, ms;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		int upper = "small".equals(distribution) ? 1000 : 1_000_000_000;
+		xs = new long[size];
+		ns = new long[size];
+		ms = new long[size];
+		for (int i = 0; i < size; i++) {
+			xs[i] = random.nextInt(upper);
+			ns[i] = random.nextInt(upper);
+			ms[i] = 1 + random.nextInt(upper);
+		}
+	}
+
+	@Benchmark
+	public long powMod() {
+		long sum = 0L;
+		for (int i = 0; i < size; i++) {
+			sum += AtcoderMath.powMod(xs[i], ns[i], ms[i]);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long floorSum() {
+		long sum = 0L;
+		for (int i = 0; i < size; i++) {
+			sum += AtcoderMath.floorSum(ns[i] % 1000, ms[i], xs[i], ns[i]);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int isPrime() {
+		int cnt = 0;
+		for (int i = 0; i < size; i++) {
+			if (AtcoderMath.isPrime(ms[i])) {
+				cnt++;
+			}
+		}
+		return cnt;
+	}
+}
@@ -0,0 +1,62 @@
+package scc;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SccGraph のベンチマーク
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SccGraphBenchmark {
+	/** ノード数 */
+	@Param({ "1000", "100000", "500000" })
+	int size;
+	/** 辺の分布、random: 一様乱数、cycle: i から i+1 への辺 */
+	@Param({ "random", "cycle" })
+	String distribution;
+
+	int[] froms, tos;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		froms = new int[size];
+		tos = new int[size];
+		for (int i = 0; i < size; i++) {
+			if ("cycle".equals(distribution)) {
+				froms[i] = i;
+				tos[i] = (i + 1) % size;
+			} else {
+				froms[i] = random.nextInt(size);
+				tos[i] = random.nextInt(size);
+			}
+		}
+	}
+
+	@Benchmark
+	public List<Integer>[] scc() {
+		SccGraph g = new SccGraph(size);
+		for (int i = 0; i < size; i++) {
+			g.addEdge(froms[i], tos[i]);
+		}
+		return g.scc();
+	}
+}
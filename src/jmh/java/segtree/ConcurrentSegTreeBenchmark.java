@@ -0,0 +1,127 @@
+package segtree;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ConcurrentSegTree と、SegTree 全体を synchronized で排他した場合の競合時のベンチマーク
+ *
+ * 区間和で、set を行うスレッド 2 つと prod を行うスレッド 2 つを同時に動かす
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentSegTreeBenchmark {
+	/** 項目数 */
+	@Param({ "1000", "1000000" })
+	int size;
+	/** 区間の分布、random: 一様乱数、short: 長さ 16 以下の区間 */
+	@Param({ "random", "short" })
+	String distribution;
+
+	Seg seg;
+	ConcurrentSeg concurrentSeg;
+
+	private static class Seg extends SegTree<Long> {
+		Seg(int n) {
+			super(n);
+		}
+
+		@Override
+		Long e() {
+			return 0L;
+		}
+
+		@Override
+		Long op(Long a, Long b) {
+			return a + b;
+		}
+	}
+
+	private static class ConcurrentSeg extends ConcurrentSegTree<Long> {
+		ConcurrentSeg(int n) {
+			super(n);
+		}
+
+		@Override
+		Long e() {
+			return 0L;
+		}
+
+		@Override
+		Long op(Long a, Long b) {
+			return a + b;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		seg = new Seg(size);
+		concurrentSeg = new ConcurrentSeg(size);
+	}
+
+	private int l(ThreadLocalRandom random) {
+		return "short".equals(distribution) ? random.nextInt(size - 16) : random.nextInt(size / 2);
+	}
+
+	private int r(ThreadLocalRandom random, int l) {
+		return "short".equals(distribution) ? l + 1 + random.nextInt(16) : size / 2 + random.nextInt(size / 2);
+	}
+
+	@Benchmark
+	@Group("locked")
+	@GroupThreads(2)
+	public void lockedSet() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int p = random.nextInt(size);
+		long x = random.nextLong(1000);
+		synchronized (seg) {
+			seg.set(p, x);
+		}
+	}
+
+	@Benchmark
+	@Group("locked")
+	@GroupThreads(2)
+	public long lockedProd() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int l = l(random), r = r(random, l);
+		synchronized (seg) {
+			return seg.prod(l, r);
+		}
+	}
+
+	@Benchmark
+	@Group("concurrent")
+	@GroupThreads(2)
+	public void concurrentSet() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		concurrentSeg.set(random.nextInt(size), random.nextLong(1000));
+	}
+
+	@Benchmark
+	@Group("concurrent")
+	@GroupThreads(2)
+	public long concurrentProd() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int l = l(random), r = r(random, l);
+		return concurrentSeg.prod(l, r);
+	}
+}
@@ -0,0 +1,213 @@
+package segtree;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SegTree, LongSegTree, PersistentSegTree のベンチマーク
+ *
+ * 区間和のクエリで計測する
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SegTreeBenchmark {
+	/** 項目数、クエリ数 */
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+	/** 区間の分布、random: 一様乱数、short: 長さ 16 以下の区間 */
+	@Param({ "random", "short" })
+	String distribution;
+
+	int[] ps, ls, rs;
+	Long[] v;
+	long[] lv;
+	Seg seg;
+	LongSeg longSeg;
+
+	private static class Seg extends SegTree<Long> {
+		Seg(Long[] v) {
+			super(v);
+		}
+
+		@Override
+		Long e() {
+			return 0L;
+		}
+
+		@Override
+		Long op(Long a, Long b) {
+			return a + b;
+		}
+	}
+
+	private static class PersistentSeg extends PersistentSegTree<Long> {
+		PersistentSeg(Long[] v) {
+			super(v);
+		}
+
+		@Override
+		Long e() {
+			return 0L;
+		}
+
+		@Override
+		Long op(Long a, Long b) {
+			return a + b;
+		}
+	}
+
+	private static class LongSeg extends LongSegTree {
+		LongSeg(long[] v) {
+			super(v);
+		}
+
+		@Override
+		long e() {
+			return 0L;
+		}
+
+		@Override
+		long op(long a, long b) {
+			return a + b;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		ps = new int[size];
+		ls = new int[size];
+		rs = new int[size];
+		v = new Long[size];
+		lv = new long[size];
+		for (int i = 0; i < size; i++) {
+			int l, r;
+			if ("short".equals(distribution)) {
+				l = random.nextInt(size);
+				r = Math.min(size, l + 1 + random.nextInt(16));
+			} else {
+				l = random.nextInt(size + 1);
+				r = random.nextInt(size + 1);
+			}
+			ps[i] = random.nextInt(size);
+			ls[i] = Math.min(l, r);
+			rs[i] = Math.max(l, r);
+			v[i] = (long) random.nextInt(1_000_000_000);
+			lv[i] = v[i];
+		}
+		seg = new Seg(v);
+		longSeg = new LongSeg(lv);
+	}
+
+	@Benchmark
+	public Seg build() {
+		return new Seg(v);
+	}
+
+	@Benchmark
+	public Seg set() {
+		for (int i = 0; i < size; i++) {
+			seg.set(ps[i], v[i]);
+		}
+		return seg;
+	}
+
+	@Benchmark
+	public Seg setAll() {
+		seg.setAll(ps, v);
+		return seg;
+	}
+
+	@Benchmark
+	public Seg rebuild() {
+		seg.build(v);
+		return seg;
+	}
+
+	@Benchmark
+	public Seg setAllSmall() {
+		// 1 回あたり 1000 件ずつまとめて更新する
+		for (int i = 0; i < size; i += 1000) {
+			int k = Math.min(1000, size - i);
+			seg.setAll(Arrays.copyOfRange(ps, i, i + k), Arrays.copyOfRange(v, i, i + k));
+		}
+		return seg;
+	}
+
+	@Benchmark
+	public long prod() {
+		long sum = 0L;
+		for (int i = 0; i < size; i++) {
+			sum += seg.prod(ls[i], rs[i]);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public LongSeg buildLong() {
+		return new LongSeg(lv);
+	}
+
+	@Benchmark
+	public LongSeg setLong() {
+		for (int i = 0; i < size; i++) {
+			longSeg.set(ps[i], lv[i]);
+		}
+		return longSeg;
+	}
+
+	@Benchmark
+	public long prodLong() {
+		long sum = 0L;
+		for (int i = 0; i < size; i++) {
+			sum += longSeg.prod(ls[i], rs[i]);
+		}
+		return sum;
+	}
+
+	/**
+	 * 版を作りながら更新し、各更新の直後の版でクエリを行う
+	 */
+	@Benchmark
+	public long persistentSetAndProd() {
+		PersistentSeg persistentSeg = new PersistentSeg(v);
+		int version = 0;
+		long sum = 0L;
+		for (int i = 0; i < size; i++) {
+			version = persistentSeg.set(version, ps[i], v[i]);
+			sum += persistentSeg.prod(version, ls[i], rs[i]);
+		}
+		return sum;
+	}
+
+	/**
+	 * persistentSetAndProd と同じ操作を、最後の版に対してのみ SegTree で行う
+	 */
+	@Benchmark
+	public long setAndProd() {
+		Seg seg = new Seg(v);
+		long sum = 0L;
+		for (int i = 0; i < size; i++) {
+			seg.set(ps[i], v[i]);
+			sum += seg.prod(ls[i], rs[i]);
+		}
+		return sum;
+	}
+}
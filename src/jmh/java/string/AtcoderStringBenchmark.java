@@ -0,0 +1,64 @@
+package string;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * AtcoderString のベンチマーク
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtcoderStringBenchmark {
+	/** 文字列の長さ */
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+	/** 文字の分布、random: 26 種類の一様乱数、binary: 2 種類の一様乱数、same: 全て同じ文字 */
+	@Param({ "random", "binary", "same" })
+	String distribution;
+
+	int[] s;
+	int[] sa;
+	int upper;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		upper = "random".equals(distribution) ? 25 : 1;
+		s = new int[size];
+		for (int i = 0; i < size; i++) {
+			s[i] = "same".equals(distribution) ? 0 : random.nextInt(upper + 1);
+		}
+		sa = AtcoderString.saIs(s, upper);
+	}
+
+	@Benchmark
+	public int[] saIs() {
+		return AtcoderString.saIs(s, upper);
+	}
+
+	@Benchmark
+	public int[] lcpArray() {
+		return AtcoderString.lcpArray(s, sa);
+	}
+
+	@Benchmark
+	public int[] zAlgorithm() {
+		return AtcoderString.zAlgorithm(s);
+	}
+}
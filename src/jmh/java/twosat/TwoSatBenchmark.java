@@ -0,0 +1,66 @@
+package twosat;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TwoSat のベンチマーク
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TwoSatBenchmark {
+	/** 変数の数、条件の数 */
+	@Param({ "1000", "100000", "500000" })
+	int size;
+	/** 条件の分布、random: 一様乱数、chain: i と i+1 の条件 */
+	@Param({ "random", "chain" })
+	String distribution;
+
+	int[] is, js;
+	boolean[] fs, gs;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		is = new int[size];
+		js = new int[size];
+		fs = new boolean[size];
+		gs = new boolean[size];
+		for (int k = 0; k < size; k++) {
+			if ("chain".equals(distribution)) {
+				is[k] = k;
+				js[k] = (k + 1) % size;
+			} else {
+				is[k] = random.nextInt(size);
+				js[k] = random.nextInt(size);
+			}
+			fs[k] = random.nextBoolean();
+			gs[k] = random.nextBoolean();
+		}
+	}
+
+	@Benchmark
+	public boolean satisfiable() {
+		TwoSat ts = new TwoSat(size);
+		for (int k = 0; k < size; k++) {
+			ts.addClause(is[k], fs[k], js[k], gs[k]);
+		}
+		return ts.satisfiable();
+	}
+}
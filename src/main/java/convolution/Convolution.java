@@ -1,195 +1,191 @@
 package convolution;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * https://github.com/atcoder/ac-library/blob/master/atcoder/convolution.hpp をもとに作成
+ *
+ * mod ごとの計算は NumberTheoreticTransform に委譲するため、異なる mod の計算を複数スレッドから同時に行える
  */
 public class Convolution {
-	static int MOD = -1;
-	private static int g;
-	private static FftInfo info;
-
-	private static void butterfly(long[] a) {
-		int n = a.length, h = ceilPow2(n);
-		// a[i, i+(n>>len), i+2*(n>>len), ..] is transformed
-		int len = 0;
-		while (len < h) {
-			if (h - len == 1) {
-				int p = 1 << (h - len - 1);
-				long rot = 1L;
-				for (int s = 0; s < (1 << len); s++) {
-					int offset = s << (h - len);
-					for (int i = 0; i < p; i++) {
-						long l = a[i + offset];
-						long r = safeMod(a[i + offset + p] * rot);
-						a[i + offset] = safeMod(l + r);
-						a[i + offset + p] = safeMod(l - r);
-					}
-					if ((s + 1) != (1 << len)) {
-						rot = safeMod(rot * info.rate2[bsf(~s & Integer.MAX_VALUE)]);
-					}
-				}
-				len++;
-			} else {
-				// 4-base
-				int p = 1 << (h - len - 2);
-				long rot = 1L, imag = info.root[2];
-				for (int s = 0; s < (1 << len); s++) {
-					long rot2 = safeMod(rot * rot);
-					long rot3 = safeMod(rot2 * rot);
-					int offset = s << (h - len);
-					for (int i = 0; i < p; i++) {
-						long a0 = a[i + offset];
-						long a1 = safeMod(a[i + offset + p] * rot);
-						long a2 = safeMod(a[i + offset + 2 * p] * rot2);
-						long a3 = safeMod(a[i + offset + 3 * p] * rot3);
-						long a1na3imag = safeMod((a1 - a3) * imag);
-						long na2 = safeMod(MOD - a2);
-						a[i + offset] = safeMod(a0 + a2 + a1 + a3);
-						a[i + offset + 1 * p] = safeMod(a0 + a2 - (a1 + a3));
-						a[i + offset + 2 * p] = safeMod(a0 + na2 + a1na3imag);
-						a[i + offset + 3 * p] = safeMod(a0 + na2 - a1na3imag);
-					}
-					if ((s + 1) != (1 << len)) {
-						rot = safeMod(rot * info.rate3[bsf(~s & Integer.MAX_VALUE)]);
-					}
-				}
-				len += 2;
-			}
-		}
+	/**
+	 * 畳み込みを mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。
+	 *
+	 * @param a
+	 * @param b
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static long[] convolution(long[] a, long[] b, int m) {
+		return convolution(a, 0, a.length, b, 0, b.length, m);
 	}
 
-	private static void butterflyInv(long[] a) {
-		int n = a.length, h = ceilPow2(n);
-
-		int len = h; // a[i, i+(n>>len), i+2*(n>>len), ..] is transformed
-		while (len > 0) {
-			if (len == 1) {
-				int p = 1 << (h - len);
-				long irot = 1L;
-				for (int s = 0; s < (1 << (len - 1)); s++) {
-					int offset = s << (h - len + 1);
-					for (int i = 0; i < p; i++) {
-						long l = a[i + offset], r = a[i + offset + p];
-						a[i + offset] = safeMod(l + r);
-						a[i + offset + p] = safeMod((l - r) * irot);
-					}
-					if ((s + 1) != (1 << (len - 1))) {
-						irot = safeMod(irot * info.irate2[bsf(~s & Integer.MAX_VALUE)]);
-					}
-				}
-				len--;
-			} else {
-				// 4-base
-				int p = 1 << (h - len);
-				long irot = 1, iimag = info.iroot[2];
-				for (int s = 0; s < (1 << (len - 2)); s++) {
-					long irot2 = irot * irot % MOD;
-					long irot3 = irot2 * irot % MOD;
-					int offset = s << (h - len + 2);
-					for (int i = 0; i < p; i++) {
-						long a0 = a[i + offset];
-						long a1 = a[i + offset + 1 * p];
-						long a2 = a[i + offset + 2 * p];
-						long a3 = a[i + offset + 3 * p];
-
-						long a2na3iimag = safeMod((a2 - a3) * iimag);
-
-						a[i + offset] = safeMod(a0 + a1 + a2 + a3);
-						a[i + offset + 1 * p] = safeMod((a0 - a1 + a2na3iimag) * irot);
-						a[i + offset + 2 * p] = safeMod((a0 + a1 + -a2 - a3) * irot2);
-						a[i + offset + 3 * p] = safeMod((a0 - a1 - a2na3iimag) * irot3);
-					}
-					if ((s + 1) != (1 << (len - 2))) {
-						irot = safeMod(irot * info.irate3[bsf(~s & Integer.MAX_VALUE)]);
-					}
-				}
-				len -= 2;
-			}
-		}
+	/**
+	 * 畳み込みを mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static long[] convolution(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex, int m) {
+		checkIndex(a.length, aFromIndex, aToIndex, b.length, bFromIndex, bToIndex);
+		return NumberTheoreticTransform.of(m).convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex);
 	}
 
-	private static long[] convolutionNaive(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex,
-			int bToIndex) {
-		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
-		long[] ans = new long[(n + m) - 1];
-		if (n < m) {
-			for (int j = 0; j < m; j++) {
-				for (int i = 0; i < n; i++) {
-					ans[i + j] = safeMod(ans[i + j] + a[i + aFromIndex] * b[j + bFromIndex]);
-				}
-			}
-		} else {
-			for (int i = 0; i < n; i++) {
-				for (int j = 0; j < m; j++) {
-					ans[i + j] = safeMod(ans[i + j] + a[i + aFromIndex] * b[j + bFromIndex]);
-				}
-			}
-		}
-		return ans;
+	/**
+	 * 畳み込みを mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。<br/>
+	 * 計算途中の値も int で保持するため、long[] 版よりメモリ使用量が少ない。
+	 *
+	 * @param a
+	 * @param b
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static int[] convolution(int[] a, int[] b, int m) {
+		return convolution(a, 0, a.length, b, 0, b.length, m);
 	}
 
-	private static long[] convolutionFft(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex,
-			int bToIndex) {
-		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
-		int z = 1 << ceilPow2(n + m - 1);
-		{
-			long[] na = new long[z];
-			System.arraycopy(a, aFromIndex, na, 0, n);
-			long[] nb = new long[z];
-			System.arraycopy(b, bFromIndex, nb, 0, m);
-			a = na;
-			b = nb;
-		}
-		butterfly(a);
-		butterfly(b);
-		for (int i = 0; i < z; i++) {
-			a[i] = safeMod(a[i] * b[i]);
-		}
-		butterflyInv(a);
-		a = Arrays.copyOf(a, (n + m) - 1);
-		long iz = invMod(z);
-		for (int i = 0; i < ((n + m) - 1); i++) {
-			a[i] = safeMod(a[i] * iz);
-		}
-		return a;
+	/**
+	 * 畳み込みを mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。<br/>
+	 * 計算途中の値も int で保持するため、long[] 版よりメモリ使用量が少ない。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static int[] convolution(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex, int bToIndex, int m) {
+		checkIndex(a.length, aFromIndex, aToIndex, b.length, bFromIndex, bToIndex);
+		return NumberTheoreticTransform.of(m).convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex);
 	}
 
-	private static long[] convolution(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex) {
-		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
-		if ((0 == n) || (0 == m)) {
-			return new long[0];
-		}
-		if (Math.min(n, m) <= 60) {
-			return convolutionNaive(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex);
-		} else {
-			return convolutionFft(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex);
-		}
+	/**
+	 * 畳み込みの先頭 k 項を mod m で計算します。
+	 *
+	 * @param a
+	 * @param b
+	 * @param k
+	 * @param m
+	 * @return 長さ k の結果配列
+	 */
+	static long[] convolutionTruncated(long[] a, long[] b, int k, int m) {
+		return convolutionWindow(a, 0, a.length, b, 0, b.length, 0, k, m);
 	}
 
-	private static void init(int m) {
-		if (m != MOD) {
-			MOD = m;
-			g = primitiveRoot(MOD);
-			info = new FftInfo();
-		}
+	/**
+	 * 畳み込みの先頭 k 項を mod m で計算します。
+	 *
+	 * @param a
+	 * @param b
+	 * @param k
+	 * @param m
+	 * @return 長さ k の結果配列
+	 */
+	static int[] convolutionTruncated(int[] a, int[] b, int k, int m) {
+		return convolutionWindow(a, 0, a.length, b, 0, b.length, 0, k, m);
 	}
 
 	/**
-	 * 畳み込みを mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。
+	 * 中間積 c[b.length - 1, a.length) を mod m で計算します。変換の長さは a.length 以上の最小の 2 冪となります。
+	 *
+	 * @param a
+	 * @param b 1 <= b.length <= a.length
+	 * @param m
+	 * @return 長さ a.length - b.length + 1 の結果配列
+	 */
+	static long[] convolutionMiddle(long[] a, long[] b, int m) {
+		checkMiddle(a.length, b.length);
+		return convolutionWindow(a, 0, a.length, b, 0, b.length, b.length - 1, a.length, m);
+	}
+
+	/**
+	 * 中間積 c[b.length - 1, a.length) を mod m で計算します。変換の長さは a.length 以上の最小の 2 冪となります。
+	 *
+	 * @param a
+	 * @param b 1 <= b.length <= a.length
+	 * @param m
+	 * @return 長さ a.length - b.length + 1 の結果配列
+	 */
+	static int[] convolutionMiddle(int[] a, int[] b, int m) {
+		checkMiddle(a.length, b.length);
+		return convolutionWindow(a, 0, a.length, b, 0, b.length, b.length - 1, a.length, m);
+	}
+
+	/**
+	 * 畳み込みの結果の c[fromIndex, toIndex) のみを mod m で計算します。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param fromIndex
+	 * @param toIndex
+	 * @param m
+	 * @return 長さ toIndex - fromIndex の結果配列、n + m - 1 以上の位置は 0
+	 */
+	static long[] convolutionWindow(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex,
+			int fromIndex, int toIndex, int m) {
+		checkIndex(a.length, aFromIndex, aToIndex, b.length, bFromIndex, bToIndex);
+		checkWindow(fromIndex, toIndex);
+		return NumberTheoreticTransform.of(m).convolutionWindow(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex,
+				fromIndex, toIndex);
+	}
+
+	/**
+	 * 畳み込みの結果の c[fromIndex, toIndex) のみを mod m で計算します。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param fromIndex
+	 * @param toIndex
+	 * @param m
+	 * @return 長さ toIndex - fromIndex の結果配列、n + m - 1 以上の位置は 0
+	 */
+	static int[] convolutionWindow(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex, int bToIndex,
+			int fromIndex, int toIndex, int m) {
+		checkIndex(a.length, aFromIndex, aToIndex, b.length, bFromIndex, bToIndex);
+		checkWindow(fromIndex, toIndex);
+		return NumberTheoreticTransform.of(m).convolutionWindow(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex,
+				fromIndex, toIndex);
+	}
+
+	/**
+	 * 畳み込みを mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。<br/>
+	 * 長い配列の変換は ForkJoinPool.commonPool() で並列に計算します。
 	 *
 	 * @param a
 	 * @param b
 	 * @param m
 	 * @return 計算した結果配列
 	 */
-	static long[] convolution(long[] a, long[] b, int m) {
-		return convolution(a, 0, a.length, b, 0, b.length, m);
+	static long[] convolutionParallel(long[] a, long[] b, int m) {
+		return convolutionParallel(a, 0, a.length, b, 0, b.length, m);
 	}
 
 	/**
-	 * 畳み込みを mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。
+	 * 畳み込みを mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。<br/>
+	 * 長い配列の変換は ForkJoinPool.commonPool() で並列に計算します。
 	 *
 	 * @param a
 	 * @param aFromIndex
@@ -200,27 +196,168 @@ public class Convolution {
 	 * @param m
 	 * @return 計算した結果配列
 	 */
-	static long[] convolution(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex, int m) {
-		if (!(aFromIndex >= 0)) {
-			throw new IllegalArgumentException("aFromIndex is " + aFromIndex);
-		}
-		if (!(aFromIndex <= aToIndex)) {
-			throw new IllegalArgumentException("aFromIndex is " + aFromIndex + ", aToIndex is " + aToIndex);
-		}
-		if (!(aToIndex <= a.length)) {
-			throw new IllegalArgumentException("aToIndex is " + aToIndex);
-		}
-		if (!(bFromIndex >= 0)) {
-			throw new IllegalArgumentException("bFromIndex is " + bFromIndex);
+	static long[] convolutionParallel(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex,
+			int m) {
+		checkIndex(a.length, aFromIndex, aToIndex, b.length, bFromIndex, bToIndex);
+		return NumberTheoreticTransform.of(m).convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex,
+				ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * 畳み込みを mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。<br/>
+	 * 長い配列の変換は ForkJoinPool.commonPool() で並列に計算します。
+	 *
+	 * @param a
+	 * @param b
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static int[] convolutionParallel(int[] a, int[] b, int m) {
+		return convolutionParallel(a, 0, a.length, b, 0, b.length, m);
+	}
+
+	/**
+	 * 畳み込みを mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。<br/>
+	 * 長い配列の変換は ForkJoinPool.commonPool() で並列に計算します。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static int[] convolutionParallel(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex, int bToIndex,
+			int m) {
+		checkIndex(a.length, aFromIndex, aToIndex, b.length, bFromIndex, bToIndex);
+		return NumberTheoreticTransform.of(m).convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex,
+				ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * 複数の畳み込み a[i] * b[i] を mod m でまとめて計算します。<br/>
+	 * 変換の長さごとに並べ替えて計算し、作業領域を使い回すため、短い畳み込みを多数計算する場合に配列の生成を抑えられる。
+	 *
+	 * @param a
+	 * @param b a.length == b.length
+	 * @param m
+	 * @return i 番目が a[i] と b[i] の畳み込みの配列
+	 */
+	static long[][] convolutionBatch(long[][] a, long[][] b, int m) {
+		return convolutionBatch(a, b, m, null);
+	}
+
+	/**
+	 * 複数の畳み込み a[i] * b[i] を mod m でまとめて計算します。<br/>
+	 * 変換の長さごとに並べ替えて BATCH_GRAIN 個ずつに分け、ForkJoinPool.commonPool() で並列に計算します。
+	 *
+	 * @param a
+	 * @param b a.length == b.length
+	 * @param m
+	 * @return i 番目が a[i] と b[i] の畳み込みの配列
+	 */
+	static long[][] convolutionBatchParallel(long[][] a, long[][] b, int m) {
+		return convolutionBatch(a, b, m, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * 複数の畳み込み a[i] * b[i] を mod m でまとめて計算します。<br/>
+	 * 変換の長さごとに並べ替えて計算し、作業領域を使い回すため、短い畳み込みを多数計算する場合に配列の生成を抑えられる。
+	 *
+	 * @param a
+	 * @param b a.length == b.length
+	 * @param m
+	 * @return i 番目が a[i] と b[i] の畳み込みの配列
+	 */
+	static int[][] convolutionBatch(int[][] a, int[][] b, int m) {
+		return convolutionBatch(a, b, m, null);
+	}
+
+	/**
+	 * 複数の畳み込み a[i] * b[i] を mod m でまとめて計算します。<br/>
+	 * 変換の長さごとに並べ替えて BATCH_GRAIN 個ずつに分け、ForkJoinPool.commonPool() で並列に計算します。
+	 *
+	 * @param a
+	 * @param b a.length == b.length
+	 * @param m
+	 * @return i 番目が a[i] と b[i] の畳み込みの配列
+	 */
+	static int[][] convolutionBatchParallel(int[][] a, int[][] b, int m) {
+		return convolutionBatch(a, b, m, ForkJoinPool.commonPool());
+	}
+
+	/** まとめて計算する畳み込みを並列に計算する場合の、1 タスクあたりの畳み込みの数 */
+	private static final int BATCH_GRAIN = 64;
+
+	private static long[][] convolutionBatch(long[][] a, long[][] b, int m, ForkJoinPool pool) {
+		checkBatch(a.length, b.length);
+		NumberTheoreticTransform ntt = NumberTheoreticTransform.of(m);
+		long[][] c = new long[a.length][];
+		int[] lengths = new int[a.length];
+		for (int i = 0; i < a.length; i++) {
+			lengths[i] = ((0 == a[i].length) || (0 == b[i].length)) ? 0 : (a[i].length + b[i].length) - 1;
+			c[i] = new long[lengths[i]];
 		}
-		if (!(bFromIndex <= bToIndex)) {
-			throw new IllegalArgumentException("bFromIndex is " + bFromIndex + ", bToIndex is " + bToIndex);
+		runBatch(lengths, pool, (workspace, i) -> ntt.convolution(a[i], 0, a[i].length, b[i], 0, b[i].length, c[i],
+				0, workspace));
+		return c;
+	}
+
+	private static int[][] convolutionBatch(int[][] a, int[][] b, int m, ForkJoinPool pool) {
+		checkBatch(a.length, b.length);
+		NumberTheoreticTransform ntt = NumberTheoreticTransform.of(m);
+		int[][] c = new int[a.length][];
+		int[] lengths = new int[a.length];
+		for (int i = 0; i < a.length; i++) {
+			lengths[i] = ((0 == a[i].length) || (0 == b[i].length)) ? 0 : (a[i].length + b[i].length) - 1;
+			c[i] = new int[lengths[i]];
+		}
+		runBatch(lengths, pool, (workspace, i) -> ntt.convolution(a[i], 0, a[i].length, b[i], 0, b[i].length, c[i],
+				0, workspace));
+		return c;
+	}
+
+	/**
+	 * 結果の長さが lengths[i] の畳み込みを、変換の長さの順に task で計算する。<br/>
+	 * 作業領域は逐次の場合は全体で、並列の場合はタスクごとに一つ生成する。
+	 *
+	 * @param lengths
+	 * @param pool    null の場合は逐次に計算する
+	 * @param task    (作業領域, 畳み込みの番号) を受け取って計算する処理
+	 */
+	private static void runBatch(int[] lengths, ForkJoinPool pool, ObjIntConsumer<ConvolutionWorkspace> task) {
+		// 変換の長さの指数を上位、番号を下位に持つ値で並べ替える
+		long[] keys = new long[lengths.length];
+		for (int i = 0; i < lengths.length; i++) {
+			keys[i] = ((long) ceilPow2(lengths[i]) << 32) | i;
+		}
+		Arrays.sort(keys);
+		if ((null == pool) || (keys.length <= BATCH_GRAIN)) {
+			ConvolutionWorkspace workspace = new ConvolutionWorkspace();
+			for (long key : keys) {
+				task.accept(workspace, (int) key);
+			}
+			return;
+		}
+		List<ForkJoinTask<?>> tasks = new ArrayList<>();
+		for (int from = 0; from < keys.length; from += BATCH_GRAIN) {
+			int f = from, t = Math.min(keys.length, from + BATCH_GRAIN);
+			tasks.add(ForkJoinTask.adapt(() -> {
+				ConvolutionWorkspace workspace = new ConvolutionWorkspace();
+				for (int j = f; j < t; j++) {
+					task.accept(workspace, (int) keys[j]);
+				}
+			}));
 		}
-		if (!(bToIndex <= b.length)) {
-			throw new IllegalArgumentException("bToIndex is " + bToIndex);
+		pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+	}
+
+	private static void checkBatch(int aLength, int bLength) {
+		if (!(aLength == bLength)) {
+			throw new IllegalArgumentException("a.length is " + aLength + ", b.length is " + bLength);
 		}
-		init(m);
-		return convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex);
 	}
 
 	private static final long MOD1 = 754_974_721L; // 2^24
@@ -258,13 +395,240 @@ public class Convolution {
 	 * @return 計算した結果配列
 	 */
 	static long[] convolutionLong(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex) {
+		checkIndex(a.length, aFromIndex, aToIndex, b.length, bFromIndex, bToIndex);
+		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
+		if ((0 == n) || (0 == m)) {
+			return new long[0];
+		}
+
+		long[] c1 = NumberTheoreticTransform.of((int) MOD1).convolution(a, aFromIndex, aToIndex, b, bFromIndex,
+				bToIndex);
+		long[] c2 = NumberTheoreticTransform.of((int) MOD2).convolution(a, aFromIndex, aToIndex, b, bFromIndex,
+				bToIndex);
+		long[] c3 = NumberTheoreticTransform.of((int) MOD3).convolution(a, aFromIndex, aToIndex, b, bFromIndex,
+				bToIndex);
+
+		long[] c = new long[(n + m) - 1];
+		for (int i = 0; i < ((n + m) - 1); i++) {
+			c[i] = crt(c1[i], c2[i], c3[i]);
+		}
+
+		return c;
+	}
+
+	/**
+	 * 畳み込みを計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。<br/>
+	 * 3 つの mod での畳み込みと、中国剰余定理による復元を ForkJoinPool.commonPool() で並列に計算します。
+	 *
+	 * @param a
+	 * @param b
+	 * @return 計算した結果配列
+	 */
+	static long[] convolutionLongParallel(long[] a, long[] b) {
+		return convolutionLongParallel(a, 0, a.length, b, 0, b.length);
+	}
+
+	/**
+	 * 畳み込みを計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。<br/>
+	 * 3 つの mod での畳み込みと、中国剰余定理による復元を ForkJoinPool.commonPool() で並列に計算します。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @return 計算した結果配列
+	 */
+	static long[] convolutionLongParallel(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex,
+			int bToIndex) {
+		checkIndex(a.length, aFromIndex, aToIndex, b.length, bFromIndex, bToIndex);
+		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
+		if ((0 == n) || (0 == m)) {
+			return new long[0];
+		}
+
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		List<ForkJoinTask<long[]>> tasks = new ArrayList<>();
+		for (long mod : new long[] { MOD1, MOD2, MOD3 }) {
+			tasks.add(ForkJoinTask.adapt(() -> NumberTheoreticTransform.of((int) mod).convolution(a, aFromIndex,
+					aToIndex, b, bFromIndex, bToIndex, pool)));
+		}
+		pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+		long[] c1 = tasks.get(0).join(), c2 = tasks.get(1).join(), c3 = tasks.get(2).join();
+
+		long[] c = new long[(n + m) - 1];
+		IntStream.range(0, (n + m) - 1).parallel().forEach(i -> c[i] = crt(c1[i], c2[i], c3[i]));
+		return c;
+	}
+
+	/** crt で使用する M1M2M3 の倍数の補正値 */
+	private static final long[] OFFSET = { 0L, 0L, M1M2M3, 2 * M1M2M3, 3 * M1M2M3 };
+
+	/**
+	 * MOD1, MOD2, MOD3 での剰余から、中国剰余定理で long の値を復元する
+	 *
+	 * @param x1 MOD1 での剰余
+	 * @param x2 MOD2 での剰余
+	 * @param x3 MOD3 での剰余
+	 * @return 復元した値
+	 */
+	private static long crt(long x1, long x2, long x3) {
+		long x = 0L;
+		x += ((x1 * i1) % MOD1) * M2M3;
+		x += ((x2 * i2) % MOD2) * M1M3;
+		x += ((x3 * i3) % MOD3) * M1M2;
+		int diff = (int) safeMod(x1 - safeMod(x, MOD1), MOD1);
+		x -= OFFSET[diff % 5];
+		return x;
+	}
+
+	/** garner で使用する MOD1 の MOD2 での逆元 */
+	private static final long R12 = invMod(MOD1, MOD2);
+	/** garner で使用する MOD1 の MOD3 での逆元 */
+	private static final long R13 = invMod(MOD1, MOD3);
+	/** garner で使用する MOD2 の MOD3 での逆元 */
+	private static final long R23 = invMod(MOD2, MOD3);
+
+	/**
+	 * 畳み込みを任意の mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。<br/>
+	 * 3 つの mod での畳み込みの結果から、Garner のアルゴリズムで mod m の値を復元します。<br/>
+	 * 復元には畳み込みの各項の真の値 (最大で min(a.length, b.length) * (m - 1)^2) が MOD1 * MOD2 * MOD3 (約 5.9e25)
+	 * 未満である必要がある。MOD1 で変換できる長さは 2^24 までのため min(a.length, b.length) は 2^23 以下となり、int の m
+	 * では常に 2^23 * (2^31 - 2)^2 &lt; 2^85 (約 3.9e25) で満たされる。
+	 *
+	 * @param a
+	 * @param b
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static long[] convolutionArbitraryMod(long[] a, long[] b, int m) {
+		return convolutionArbitraryMod(a, 0, a.length, b, 0, b.length, m);
+	}
+
+	/**
+	 * 畳み込みを任意の mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。<br/>
+	 * 3 つの mod での畳み込みの結果から、Garner のアルゴリズムで mod m の値を復元します。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static long[] convolutionArbitraryMod(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex,
+			int bToIndex, int m) {
+		checkIndex(a.length, aFromIndex, aToIndex, b.length, bFromIndex, bToIndex);
+		checkMod(m);
+		int[] na = new int[aToIndex - aFromIndex], nb = new int[bToIndex - bFromIndex];
+		for (int i = 0; i < na.length; i++) {
+			na[i] = (int) safeMod(a[i + aFromIndex], m);
+		}
+		for (int i = 0; i < nb.length; i++) {
+			nb[i] = (int) safeMod(b[i + bFromIndex], m);
+		}
+		int[] c = convolutionGarner(na, nb, m);
+		long[] ans = new long[c.length];
+		for (int i = 0; i < c.length; i++) {
+			ans[i] = c[i];
+		}
+		return ans;
+	}
+
+	/**
+	 * 畳み込みを任意の mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。<br/>
+	 * 3 つの mod での畳み込みの結果から、Garner のアルゴリズムで mod m の値を復元します。
+	 *
+	 * @param a
+	 * @param b
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static int[] convolutionArbitraryMod(int[] a, int[] b, int m) {
+		return convolutionArbitraryMod(a, 0, a.length, b, 0, b.length, m);
+	}
+
+	/**
+	 * 畳み込みを任意の mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。<br/>
+	 * 3 つの mod での畳み込みの結果から、Garner のアルゴリズムで mod m の値を復元します。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static int[] convolutionArbitraryMod(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex,
+			int bToIndex, int m) {
+		checkIndex(a.length, aFromIndex, aToIndex, b.length, bFromIndex, bToIndex);
+		checkMod(m);
+		int[] na = new int[aToIndex - aFromIndex], nb = new int[bToIndex - bFromIndex];
+		for (int i = 0; i < na.length; i++) {
+			na[i] = (int) safeMod(a[i + aFromIndex], m);
+		}
+		for (int i = 0; i < nb.length; i++) {
+			nb[i] = (int) safeMod(b[i + bFromIndex], m);
+		}
+		return convolutionGarner(na, nb, m);
+	}
+
+	/**
+	 * [0, m) の範囲の a, b の畳み込みを 3 つの mod で計算し、Garner のアルゴリズムで mod m の値を復元する
+	 *
+	 * @param a
+	 * @param b
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	private static int[] convolutionGarner(int[] a, int[] b, int m) {
+		int n = a.length, k = b.length;
+		if ((0 == n) || (0 == k)) {
+			return new int[0];
+		}
+		int[] c1 = NumberTheoreticTransform.of((int) MOD1).convolution(a, 0, n, b, 0, k);
+		int[] c2 = NumberTheoreticTransform.of((int) MOD2).convolution(a, 0, n, b, 0, k);
+		int[] c3 = NumberTheoreticTransform.of((int) MOD3).convolution(a, 0, n, b, 0, k);
+		long m1 = MOD1 % m, m1m2 = M1M2 % m;
+		int[] c = new int[(n + k) - 1];
+		for (int i = 0; i < c.length; i++) {
+			long t1 = c1[i];
+			long t2 = safeMod(c2[i] - t1, MOD2) * R12 % MOD2;
+			long t3 = safeMod(safeMod(c3[i] - t1, MOD3) * R13 % MOD3 - t2, MOD3) * R23 % MOD3;
+			c[i] = (int) ((t1 % m + t2 * m1 % m + t3 * m1m2 % m) % m);
+		}
+		return c;
+	}
+
+	private static void checkMod(int m) {
+		if (!(1 <= m)) {
+			throw new IllegalArgumentException("m is " + m);
+		}
+	}
+
+	/**
+	 * 配列の範囲をチェックする
+	 *
+	 * @param aLength
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param bLength
+	 * @param bFromIndex
+	 * @param bToIndex
+	 */
+	static void checkIndex(int aLength, int aFromIndex, int aToIndex, int bLength, int bFromIndex, int bToIndex) {
 		if (!(aFromIndex >= 0)) {
 			throw new IllegalArgumentException("aFromIndex is " + aFromIndex);
 		}
 		if (!(aFromIndex <= aToIndex)) {
 			throw new IllegalArgumentException("aFromIndex is " + aFromIndex + ", aToIndex is " + aToIndex);
 		}
-		if (!(aToIndex <= a.length)) {
+		if (!(aToIndex <= aLength)) {
 			throw new IllegalArgumentException("aToIndex is " + aToIndex);
 		}
 		if (!(bFromIndex >= 0)) {
@@ -273,45 +637,24 @@ public class Convolution {
 		if (!(bFromIndex <= bToIndex)) {
 			throw new IllegalArgumentException("bFromIndex is " + bFromIndex + ", bToIndex is " + bToIndex);
 		}
-		if (!(bToIndex <= b.length)) {
+		if (!(bToIndex <= bLength)) {
 			throw new IllegalArgumentException("bToIndex is " + bToIndex);
 		}
-		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
-		if ((0 == n) || (0 == m)) {
-			return new long[0];
-		}
-
-		long[] c1 = convolution(a, b, (int) MOD1);
-		long[] c2 = convolution(a, b, (int) MOD2);
-		long[] c3 = convolution(a, b, (int) MOD3);
+	}
 
-		long[] c = new long[(n + m) - 1];
-		for (int i = 0; i < ((n + m) - 1); i++) {
-			long x = 0L;
-			x += ((c1[i] * i1) % MOD1) * M2M3;
-			x += ((c2[i] * i2) % MOD2) * M1M3;
-			x += ((c3[i] * i3) % MOD3) * M1M2;
-			int diff = (int) safeMod(c1[i] - safeMod(x, MOD1), MOD1);
-			long[] offset = { 0L, 0L, M1M2M3, 2 * M1M2M3, 3 * M1M2M3 };
-			x -= offset[diff % 5];
-			c[i] = x;
+	private static void checkWindow(int fromIndex, int toIndex) {
+		if (!((0 <= fromIndex) && (fromIndex <= toIndex))) {
+			throw new IllegalArgumentException("fromIndex is " + fromIndex + ", toIndex is " + toIndex);
 		}
-
-		return c;
 	}
 
-	// 以下 https://github.com/atcoder/ac-library/blob/master/atcoder/internal_math.hpp を参考に作成
-	/**
-	 * x^n mod MOD
-	 *
-	 * @param x
-	 * @param n
-	 * @return x^n mod MOD を計算する
-	 */
-	static long powMod(long x, long n) {
-		return powMod(x, n, MOD);
+	private static void checkMiddle(int aLength, int bLength) {
+		if (!((1 <= bLength) && (bLength <= aLength))) {
+			throw new IllegalArgumentException("a.length is " + aLength + ", b.length is " + bLength);
+		}
 	}
 
+	// 以下 https://github.com/atcoder/ac-library/blob/master/atcoder/internal_math.hpp を参考に作成
 	/**
 	 * x^n mod m を計算する
 	 *
@@ -338,16 +681,6 @@ public class Convolution {
 		return r;
 	}
 
-	/**
-	 * x mod MOD を安全に計算する
-	 *
-	 * @param x
-	 * @return x mod MOD
-	 */
-	private static long safeMod(long x) {
-		return safeMod(x, MOD);
-	}
-
 	/**
 	 * x mod m を安全に計算する
 	 *
@@ -363,10 +696,6 @@ public class Convolution {
 		return x;
 	}
 
-	static long invMod(long x) {
-		return invMod(x, MOD);
-	}
-
 	/**
 	 * xy≡1(mod m) なる y のうち、0≤y<m を満たすものを返します。
 	 *
@@ -505,52 +834,4 @@ public class Convolution {
 		}
 		return x;
 	}
-
-	private static class FftInfo {
-		final int rank2;
-		final long[] root;
-		final long[] iroot;
-		final long[] rate2;
-		final long[] irate2;
-		final long[] rate3;
-		final long[] irate3;
-
-		FftInfo() {
-			rank2 = bsfConstexpr(MOD - 1);
-			root = new long[rank2 + 1];
-			iroot = new long[rank2 + 1];
-			rate2 = new long[Math.max(0, rank2 - 2 + 1)];
-			irate2 = new long[Math.max(0, rank2 - 2 + 1)];
-			rate3 = new long[Math.max(0, rank2 - 3 + 1)];
-			irate3 = new long[Math.max(0, rank2 - 3 + 1)];
-			init();
-		}
-
-		void init() {
-			root[rank2] = powMod(g, (MOD - 1) >> rank2);
-			iroot[rank2] = invMod(root[rank2]);
-			for (int i = rank2 - 1; i >= 0; i--) {
-				root[i] = safeMod(root[i + 1] * root[i + 1]);
-				iroot[i] = safeMod(iroot[i + 1] * iroot[i + 1]);
-			}
-			{
-				long prod = 1L, iprod = 1L;
-				for (int i = 0; i <= rank2 - 2; i++) {
-					rate2[i] = safeMod(root[i + 2] * prod);
-					irate2[i] = safeMod(iroot[i + 2] * iprod);
-					prod = safeMod(prod * iroot[i + 2]);
-					iprod = safeMod(iprod * root[i + 2]);
-				}
-			}
-			{
-				long prod = 1L, iprod = 1L;
-				for (int i = 0; i <= rank2 - 3; i++) {
-					rate3[i] = safeMod(root[i + 3] * prod);
-					irate3[i] = safeMod(iroot[i + 3] * iprod);
-					prod = safeMod(prod * iroot[i + 3]);
-					iprod = safeMod(iprod * root[i + 3]);
-				}
-			}
-		}
-	}
 }
@@ -1,6 +1,6 @@
 package convolution;
 
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * https://atcoder.jp/contests/abc213/submissions/25074532 をもとに作成
@@ -9,6 +9,8 @@ import java.util.stream.IntStream;
  */
 public class Convolution2 {
 	static int MOD = -1;
+	/** 丸め誤差の最大値がこの値を超えた場合は FFT の結果を破棄し、NTT で計算し直す */
+	static final double ERROR_THRESHOLD = 0.25;
 
 	private static int[] convolutionNaive(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex,
 			int bToIndex) {
@@ -33,44 +35,49 @@ public class Convolution2 {
 	/**
 	 * https://atcoder.jp/contests/abc213/submissions/25074532 を参考に作成
 	 *
+	 * 各値を (-MOD/2, MOD/2] に寄せてから下位 15 bit と上位に分割し、2 回の順変換と 2 回の逆変換で計算する。<br/>
+	 * 逆変換後の値と最も近い整数との差の最大値が threshold を超えた場合は、結果が正しくない可能性があるため null を返す。
+	 *
 	 * @param a
 	 * @param aFromIndex
 	 * @param aToIndex
 	 * @param b
 	 * @param bFromIndex
 	 * @param bToIndex
-	 * @return fftでの計算結果
+	 * @param threshold 許容する丸め誤差の最大値
+	 * @return fftでの計算結果、丸め誤差が threshold を超えた場合は null
 	 */
-	private static int[] convolutionFft(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex, int bToIndex) {
+	static int[] convolutionFft(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex, int bToIndex,
+			double threshold) {
 		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
 		int z = 1 << ceilPow2(n + m - 1);
 
-		double[] aReal = new double[z];
-		double[] aImag = new double[z];
-
-		IntStream.range(0, n).forEach(i -> {
-			aReal[i] = a[i + aFromIndex] & ((1 << 15) - 1);
-			aImag[i] = a[i + aFromIndex] >> 15;
-		});
-		FastFourierTransform.fft(new double[][] { aReal, aImag }, false);
+		// 実部に下位 15 bit、虚部に上位を持ち、実部と虚部を交互に並べる
+		double[] pa = new double[z << 1];
+		for (int i = 0; i < n; i++) {
+			int x = centeredMod(a[i + aFromIndex]);
+			pa[i << 1] = x & ((1 << 15) - 1);
+			pa[i << 1 | 1] = x >> 15;
+		}
+		FastFourierTransform.fft(pa, false);
 
-		double[] bReal = new double[z];
-		double[] bImag = new double[z];
-		IntStream.range(0, m).forEach(i -> {
-			bReal[i] = b[i + bFromIndex] & ((1 << 15) - 1);
-			bImag[i] = b[i + bFromIndex] >> 15;
-		});
-		FastFourierTransform.fft(new double[][] { bReal, bImag }, false);
+		double[] pb = new double[z << 1];
+		for (int i = 0; i < m; i++) {
+			int x = centeredMod(b[i + bFromIndex]);
+			pb[i << 1] = x & ((1 << 15) - 1);
+			pb[i << 1 | 1] = x >> 15;
+		}
+		FastFourierTransform.fft(pb, false);
 
 		for (int i = 0, j = 0; i <= j; i++, j = z - i) {
-			double ari = aReal[i];
-			double aii = aImag[i];
-			double bri = bReal[i];
-			double bii = bImag[i];
-			double arj = aReal[j];
-			double aij = aImag[j];
-			double brj = bReal[j];
-			double bij = bImag[j];
+			double ari = pa[i << 1];
+			double aii = pa[i << 1 | 1];
+			double bri = pb[i << 1];
+			double bii = pb[i << 1 | 1];
+			double arj = pa[j << 1];
+			double aij = pa[j << 1 | 1];
+			double brj = pb[j << 1];
+			double bij = pb[j << 1 | 1];
 
 			double a1r = (ari + arj) / 2;
 			double a1i = (aii - aij) / 2;
@@ -82,10 +89,10 @@ public class Convolution2 {
 			double b2r = (bii + bij) / 2;
 			double b2i = (brj - bri) / 2;
 
-			aReal[i] = a1r * b1r - a1i * b1i - a2r * b2i - a2i * b2r;
-			aImag[i] = a1r * b1i + a1i * b1r + a2r * b2r - a2i * b2i;
-			bReal[i] = a1r * b2r - a1i * b2i + a2r * b1r - a2i * b1i;
-			bImag[i] = a1r * b2i + a1i * b2r + a2r * b1i + a2i * b1r;
+			pa[i << 1] = a1r * b1r - a1i * b1i - a2r * b2i - a2i * b2r;
+			pa[i << 1 | 1] = a1r * b1i + a1i * b1r + a2r * b2r - a2i * b2i;
+			pb[i << 1] = a1r * b2r - a1i * b2i + a2r * b1r - a2i * b1i;
+			pb[i << 1 | 1] = a1r * b2i + a1i * b2r + a2r * b1i + a2i * b1r;
 
 			if (i != j) {
 				a1r = (arj + ari) / 2;
@@ -98,27 +105,48 @@ public class Convolution2 {
 				b2r = (bij + bii) / 2;
 				b2i = (bri - brj) / 2;
 
-				aReal[j] = a1r * b1r - a1i * b1i - a2r * b2i - a2i * b2r;
-				aImag[j] = a1r * b1i + a1i * b1r + a2r * b2r - a2i * b2i;
-				bReal[j] = a1r * b2r - a1i * b2i + a2r * b1r - a2i * b1i;
-				bImag[j] = a1r * b2i + a1i * b2r + a2r * b1i + a2i * b1r;
+				pa[j << 1] = a1r * b1r - a1i * b1i - a2r * b2i - a2i * b2r;
+				pa[j << 1 | 1] = a1r * b1i + a1i * b1r + a2r * b2r - a2i * b2i;
+				pb[j << 1] = a1r * b2r - a1i * b2i + a2r * b1r - a2i * b1i;
+				pb[j << 1 | 1] = a1r * b2i + a1i * b2r + a2r * b1i + a2i * b1r;
 			}
 		}
 
-		FastFourierTransform.fft(new double[][] { aReal, aImag }, true);
-		FastFourierTransform.fft(new double[][] { bReal, bImag }, true);
+		FastFourierTransform.fft(pa, true);
+		FastFourierTransform.fft(pb, true);
+
+		double error = 0.0;
+		for (int i = 0; i < n + m - 1; i++) {
+			error = Math.max(error, Math.abs(pa[i << 1] - Math.rint(pa[i << 1])));
+			error = Math.max(error, Math.abs(pb[i << 1] - Math.rint(pb[i << 1])));
+			error = Math.max(error, Math.abs(pa[i << 1 | 1] - Math.rint(pa[i << 1 | 1])));
+		}
+		if (error > threshold) {
+			return null;
+		}
 
 		int[] ans = new int[n + m - 1];
-		IntStream.range(0, n + m - 1).forEach(i -> {
-			long aa = safeMod(Math.round(aReal[i]));
-			long bb = safeMod(Math.round(bReal[i]));
-			long cc = safeMod(Math.round(aImag[i]));
+		for (int i = 0; i < n + m - 1; i++) {
+			long aa = safeMod(Math.round(pa[i << 1]));
+			long bb = safeMod(Math.round(pb[i << 1]));
+			long cc = safeMod(Math.round(pa[i << 1 | 1]));
 			ans[i] = safeMod(aa + (bb << 15) + (cc << 30));
-		});
+		}
 
 		return ans;
 	}
 
+	/**
+	 * x mod MOD を (-MOD/2, MOD/2] の範囲で返す
+	 *
+	 * @param x
+	 * @return x mod MOD
+	 */
+	private static int centeredMod(int x) {
+		int y = safeMod(x);
+		return (y > MOD / 2) ? y - MOD : y;
+	}
+
 	private static int[] convolution(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex, int bToIndex) {
 		while ((aToIndex > aFromIndex) && (0 == a[aToIndex - 1])) {
 			aToIndex--;
@@ -130,10 +158,39 @@ public class Convolution2 {
 		if ((0 == n) || (0 == m)) {
 			return new int[0];
 		}
-		if (Math.min(n, m) <= 50) {
+		return convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex,
+				ConvolutionThresholds.get().isNaiveFft(n, m));
+	}
+
+	private static int[] convolution(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex, int bToIndex,
+			boolean naive) {
+		if (naive) {
 			return convolutionNaive(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex);
-		} else {
-			return convolutionFft(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex);
+		}
+		int[] ans = convolutionFft(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, ERROR_THRESHOLD);
+		if (null == ans) {
+			ans = Convolution.convolutionArbitraryMod(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, MOD);
+		}
+		return ans;
+	}
+
+	/**
+	 * 愚直な計算か FFT かを指定して、空でない a, b の畳み込みを mod m で計算します。引数のチェックは行わない。<br/>
+	 * ConvolutionThresholds.calibrate で各計算方法の時間を測定するために使用する。MOD は呼び出し前の値に戻す。
+	 *
+	 * @param a
+	 * @param b
+	 * @param m
+	 * @param naive 愚直に計算する場合は true
+	 * @return 計算した結果配列
+	 */
+	static int[] convolutionWith(int[] a, int[] b, int m, boolean naive) {
+		int saved = MOD;
+		MOD = m;
+		try {
+			return convolution(a, 0, a.length, b, 0, b.length, naive);
+		} finally {
+			MOD = saved;
 		}
 	}
 
@@ -150,7 +207,8 @@ public class Convolution2 {
 	}
 
 	/**
-	 * 畳み込みを mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。
+	 * 畳み込みを mod m で計算します。a,b の少なくとも一方が空配列の場合は空配列を返します。<br/>
+	 * FFT の丸め誤差が ERROR_THRESHOLD を超えた場合は、Convolution.convolutionArbitraryMod で計算し直します。
 	 *
 	 * @param a
 	 * @param aFromIndex
@@ -235,6 +293,9 @@ public class Convolution2 {
 	}
 
 	static class FastFourierTransform {
+		/** SIMD の実装、jdk.incubator.vector を使用できない場合は null */
+		static final VectorComplexButterfly VECTOR = loadVector();
+
 		private static double[][] realLevels = new double[30][];
 		private static double[][] imgLevels = new double[30][];
 
@@ -249,6 +310,106 @@ public class Convolution2 {
 			}
 		}
 
+		/**
+		 * 変換の段ごとの回転因子、cos と sin を交互に並べる。<br/>
+		 * 複数のスレッドから同時に変換するため、計算済みの配列は compareAndSet で公開し、中身まで見えることを保証する
+		 */
+		private static final AtomicReferenceArray<double[]> twiddles = new AtomicReferenceArray<>(30);
+
+		/**
+		 * 長さ 2^(d+1) の段で使用する回転因子を返す。一度計算した値は長さごとに保持する。
+		 *
+		 * @param d
+		 * @return cos(πj/2^d), sin(πj/2^d) を交互に並べた配列
+		 */
+		private static double[] twiddle(int d) {
+			double[] w = twiddles.get(d);
+			if (null == w) {
+				int s = 1 << d;
+				w = new double[s << 1];
+				for (int j = 0; j < s; j++) {
+					w[j << 1] = Math.cos(Math.PI / s * j);
+					w[j << 1 | 1] = Math.sin(Math.PI / s * j);
+				}
+				// 他のスレッドが先に公開した場合はそちらを使う
+				if (!twiddles.compareAndSet(d, null, w)) {
+					w = twiddles.get(d);
+				}
+			}
+			return w;
+		}
+
+		/**
+		 * DoubleVectorButterfly を読み込む。-Dconvolution.vector=false が指定された場合、またはコンパイルされていないか
+		 * jdk.incubator.vector を使用できない場合は null を返す。
+		 *
+		 * @return SIMD の実装
+		 */
+		private static VectorComplexButterfly loadVector() {
+			if (!Boolean.parseBoolean(System.getProperty("convolution.vector", "true"))) {
+				return null;
+			}
+			try {
+				return (VectorComplexButterfly) Class.forName("convolution.DoubleVectorButterfly")
+						.getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				return null;
+			}
+		}
+
+		/**
+		 * 実部と虚部を交互に並べた複素数列 p をその場で変換する
+		 *
+		 * @param p   長さ 2 * 2^k の配列
+		 * @param inv 逆変換の場合は true
+		 */
+		public static void fft(double[] p, boolean inv) {
+			int n = p.length >> 1;
+			int m = Convolution.ceilPow2(n);
+			int shift = 32 - m;
+			for (int i = 1; i < n; i++) {
+				int j = Integer.reverse(i << shift);
+				if (i < j) {
+					swap(p, i << 1, j << 1);
+					swap(p, i << 1 | 1, j << 1 | 1);
+				}
+			}
+
+			for (int d = 0; d < m; d++) {
+				int s = 1 << d;
+				double[] w = twiddle(d);
+				for (int i = 0; i < n; i += s << 1) {
+					for (int j = (null == VECTOR) ? 0 : VECTOR.butterflyBlock(p, w, i << 1, s); j < s; j++) {
+						int a = (i + j) << 1;
+						int b = a + (s << 1);
+						double wr = w[j << 1];
+						double wi = w[j << 1 | 1];
+						double br = p[b];
+						double bi = p[b + 1];
+						double tr = wr * br - wi * bi;
+						double ti = wr * bi + wi * br;
+						p[b] = p[a] - tr;
+						p[b + 1] = p[a + 1] - ti;
+						p[a] += tr;
+						p[a + 1] += ti;
+					}
+				}
+			}
+
+			if (inv) {
+				for (int i = 0, j = 0; i <= j; i++, j = n - i) {
+					double a = p[j << 1];
+					double b = p[j << 1 | 1];
+					p[j << 1] = p[i << 1] / n;
+					p[j << 1 | 1] = p[i << 1 | 1] / n;
+					if (i != j) {
+						p[i << 1] = a / n;
+						p[i << 1 | 1] = b / n;
+					}
+				}
+			}
+		}
+
 		public static void fft(double[][] p, boolean inv) {
 			int m = Convolution.ceilPow2(p[0].length);
 			int n = 1 << m;
@@ -0,0 +1,336 @@
+package convolution;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 畳み込みの計算方法を選ぶ閾値を保持するクラス
+ *
+ * 短い方の長さ min(n, m) を、長さの比 max(n, m) / min(n, m) の 2 を底とする対数ごとの閾値と比較し、愚直な計算、Karatsuba 法、NTT
+ * のいずれかを選ぶ。Convolution2 の愚直な計算と FFT の選択にも、別の閾値を同じ区分で保持する。<br/>
+ * 既定値は全ての形で愚直な計算を 60 以下 (Convolution2 では 50 以下) とし、Karatsuba 法は使用しない。calibrate で実際の計算時間を測定して置き換えることができ、
+ * -Dconvolution.calibrate=true を指定した場合は最初の使用時に測定する。<br/>
+ * 生成後は変更されないため、複数のスレッドから同時に使用できる。
+ */
+final class ConvolutionThresholds {
+	/** 計算方法 */
+	enum Method {
+		NAIVE, KARATSUBA, NTT
+	}
+
+	/** 長さの比の区分の数、最後の区分は比が 2^(SHAPES - 1) 以上の全てを含む */
+	static final int SHAPES = 8;
+	/** 既定の愚直な計算の閾値 */
+	static final int DEFAULT_NAIVE = 60;
+	/** 既定の Convolution2 の愚直な計算の閾値 */
+	static final int DEFAULT_FFT_NAIVE = 50;
+	/** 最初の使用時に測定するかどうか */
+	private static final boolean CALIBRATE = Boolean.getBoolean("convolution.calibrate");
+	/** 最初の使用時に測定する場合の mod */
+	private static final int CALIBRATE_MOD = 998244353;
+	/** 最初の使用時に測定する場合の短い方の長さの上限 */
+	private static final int CALIBRATE_MAX_LENGTH = 2048;
+	/** 測定 1 回あたりの最小の時間 (ns) */
+	private static final long MEASURE_NANOS = 2_000_000L;
+	/** この回数連続して他の計算方法に負けた時点で測定を打ち切る */
+	private static final int LOSSES = 2;
+	/** 測定の繰り返し回数、最小値を採用する */
+	private static final int MEASURE_REPEAT = 3;
+	/** 既定の閾値 */
+	static final ConvolutionThresholds DEFAULT = new ConvolutionThresholds(filled(DEFAULT_NAIVE),
+			filled(DEFAULT_NAIVE));
+
+	/** 測定中の計算が除去されないように結果を保持する */
+	private static volatile long sink;
+	/** 現在使用している閾値 */
+	private static volatile ConvolutionThresholds current = CALIBRATE ? null : DEFAULT;
+
+	/** 区分ごとの、愚直な計算を使用する短い方の長さの上限 */
+	private final int[] naive;
+	/** 区分ごとの、Karatsuba 法を使用する短い方の長さの上限、naive 以上 */
+	private final int[] karatsuba;
+	/** 区分ごとの、Convolution2 で FFT の代わりに愚直な計算を使用する短い方の長さの上限 */
+	private final int[] fftNaive;
+
+	/**
+	 * コンストラクター、Convolution2 の閾値は既定値とする
+	 *
+	 * @param naive     区分ごとの、愚直な計算を使用する短い方の長さの上限
+	 * @param karatsuba 区分ごとの、Karatsuba 法を使用する短い方の長さの上限
+	 */
+	ConvolutionThresholds(int[] naive, int[] karatsuba) {
+		this(naive, karatsuba, filled(DEFAULT_FFT_NAIVE));
+	}
+
+	/**
+	 * コンストラクター
+	 *
+	 * @param naive     区分ごとの、愚直な計算を使用する短い方の長さの上限
+	 * @param karatsuba 区分ごとの、Karatsuba 法を使用する短い方の長さの上限
+	 * @param fftNaive  区分ごとの、Convolution2 で愚直な計算を使用する短い方の長さの上限
+	 */
+	ConvolutionThresholds(int[] naive, int[] karatsuba, int[] fftNaive) {
+		if (!((SHAPES == naive.length) && (SHAPES == karatsuba.length) && (SHAPES == fftNaive.length))) {
+			throw new IllegalArgumentException("naive.length is " + naive.length + ", karatsuba.length is "
+					+ karatsuba.length + ", fftNaive.length is " + fftNaive.length);
+		}
+		for (int s = 0; s < SHAPES; s++) {
+			if (!((0 <= naive[s]) && (naive[s] <= karatsuba[s]))) {
+				throw new IllegalArgumentException("naive[" + s + "] is " + naive[s] + ", karatsuba[" + s + "] is "
+						+ karatsuba[s]);
+			}
+			if (!(0 <= fftNaive[s])) {
+				throw new IllegalArgumentException("fftNaive[" + s + "] is " + fftNaive[s]);
+			}
+		}
+		this.naive = naive.clone();
+		this.karatsuba = karatsuba.clone();
+		this.fftNaive = fftNaive.clone();
+	}
+
+	/**
+	 * 現在使用している閾値を返す
+	 *
+	 * @return 現在使用している閾値
+	 */
+	static ConvolutionThresholds get() {
+		ConvolutionThresholds t = current;
+		if (null == t) {
+			synchronized (ConvolutionThresholds.class) {
+				t = current;
+				if (null == t) {
+					t = calibrate(CALIBRATE_MOD, CALIBRATE_MAX_LENGTH);
+					current = t;
+				}
+			}
+		}
+		return t;
+	}
+
+	/**
+	 * 使用する閾値を設定する
+	 *
+	 * @param thresholds
+	 */
+	static void set(ConvolutionThresholds thresholds) {
+		if (null == thresholds) {
+			throw new IllegalArgumentException("thresholds is null");
+		}
+		current = thresholds;
+	}
+
+	/**
+	 * 長さ n と m の畳み込みの計算方法を返す
+	 *
+	 * @param n 1 以上
+	 * @param m 1 以上
+	 * @return 計算方法
+	 */
+	Method choose(int n, int m) {
+		int s = shape(n, m), l = Math.min(n, m);
+		if (l <= naive[s]) {
+			return Method.NAIVE;
+		} else if (l <= karatsuba[s]) {
+			return Method.KARATSUBA;
+		} else {
+			return Method.NTT;
+		}
+	}
+
+	/**
+	 * 長さ n と m の畳み込みを愚直に計算するかどうかを返す
+	 *
+	 * @param n 1 以上
+	 * @param m 1 以上
+	 * @return 愚直に計算する場合は true
+	 */
+	boolean isNaive(int n, int m) {
+		return Math.min(n, m) <= naive[shape(n, m)];
+	}
+
+	/**
+	 * 長さ n と m の Convolution2 の畳み込みを、FFT でなく愚直に計算するかどうかを返す
+	 *
+	 * @param n 1 以上
+	 * @param m 1 以上
+	 * @return 愚直に計算する場合は true
+	 */
+	boolean isNaiveFft(int n, int m) {
+		return Math.min(n, m) <= fftNaive[shape(n, m)];
+	}
+
+	/**
+	 * 区分ごとの愚直な計算の閾値を返す
+	 *
+	 * @return 区分ごとの愚直な計算の閾値
+	 */
+	int[] naive() {
+		return naive.clone();
+	}
+
+	/**
+	 * 区分ごとの Karatsuba 法の閾値を返す
+	 *
+	 * @return 区分ごとの Karatsuba 法の閾値
+	 */
+	int[] karatsuba() {
+		return karatsuba.clone();
+	}
+
+	/**
+	 * 区分ごとの Convolution2 の愚直な計算の閾値を返す
+	 *
+	 * @return 区分ごとの Convolution2 の愚直な計算の閾値
+	 */
+	int[] fftNaive() {
+		return fftNaive.clone();
+	}
+
+	@Override
+	public String toString() {
+		return "naive=" + Arrays.toString(naive) + ", karatsuba=" + Arrays.toString(karatsuba) + ", fftNaive="
+				+ Arrays.toString(fftNaive);
+	}
+
+	/**
+	 * 長さの比の区分を返す
+	 *
+	 * @param n
+	 * @param m
+	 * @return floor(log2(max(n, m) / min(n, m))) と SHAPES - 1 の小さい方
+	 */
+	static int shape(int n, int m) {
+		int r = Math.max(n, m) / Math.min(n, m);
+		return Math.min(SHAPES - 1, 31 - Integer.numberOfLeadingZeros(r));
+	}
+
+	/**
+	 * 愚直な計算、Karatsuba 法、NTT の計算時間を形ごとに測定し、閾値を求める。Convolution2 の愚直な計算と FFT も同様に測定する。<br/>
+	 * 区分 s では短い方の長さ l、長い方の長さ l * 2^s の畳み込みを l を約 1.25 倍ずつ増やしながら測定し、LOSSES 回連続で他の計算方法より遅くなった時点で打ち切る。
+	 * 求めた閾値は設定しないため、必要に応じて set を呼び出すこと。
+	 *
+	 * @param m         測定に使用する mod
+	 * @param maxLength 測定する短い方の長さの上限
+	 * @return 測定した閾値
+	 */
+	static ConvolutionThresholds calibrate(int m, int maxLength) {
+		if (!(1 <= maxLength)) {
+			throw new IllegalArgumentException("maxLength is " + maxLength);
+		}
+		NumberTheoreticTransform ntt = NumberTheoreticTransform.of(m);
+		// JIT コンパイルを済ませるため、各計算方法を一度ずつ測定して捨てる
+		long[] wa = random(256, m, 0), wb = random(64, m, 1);
+		for (Method method : Method.values()) {
+			measure(ntt, wa, wb, method);
+		}
+		int[] iwa = toInt(wa), iwb = toInt(wb);
+		measure(() -> sink(Convolution2.convolutionWith(iwa, iwb, m, true)));
+		measure(() -> sink(Convolution2.convolutionWith(iwa, iwb, m, false)));
+		int[] naive = new int[SHAPES], karatsuba = new int[SHAPES], fftNaive = new int[SHAPES];
+		for (int s = 0; s < SHAPES; s++) {
+			// 測定の揺らぎで打ち切らないよう、連続して LOSSES 回負けるまで測定する
+			int naiveLosses = 0, karatsubaLosses = 0;
+			for (int l = 8; (l <= maxLength) && ((naiveLosses < LOSSES) || (karatsubaLosses < LOSSES)); l = next(l)) {
+				long[] a = random(l << s, m, l), b = random(l, m, s);
+				long tNaive = (naiveLosses < LOSSES) ? measure(ntt, a, b, Method.NAIVE) : Long.MAX_VALUE;
+				long tKaratsuba = (karatsubaLosses < LOSSES) ? measure(ntt, a, b, Method.KARATSUBA) : Long.MAX_VALUE;
+				long tNtt = measure(ntt, a, b, Method.NTT);
+				if ((naiveLosses < LOSSES) && (tNaive <= tKaratsuba) && (tNaive <= tNtt)) {
+					naive[s] = l;
+					naiveLosses = 0;
+				} else {
+					naiveLosses++;
+				}
+				if ((karatsubaLosses < LOSSES) && (tKaratsuba <= tNtt)) {
+					karatsuba[s] = l;
+					karatsubaLosses = 0;
+				} else {
+					karatsubaLosses++;
+				}
+			}
+			// 愚直な計算に負けた長さで Karatsuba 法を使うことはないため、naive 以上に揃える
+			karatsuba[s] = Math.max(karatsuba[s], naive[s]);
+
+			int losses = 0;
+			for (int l = 8; (l <= maxLength) && (losses < LOSSES); l = next(l)) {
+				int[] a = toInt(random(l << s, m, l)), b = toInt(random(l, m, s));
+				long tNaive = measure(() -> sink(Convolution2.convolutionWith(a, b, m, true)));
+				long tFft = measure(() -> sink(Convolution2.convolutionWith(a, b, m, false)));
+				if (tNaive <= tFft) {
+					fftNaive[s] = l;
+					losses = 0;
+				} else {
+					losses++;
+				}
+			}
+		}
+		return new ConvolutionThresholds(naive, karatsuba, fftNaive);
+	}
+
+	private static int next(int l) {
+		return l + Math.max(1, l / 4);
+	}
+
+	/**
+	 * method で a と b の畳み込みを計算する時間を測定する
+	 *
+	 * @return 1 回あたりの時間 (ns) の最小値
+	 */
+	private static long measure(NumberTheoreticTransform ntt, long[] a, long[] b, Method method) {
+		return measure(() -> sink(ntt.convolutionWith(a, 0, a.length, b, 0, b.length, method)));
+	}
+
+	/**
+	 * run を繰り返し実行する時間を測定する
+	 *
+	 * @return 1 回あたりの時間 (ns) の最小値
+	 */
+	private static long measure(Runnable run) {
+		long best = Long.MAX_VALUE;
+		// 1 回目はウォームアップとして扱い、以降の繰り返しの最小値を取る
+		for (int r = 0; r <= MEASURE_REPEAT; r++) {
+			long start = System.nanoTime(), elapsed;
+			int count = 0;
+			do {
+				run.run();
+				count++;
+				elapsed = System.nanoTime() - start;
+			} while (elapsed < MEASURE_NANOS);
+			if (0 < r) {
+				best = Math.min(best, elapsed / count);
+			}
+		}
+		return best;
+	}
+
+	private static void sink(long[] c) {
+		sink += c[c.length / 2];
+	}
+
+	private static void sink(int[] c) {
+		sink += c[c.length / 2];
+	}
+
+	private static int[] toInt(long[] a) {
+		int[] b = new int[a.length];
+		for (int i = 0; i < a.length; i++) {
+			b[i] = (int) a[i];
+		}
+		return b;
+	}
+
+	private static long[] random(int n, int m, int seed) {
+		Random random = new Random(seed);
+		long[] a = new long[n];
+		for (int i = 0; i < n; i++) {
+			a[i] = random.nextInt(m);
+		}
+		return a;
+	}
+
+	private static int[] filled(int value) {
+		int[] a = new int[SHAPES];
+		Arrays.fill(a, value);
+		return a;
+	}
+}
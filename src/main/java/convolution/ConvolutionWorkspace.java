@@ -0,0 +1,135 @@
+package convolution;
+
+/**
+ * 畳み込みの作業領域を保持し、繰り返し使用するクラス
+ *
+ * 作業領域は変換の長さごとに一度だけ生成して使い回すため、同じ長さの畳み込みを繰り返す場合は配列の生成を行わない。<br/>
+ * 作業領域を共有するため、複数のスレッドから同時に使用できない。スレッドごとにインスタンスを生成すること。
+ */
+public class ConvolutionWorkspace {
+	/** 変換の長さの指数ごとの int[] の作業領域 */
+	private final int[][][] intBuffers = new int[2][31][];
+	/** 変換の長さの指数ごとの long[] の作業領域 */
+	private final long[][][] longBuffers = new long[2][31][];
+	/** 最後に使用した mod の NumberTheoreticTransform */
+	private NumberTheoreticTransform ntt;
+
+	/**
+	 * 畳み込みを mod m で計算し、out の先頭から格納します。a,b の少なくとも一方が空配列の場合は何も格納しません。
+	 *
+	 * @param a
+	 * @param b
+	 * @param m
+	 * @param out 長さ a.length + b.length - 1 以上の配列
+	 * @return 格納した要素数
+	 */
+	int convolution(long[] a, long[] b, int m, long[] out) {
+		return convolution(a, 0, a.length, b, 0, b.length, m, out, 0);
+	}
+
+	/**
+	 * 畳み込みを mod m で計算し、out[outOffset, outOffset + n + m - 1) に格納します。a,b
+	 * の少なくとも一方が空配列の場合は何も格納しません。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param m
+	 * @param out
+	 * @param outOffset
+	 * @return 格納した要素数
+	 */
+	int convolution(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex, int m,
+			long[] out, int outOffset) {
+		Convolution.checkIndex(a.length, aFromIndex, aToIndex, b.length, bFromIndex, bToIndex);
+		int len = outputLength(aToIndex - aFromIndex, bToIndex - bFromIndex);
+		checkOutput(out.length, outOffset, len);
+		ntt(m).convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, out, outOffset, this);
+		return len;
+	}
+
+	/**
+	 * 畳み込みを mod m で計算し、out の先頭から格納します。a,b の少なくとも一方が空配列の場合は何も格納しません。
+	 *
+	 * @param a
+	 * @param b
+	 * @param m
+	 * @param out 長さ a.length + b.length - 1 以上の配列
+	 * @return 格納した要素数
+	 */
+	int convolution(int[] a, int[] b, int m, int[] out) {
+		return convolution(a, 0, a.length, b, 0, b.length, m, out, 0);
+	}
+
+	/**
+	 * 畳み込みを mod m で計算し、out[outOffset, outOffset + n + m - 1) に格納します。a,b
+	 * の少なくとも一方が空配列の場合は何も格納しません。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param m
+	 * @param out
+	 * @param outOffset
+	 * @return 格納した要素数
+	 */
+	int convolution(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex, int bToIndex, int m, int[] out,
+			int outOffset) {
+		Convolution.checkIndex(a.length, aFromIndex, aToIndex, b.length, bFromIndex, bToIndex);
+		int len = outputLength(aToIndex - aFromIndex, bToIndex - bFromIndex);
+		checkOutput(out.length, outOffset, len);
+		ntt(m).convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, out, outOffset, this);
+		return len;
+	}
+
+	/**
+	 * 長さ 2^log の int[] の作業領域を返す
+	 *
+	 * @param k   作業領域の番号
+	 * @param log
+	 * @return 作業領域
+	 */
+	int[] intBuffer(int k, int log) {
+		if (null == intBuffers[k][log]) {
+			intBuffers[k][log] = new int[1 << log];
+		}
+		return intBuffers[k][log];
+	}
+
+	/**
+	 * 長さ 2^log の long[] の作業領域を返す
+	 *
+	 * @param k   作業領域の番号
+	 * @param log
+	 * @return 作業領域
+	 */
+	long[] longBuffer(int k, int log) {
+		if (null == longBuffers[k][log]) {
+			longBuffers[k][log] = new long[1 << log];
+		}
+		return longBuffers[k][log];
+	}
+
+	private NumberTheoreticTransform ntt(int m) {
+		if ((null == ntt) || (ntt.mod != m)) {
+			ntt = NumberTheoreticTransform.of(m);
+		}
+		return ntt;
+	}
+
+	private static int outputLength(int n, int m) {
+		return ((0 == n) || (0 == m)) ? 0 : (n + m) - 1;
+	}
+
+	private static void checkOutput(int outLength, int outOffset, int len) {
+		if (!((0 <= outOffset) && (outOffset <= outLength - len))) {
+			throw new IllegalArgumentException("outOffset is " + outOffset + ", out.length is " + outLength);
+		}
+	}
+}
@@ -0,0 +1,430 @@
+package convolution;
+
+import java.util.Arrays;
+
+/**
+ * 形式的冪級数の演算を行うクラス
+ *
+ * Convolution の NTT をもとに、逆元、log、exp、累乗、平方根を Newton 法で O(n log n) で、多項式の除算を O(n log n)
+ * で、多点評価を O(n log^2 n) で計算する。<br/>
+ * m は NTT を使用できる素数であること。結果の各要素は [0, m) の範囲となる。
+ */
+public class FormalPowerSeries {
+	/** 多点評価でこの個数以下の点は直接計算する */
+	private static final int EVALUATION_THRESHOLD = 32;
+
+	/**
+	 * a の逆元を mod x^n で計算します。
+	 *
+	 * @param a a[0] != 0
+	 * @param n
+	 * @param m
+	 * @return 1/a mod x^n
+	 */
+	static long[] inv(long[] a, int n, int m) {
+		checkLength(n);
+		NumberTheoreticTransform ntt = NumberTheoreticTransform.of(m);
+		long[] f = normalize(a, n, ntt);
+		if ((0 < n) && (0L == f[0])) {
+			throw new IllegalArgumentException("a[0] is 0");
+		}
+		return inv(f, n, ntt, new ConvolutionWorkspace());
+	}
+
+	/**
+	 * a の対数を mod x^n で計算します。
+	 *
+	 * @param a a[0] == 1
+	 * @param n
+	 * @param m
+	 * @return log(a) mod x^n
+	 */
+	static long[] log(long[] a, int n, int m) {
+		checkLength(n);
+		NumberTheoreticTransform ntt = NumberTheoreticTransform.of(m);
+		long[] f = normalize(a, n, ntt);
+		if ((0 < n) && (1L != f[0])) {
+			throw new IllegalArgumentException("a[0] is " + f[0]);
+		}
+		return log(f, n, ntt, new ConvolutionWorkspace());
+	}
+
+	/**
+	 * a の指数関数を mod x^n で計算します。
+	 *
+	 * @param a a[0] == 0
+	 * @param n
+	 * @param m
+	 * @return exp(a) mod x^n
+	 */
+	static long[] exp(long[] a, int n, int m) {
+		checkLength(n);
+		NumberTheoreticTransform ntt = NumberTheoreticTransform.of(m);
+		long[] f = normalize(a, n, ntt);
+		if ((0 < n) && (0L != f[0])) {
+			throw new IllegalArgumentException("a[0] is " + f[0]);
+		}
+		return exp(f, n, ntt, new ConvolutionWorkspace());
+	}
+
+	/**
+	 * a^k を mod x^n で計算します。
+	 *
+	 * @param a
+	 * @param k `0 <= k`
+	 * @param n
+	 * @param m
+	 * @return a^k mod x^n
+	 */
+	static long[] pow(long[] a, long k, int n, int m) {
+		checkLength(n);
+		if (!(0L <= k)) {
+			throw new IllegalArgumentException("k is " + k);
+		}
+		NumberTheoreticTransform ntt = NumberTheoreticTransform.of(m);
+		long[] f = normalize(a, n, ntt);
+		long[] ans = new long[n];
+		if (0 == n) {
+			return ans;
+		}
+		if (0L == k) {
+			ans[0] = 1L % m;
+			return ans;
+		}
+		int z = firstNonZero(f);
+		if ((z < 0) || (z > (n - 1) / k)) {
+			return ans;
+		}
+		int shift = (int) (z * k), len = n - shift;
+		long c = f[z], ic = Convolution.invMod(c, m);
+		long[] b = new long[len];
+		for (int i = 0; (i < len) && (i + z < n); i++) {
+			b[i] = ntt.safeMod(f[i + z] * ic);
+		}
+		ConvolutionWorkspace workspace = new ConvolutionWorkspace();
+		long[] lb = log(b, len, ntt, workspace);
+		long km = k % m;
+		for (int i = 0; i < len; i++) {
+			lb[i] = ntt.safeMod(lb[i] * km);
+		}
+		long[] eb = exp(lb, len, ntt, workspace);
+		long ck = Convolution.powMod(c, k, m);
+		for (int i = 0; i < len; i++) {
+			ans[i + shift] = ntt.safeMod(eb[i] * ck);
+		}
+		return ans;
+	}
+
+	/**
+	 * a の平方根を mod x^n で計算します。
+	 *
+	 * @param a
+	 * @param n
+	 * @param m
+	 * @return g * g = a mod x^n となる g のいずれか一つ、存在しない場合は null
+	 */
+	static long[] sqrt(long[] a, int n, int m) {
+		checkLength(n);
+		NumberTheoreticTransform ntt = NumberTheoreticTransform.of(m);
+		long[] f = normalize(a, n, ntt);
+		long[] ans = new long[n];
+		int z = firstNonZero(f);
+		if (z < 0) {
+			return ans;
+		}
+		if (1 == (z & 1)) {
+			return null;
+		}
+		long sc = sqrtMod(f[z], m);
+		if (sc < 0) {
+			return null;
+		}
+		int shift = z / 2, len = n - shift;
+		long ic = Convolution.invMod(f[z], m);
+		long[] b = new long[len];
+		for (int i = 0; (i < len) && (i + z < n); i++) {
+			b[i] = ntt.safeMod(f[i + z] * ic);
+		}
+		ConvolutionWorkspace workspace = new ConvolutionWorkspace();
+		long inv2 = (m + 1) / 2;
+		long[] g = { 1L };
+		for (int d = 1; d < len; d <<= 1) {
+			long[] ig = inv(g, 2 * d, ntt, workspace);
+			long[] p = ntt.convolutionWindow(b, 0, Math.min(len, 2 * d), ig, 0, 2 * d, 0, 2 * d);
+			long[] ng = new long[2 * d];
+			for (int i = 0; i < 2 * d; i++) {
+				ng[i] = ntt.safeMod(((i < g.length) ? g[i] + p[i] : p[i]) * inv2);
+			}
+			g = ng;
+		}
+		for (int i = 0; i < len; i++) {
+			ans[i + shift] = ntt.safeMod(g[i] * sc);
+		}
+		return ans;
+	}
+
+	/**
+	 * 多項式 a を b で割った商と余りを計算します。
+	 *
+	 * @param a
+	 * @param b 0 でない多項式
+	 * @param m
+	 * @return {商, 余り}、余りの長さは b の次数と同じ
+	 */
+	static long[][] divMod(long[] a, long[] b, int m) {
+		NumberTheoreticTransform ntt = NumberTheoreticTransform.of(m);
+		return divMod(normalize(a, a.length, ntt), normalize(b, b.length, ntt), ntt, new ConvolutionWorkspace());
+	}
+
+	/**
+	 * 多項式 a の xs の各点での値を計算します。
+	 *
+	 * @param a
+	 * @param xs
+	 * @param m
+	 * @return 各点での a の値
+	 */
+	static long[] multipointEvaluation(long[] a, long[] xs, int m) {
+		NumberTheoreticTransform ntt = NumberTheoreticTransform.of(m);
+		int k = xs.length;
+		long[] ans = new long[k];
+		if (0 == k) {
+			return ans;
+		}
+		long[] f = normalize(a, a.length, ntt), x = normalize(xs, k, ntt);
+		int size = 1 << Convolution.ceilPow2(k);
+		// tree[i] は担当する点 x_j についての (X - x_j) の積
+		long[][] tree = new long[size << 1][];
+		for (int i = 0; i < size; i++) {
+			tree[i + size] = (i < k) ? new long[] { ntt.safeMod(-x[i]), 1L } : new long[] { 1L };
+		}
+		for (int i = size - 1; i >= 1; i--) {
+			tree[i] = ntt.convolution(tree[i << 1], 0, tree[i << 1].length, tree[i << 1 | 1], 0,
+					tree[i << 1 | 1].length);
+		}
+		evaluate(f, tree, 1, 0, size, x, ans, ntt, new ConvolutionWorkspace());
+		return ans;
+	}
+
+	private static void evaluate(long[] f, long[][] tree, int node, int lo, int hi, long[] xs, long[] ans,
+			NumberTheoreticTransform ntt, ConvolutionWorkspace workspace) {
+		if (lo >= xs.length) {
+			return;
+		}
+		f = divMod(f, tree[node], ntt, workspace)[1];
+		if (hi - lo <= EVALUATION_THRESHOLD) {
+			for (int i = lo; i < Math.min(hi, xs.length); i++) {
+				long y = 0L;
+				for (int j = f.length - 1; j >= 0; j--) {
+					y = ntt.safeMod(y * xs[i] + f[j]);
+				}
+				ans[i] = y;
+			}
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		evaluate(f, tree, node << 1, lo, mid, xs, ans, ntt, workspace);
+		evaluate(f, tree, node << 1 | 1, mid, hi, xs, ans, ntt, workspace);
+	}
+
+	/**
+	 * a の逆元を mod x^n で計算する。a の各要素は [0, mod) の範囲であること。<br/>
+	 * 各 Newton 法の段では g の変換を 2 回の積で使い回し、作業領域は workspace のものを使用する。
+	 *
+	 * @param a
+	 * @param n
+	 * @param ntt
+	 * @param workspace
+	 * @return 1/a mod x^n
+	 */
+	private static long[] inv(long[] a, int n, NumberTheoreticTransform ntt, ConvolutionWorkspace workspace) {
+		long[] g = new long[n];
+		if (0 == n) {
+			return g;
+		}
+		g[0] = Convolution.invMod(a[0], ntt.mod);
+		for (int d = 1; d < n; d <<= 1) {
+			int z = d << 1, log = Convolution.bsf(z);
+			long[] f = workspace.longBuffer(0, log), h = workspace.longBuffer(1, log);
+			int len = Math.min(a.length, z);
+			System.arraycopy(a, 0, f, 0, len);
+			Arrays.fill(f, len, z, 0L);
+			System.arraycopy(g, 0, h, 0, d);
+			Arrays.fill(h, d, z, 0L);
+			ntt.butterfly(f);
+			ntt.butterfly(h);
+			for (int i = 0; i < z; i++) {
+				f[i] = f[i] * h[i] % ntt.mod;
+			}
+			ntt.butterflyInv(f);
+			// a * g = 1 + O(x^d) のため、x^d 以上の部分のみを使用する
+			long iz = ntt.invPow2[log];
+			Arrays.fill(f, 0, d, 0L);
+			for (int i = d; i < z; i++) {
+				f[i] = f[i] * iz % ntt.mod;
+			}
+			ntt.butterfly(f);
+			for (int i = 0; i < z; i++) {
+				f[i] = f[i] * h[i] % ntt.mod;
+			}
+			ntt.butterflyInv(f);
+			for (int i = d; i < Math.min(z, n); i++) {
+				g[i] = ntt.safeMod(-(f[i] * iz % ntt.mod));
+			}
+		}
+		return g;
+	}
+
+	private static long[] log(long[] a, int n, NumberTheoreticTransform ntt, ConvolutionWorkspace workspace) {
+		long[] ans = new long[n];
+		if (n <= 1) {
+			return ans;
+		}
+		long[] da = new long[n - 1];
+		for (int i = 1; i < Math.min(a.length, n); i++) {
+			da[i - 1] = ntt.safeMod(a[i] * i);
+		}
+		long[] ia = inv(a, n - 1, ntt, workspace);
+		long[] p = ntt.convolutionWindow(da, 0, n - 1, ia, 0, n - 1, 0, n - 1);
+		long[] invs = inverses(n, ntt.mod);
+		for (int i = 1; i < n; i++) {
+			ans[i] = ntt.safeMod(p[i - 1] * invs[i]);
+		}
+		return ans;
+	}
+
+	private static long[] exp(long[] a, int n, NumberTheoreticTransform ntt, ConvolutionWorkspace workspace) {
+		if (0 == n) {
+			return new long[0];
+		}
+		long[] g = { 1L };
+		for (int d = 1; d < n; d <<= 1) {
+			int z = d << 1;
+			long[] lg = log(Arrays.copyOf(g, z), z, ntt, workspace);
+			long[] h = new long[z];
+			for (int i = 0; i < z; i++) {
+				h[i] = ntt.safeMod(((i < a.length) ? a[i] : 0L) - lg[i]);
+			}
+			h[0] = ntt.safeMod(h[0] + 1L);
+			g = ntt.convolutionWindow(g, 0, g.length, h, 0, z, 0, z);
+		}
+		return Arrays.copyOf(g, n);
+	}
+
+	private static long[][] divMod(long[] a, long[] b, NumberTheoreticTransform ntt,
+			ConvolutionWorkspace workspace) {
+		int n = a.length, m = b.length;
+		while ((n > 0) && (0L == a[n - 1])) {
+			n--;
+		}
+		while ((m > 0) && (0L == b[m - 1])) {
+			m--;
+		}
+		if (0 == m) {
+			throw new IllegalArgumentException("b is 0");
+		}
+		if (n < m) {
+			return new long[][] { new long[0], Arrays.copyOf(a, m - 1) };
+		}
+		int k = n - m + 1;
+		long[] ra = new long[k], rb = new long[Math.min(m, k)];
+		for (int i = 0; i < k; i++) {
+			ra[i] = a[n - 1 - i];
+		}
+		for (int i = 0; i < rb.length; i++) {
+			rb[i] = b[m - 1 - i];
+		}
+		long[] rq = ntt.convolutionWindow(ra, 0, k, inv(rb, k, ntt, workspace), 0, k, 0, k);
+		long[] q = new long[k];
+		for (int i = 0; i < k; i++) {
+			q[i] = rq[k - 1 - i];
+		}
+		long[] r = new long[m - 1];
+		if (0 < r.length) {
+			long[] bq = ntt.convolutionWindow(b, 0, m, q, 0, k, 0, r.length);
+			for (int i = 0; i < r.length; i++) {
+				r[i] = ntt.safeMod(a[i] - bq[i]);
+			}
+		}
+		return new long[][] { q, r };
+	}
+
+	/**
+	 * x*x = c (mod m) となる x を Tonelli-Shanks のアルゴリズムで計算する。m は素数であること。
+	 *
+	 * @param c
+	 * @param m
+	 * @return x*x = c (mod m) となる x のいずれか一つ、存在しない場合は -1
+	 */
+	static long sqrtMod(long c, int m) {
+		c = Convolution.safeMod(c, m);
+		if ((0L == c) || (2 == m)) {
+			return c;
+		}
+		if (1L != Convolution.powMod(c, (m - 1) / 2, m)) {
+			return -1L;
+		}
+		int s = Convolution.bsf(m - 1);
+		long q = (m - 1) >> s;
+		long z = 2L;
+		while (1L == Convolution.powMod(z, (m - 1) / 2, m)) {
+			z++;
+		}
+		long cc = Convolution.powMod(z, q, m), t = Convolution.powMod(c, q, m),
+				r = Convolution.powMod(c, (q + 1) / 2, m);
+		while (1L != t) {
+			int i = 0;
+			for (long tt = t; 1L != tt; tt = tt * tt % m) {
+				i++;
+			}
+			long b = cc;
+			for (int j = 0; j < s - i - 1; j++) {
+				b = b * b % m;
+			}
+			s = i;
+			cc = b * b % m;
+			t = t * cc % m;
+			r = r * b % m;
+		}
+		return r;
+	}
+
+	/**
+	 * 1, 2, ..., n - 1 の mod m での逆元を計算する
+	 *
+	 * @param n
+	 * @param m
+	 * @return invs[i] = 1/i mod m
+	 */
+	private static long[] inverses(int n, int m) {
+		long[] invs = new long[Math.max(2, n)];
+		invs[1] = 1L;
+		for (int i = 2; i < n; i++) {
+			invs[i] = Convolution.safeMod(-(m / i) * invs[m % i] % m, m);
+		}
+		return invs;
+	}
+
+	private static long[] normalize(long[] a, int n, NumberTheoreticTransform ntt) {
+		long[] f = new long[n];
+		for (int i = 0; i < Math.min(a.length, n); i++) {
+			f[i] = ntt.safeMod(a[i]);
+		}
+		return f;
+	}
+
+	private static int firstNonZero(long[] f) {
+		for (int i = 0; i < f.length; i++) {
+			if (0L != f[i]) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static void checkLength(int n) {
+		if (!(0 <= n)) {
+			throw new IllegalArgumentException("n is " + n);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package convolution;
+
+import java.util.Arrays;
+
+/**
+ * Karatsuba 法で畳み込みを mod で計算するクラス
+ *
+ * 愚直な計算と NTT の中間の長さで使用する。長い方の配列は短い方の長さごとに分割し、同じ長さの組の積を再帰的に計算する。
+ */
+final class Karatsuba {
+	/** この長さ以下の組は愚直に計算する */
+	private static final int NAIVE_LENGTH = 32;
+
+	private Karatsuba() {
+	}
+
+	/**
+	 * a[aFromIndex, aToIndex) と b[bFromIndex, bToIndex) の畳み込みを mod で計算し、out[outOffset, outOffset + n + m - 1)
+	 * に格納する。引数のチェックは行わない。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param mod
+	 * @param out
+	 * @param outOffset
+	 */
+	static void convolution(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex, int mod,
+			long[] out, int outOffset) {
+		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
+		long[] na = new long[n], nb = new long[m];
+		for (int i = 0; i < n; i++) {
+			na[i] = Convolution.safeMod(a[i + aFromIndex], mod);
+		}
+		for (int i = 0; i < m; i++) {
+			nb[i] = Convolution.safeMod(b[i + bFromIndex], mod);
+		}
+		convolution(na, nb, mod, out, outOffset);
+	}
+
+	/**
+	 * a[aFromIndex, aToIndex) と b[bFromIndex, bToIndex) の畳み込みを mod で計算し、out[outOffset, outOffset + n + m - 1)
+	 * に格納する。引数のチェックは行わない。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param mod
+	 * @param out
+	 * @param outOffset
+	 */
+	static void convolution(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex, int bToIndex, int mod,
+			int[] out, int outOffset) {
+		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
+		long[] na = new long[n], nb = new long[m];
+		for (int i = 0; i < n; i++) {
+			na[i] = Convolution.safeMod(a[i + aFromIndex], mod);
+		}
+		for (int i = 0; i < m; i++) {
+			nb[i] = Convolution.safeMod(b[i + bFromIndex], mod);
+		}
+		long[] c = new long[(n + m) - 1];
+		convolution(na, nb, mod, c, 0);
+		for (int i = 0; i < c.length; i++) {
+			out[i + outOffset] = (int) c[i];
+		}
+	}
+
+	/**
+	 * [0, mod) に簡約済みの a, b の畳み込みを out[outOffset, outOffset + n + m - 1) に格納する
+	 *
+	 * @param a
+	 * @param b
+	 * @param mod
+	 * @param out
+	 * @param outOffset
+	 */
+	private static void convolution(long[] a, long[] b, int mod, long[] out, int outOffset) {
+		if (a.length < b.length) {
+			long[] t = a;
+			a = b;
+			b = t;
+		}
+		int n = a.length, m = b.length;
+		Arrays.fill(out, outOffset, outOffset + (n + m) - 1, 0L);
+		// 長い方を短い方の長さごとに分割し、余りは 0 で埋める
+		for (int i = 0; i < n; i += m) {
+			long[] c = multiply(Arrays.copyOfRange(a, i, i + m), b, mod);
+			for (int j = 0; (j < c.length) && (i + j < (n + m) - 1); j++) {
+				int k = i + j + outOffset;
+				out[k] += c[j];
+				if (out[k] >= mod) {
+					out[k] -= mod;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 同じ長さ k の a, b の積を計算する
+	 *
+	 * @param a
+	 * @param b
+	 * @param mod
+	 * @return 長さ 2k - 1 の結果配列
+	 */
+	private static long[] multiply(long[] a, long[] b, int mod) {
+		int k = a.length;
+		long[] c = new long[(2 * k) - 1];
+		if (k <= NAIVE_LENGTH) {
+			// 積は (mod - 1)^2 以下のため、剰余を取った値 (mod 未満) に batch 項まで足してもオーバーフローしない。
+			// mod が 2^31 に近い場合は batch が 1 や 2 になる
+			long batch = Math.max(1L, (Long.MAX_VALUE - mod) / Math.max(1L, (long) (mod - 1) * (mod - 1)));
+			for (int t = 0; t < c.length; t++) {
+				long x = 0L;
+				long count = 0L;
+				for (int i = Math.max(0, t - k + 1); i <= Math.min(k - 1, t); i++) {
+					x += a[i] * b[t - i];
+					if (++count == batch) {
+						x %= mod;
+						count = 0L;
+					}
+				}
+				c[t] = x % mod;
+			}
+			return c;
+		}
+		int h = (k + 1) / 2;
+		long[] a0 = Arrays.copyOf(a, h), a1 = Arrays.copyOfRange(a, h, 2 * h);
+		long[] b0 = Arrays.copyOf(b, h), b1 = Arrays.copyOfRange(b, h, 2 * h);
+		long[] z0 = multiply(a0, b0, mod), z2 = multiply(a1, b1, mod);
+		for (int i = 0; i < h; i++) {
+			a0[i] = (a0[i] + a1[i]) % mod;
+			b0[i] = (b0[i] + b1[i]) % mod;
+		}
+		long[] z1 = multiply(a0, b0, mod);
+		for (int i = 0; i < z1.length; i++) {
+			long x = z1[i] - z0[i] - z2[i];
+			z1[i] = (x < 0) ? ((x < -mod) ? x + 2L * mod : x + mod) : x;
+		}
+		for (int i = 0; i < z0.length; i++) {
+			c[i] = z0[i];
+		}
+		for (int i = 0; (i < z1.length) && (i + h < c.length); i++) {
+			c[i + h] = (c[i + h] + z1[i]) % mod;
+		}
+		for (int i = 0; (i < z2.length) && (i + 2 * h < c.length); i++) {
+			c[i + 2 * h] = (c[i + 2 * h] + z2[i]) % mod;
+		}
+		return c;
+	}
+}
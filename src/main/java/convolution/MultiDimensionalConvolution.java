@@ -0,0 +1,549 @@
+package convolution;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntToLongFunction;
+
+/**
+ * 多次元の畳み込みを mod で計算するクラス
+ *
+ * k 次元の配列は行優先 (最後の次元が連続) の 1 次元配列と各次元の長さ shape で表す。<br/>
+ * 各次元の長さを 2 のべき乗に広げた配列について、次元ごとに各列を NumberTheoreticTransform の butterfly で変換し、各点の積を取って逆変換する。
+ * 列は BLOCK 本ずつ連続した作業領域に集めてから変換する。<br/>
+ * 結果の一部 [fromIndex, toIndex) のみを求める場合は、各次元を巡回畳み込みの折り返しが窓に重ならない最小の長さで変換し、逆変換も窓に関わる列に限る。<br/>
+ * 各次元を 2 のべき乗に広げると変換が長くなる場合は、結果の形で行を詰めた 1 次元の畳み込みで計算する。<br/>
+ * Parallel の付くメソッドは、要素数 PARALLEL_THRESHOLD 以上の変換の列を ForkJoinPool.commonPool() で並列に計算する。
+ */
+public class MultiDimensionalConvolution {
+	/** 並列モードでも、この要素数未満の変換は逐次に計算する */
+	static final int PARALLEL_THRESHOLD = NumberTheoreticTransform.PARALLEL_THRESHOLD;
+	/** 一度に集める列の数、int 16 個でキャッシュラインの大きさとなる */
+	private static final int BLOCK = 16;
+	/** 並列に計算する際の 1 タスクあたりの要素数 */
+	private static final int PARALLEL_GRAIN = 1 << 15;
+
+	private MultiDimensionalConvolution() {
+	}
+
+	/**
+	 * 2 次元の畳み込みを mod m で計算します。a,b の少なくとも一方が空の場合は空配列を返します。
+	 *
+	 * @param a 各行の長さが等しい配列
+	 * @param b 各行の長さが等しい配列
+	 * @param m
+	 * @return a.length + b.length - 1 行、a[0].length + b[0].length - 1 列の結果配列
+	 */
+	static long[][] convolution(long[][] a, long[][] b, int m) {
+		int[] aShape = shape(a), bShape = shape(b);
+		int[] shape = outputShape(aShape, bShape);
+		return unflatten(convolution(flatten(a, aShape), aShape, flatten(b, bShape), bShape, new int[2], shape, m, null),
+				shape);
+	}
+
+	/**
+	 * 2 次元の畳み込みの結果のうち、[rowFrom, rowTo) 行、[columnFrom, columnTo) 列のみを mod m で計算します。
+	 *
+	 * @param a          各行の長さが等しい配列
+	 * @param b          各行の長さが等しい配列
+	 * @param rowFrom
+	 * @param rowTo
+	 * @param columnFrom
+	 * @param columnTo
+	 * @param m
+	 * @return rowTo - rowFrom 行、columnTo - columnFrom 列の結果配列
+	 */
+	static long[][] convolution(long[][] a, long[][] b, int rowFrom, int rowTo, int columnFrom, int columnTo, int m) {
+		int[] aShape = shape(a), bShape = shape(b);
+		int[] fromIndex = { rowFrom, columnFrom }, toIndex = { rowTo, columnTo };
+		long[] c = convolution(flatten(a, aShape), aShape, flatten(b, bShape), bShape, fromIndex, toIndex, m, null);
+		return unflatten(c, new int[] { rowTo - rowFrom, columnTo - columnFrom });
+	}
+
+	/**
+	 * 2 次元の畳み込みを mod m で計算します。長い配列の変換は並列に計算します。
+	 *
+	 * @param a 各行の長さが等しい配列
+	 * @param b 各行の長さが等しい配列
+	 * @param m
+	 * @return a.length + b.length - 1 行、a[0].length + b[0].length - 1 列の結果配列
+	 */
+	static long[][] convolutionParallel(long[][] a, long[][] b, int m) {
+		int[] aShape = shape(a), bShape = shape(b);
+		int[] shape = outputShape(aShape, bShape);
+		return unflatten(convolution(flatten(a, aShape), aShape, flatten(b, bShape), bShape, new int[2], shape, m,
+				ForkJoinPool.commonPool()), shape);
+	}
+
+	/**
+	 * k 次元の畳み込みを mod m で計算します。
+	 *
+	 * @param a      行優先の配列
+	 * @param aShape a の各次元の長さ
+	 * @param b      行優先の配列
+	 * @param bShape b の各次元の長さ、aShape と同じ次元数
+	 * @param m
+	 * @return outputShape(aShape, bShape) の形の行優先の結果配列
+	 */
+	static long[] convolution(long[] a, int[] aShape, long[] b, int[] bShape, int m) {
+		checkShape(a.length, aShape, b.length, bShape);
+		return convolution(a, aShape, b, bShape, new int[aShape.length], outputShape(aShape, bShape), m, null);
+	}
+
+	/**
+	 * k 次元の畳み込みを mod m で計算します。長い配列の変換は並列に計算します。
+	 *
+	 * @param a      行優先の配列
+	 * @param aShape a の各次元の長さ
+	 * @param b      行優先の配列
+	 * @param bShape b の各次元の長さ、aShape と同じ次元数
+	 * @param m
+	 * @return outputShape(aShape, bShape) の形の行優先の結果配列
+	 */
+	static long[] convolutionParallel(long[] a, int[] aShape, long[] b, int[] bShape, int m) {
+		checkShape(a.length, aShape, b.length, bShape);
+		return convolution(a, aShape, b, bShape, new int[aShape.length], outputShape(aShape, bShape), m,
+				ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * k 次元の畳み込みの結果のうち、各次元 d で [fromIndex[d], toIndex[d]) の範囲のみを mod m で計算します。<br/>
+	 * 結果の範囲外となる位置は 0 となります。
+	 *
+	 * @param a         行優先の配列
+	 * @param aShape    a の各次元の長さ
+	 * @param b         行優先の配列
+	 * @param bShape    b の各次元の長さ、aShape と同じ次元数
+	 * @param fromIndex
+	 * @param toIndex
+	 * @param m
+	 * @return 各次元の長さが toIndex[d] - fromIndex[d] の行優先の結果配列
+	 */
+	static long[] convolution(long[] a, int[] aShape, long[] b, int[] bShape, int[] fromIndex, int[] toIndex, int m) {
+		return convolution(a, aShape, b, bShape, fromIndex, toIndex, m, null);
+	}
+
+	/**
+	 * k 次元の畳み込みの結果のうち、各次元 d で [fromIndex[d], toIndex[d]) の範囲のみを mod m で計算します。長い配列の変換は並列に計算します。
+	 *
+	 * @param a         行優先の配列
+	 * @param aShape    a の各次元の長さ
+	 * @param b         行優先の配列
+	 * @param bShape    b の各次元の長さ、aShape と同じ次元数
+	 * @param fromIndex
+	 * @param toIndex
+	 * @param m
+	 * @return 各次元の長さが toIndex[d] - fromIndex[d] の行優先の結果配列
+	 */
+	static long[] convolutionParallel(long[] a, int[] aShape, long[] b, int[] bShape, int[] fromIndex, int[] toIndex,
+			int m) {
+		return convolution(a, aShape, b, bShape, fromIndex, toIndex, m, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * aShape と bShape の畳み込みの結果の各次元の長さを返す
+	 *
+	 * @param aShape
+	 * @param bShape
+	 * @return 各次元の長さ、どちらかが 0 の次元は 0
+	 */
+	static int[] outputShape(int[] aShape, int[] bShape) {
+		int[] shape = new int[aShape.length];
+		for (int d = 0; d < shape.length; d++) {
+			shape[d] = ((0 == aShape[d]) || (0 == bShape[d])) ? 0 : (aShape[d] + bShape[d]) - 1;
+		}
+		return shape;
+	}
+
+	private static long[] convolution(long[] a, int[] aShape, long[] b, int[] bShape, int[] fromIndex, int[] toIndex,
+			int m, ForkJoinPool pool) {
+		checkShape(a.length, aShape, b.length, bShape);
+		int k = aShape.length;
+		if (!((k == fromIndex.length) && (k == toIndex.length))) {
+			throw new IllegalArgumentException("fromIndex.length is " + fromIndex.length + ", toIndex.length is "
+					+ toIndex.length);
+		}
+		int[] windowShape = new int[k];
+		for (int d = 0; d < k; d++) {
+			if (!((0 <= fromIndex[d]) && (fromIndex[d] <= toIndex[d]))) {
+				throw new IllegalArgumentException("fromIndex[" + d + "] is " + fromIndex[d] + ", toIndex[" + d
+						+ "] is " + toIndex[d]);
+			}
+			windowShape[d] = toIndex[d] - fromIndex[d];
+		}
+		long[] ans = new long[size(windowShape)];
+		// 各次元の結果の範囲 [lo, hi) と変換の長さ z
+		int[] full = outputShape(aShape, bShape), lo = new int[k], hi = new int[k], z = new int[k];
+		for (int d = 0; d < k; d++) {
+			lo[d] = fromIndex[d];
+			hi[d] = Math.min(toIndex[d], full[d]);
+			if (hi[d] <= lo[d]) {
+				return ans;
+			}
+		}
+		// 座標が hi 以上の入力は窓に寄与しないため除く
+		int[] aLimit = new int[k], bLimit = new int[k];
+		for (int d = 0; d < k; d++) {
+			aLimit[d] = Math.min(aShape[d], hi[d]);
+			bLimit[d] = Math.min(bShape[d], hi[d]);
+		}
+		NumberTheoreticTransform ntt = NumberTheoreticTransform.of(m);
+		long inv = 1L;
+		for (int d = 0; d < k; d++) {
+			int log = Convolution.ceilPow2(Math.max(hi[d], (aLimit[d] + bLimit[d]) - 1 - lo[d]));
+			if (!(log <= ntt.rank2)) {
+				throw new IllegalArgumentException("shape[" + d + "] is too large for m = " + m);
+			}
+			z[d] = 1 << log;
+			inv = ntt.safeMod(inv * ntt.invPow2[log]);
+		}
+		if (!(size(z) <= (1 << 30))) {
+			throw new IllegalArgumentException("transform size is too large");
+		}
+		if (size(z) < PARALLEL_THRESHOLD) {
+			pool = null;
+		}
+		// 各次元を 2 のべき乗に広げるより、結果の形で行を詰めた 1 次元の畳み込みの方が短い場合はそちらで計算する
+		int[] flatShape = new int[k];
+		for (int d = 0; d < k; d++) {
+			flatShape[d] = (aLimit[d] + bLimit[d]) - 1;
+		}
+		long flatLength = size(flatShape);
+		if ((flatLength <= (1L << ntt.rank2)) && ((1L << Convolution.ceilPow2((int) flatLength)) < size(z))) {
+			long[] fa = flatten(ntt, a, aShape, aLimit, flatShape), fb = flatten(ntt, b, bShape, bLimit, flatShape);
+			long[] c = ntt.convolution(fa, 0, fa.length, fb, 0, fb.length, pool);
+			extract(ans, windowShape, lo, hi, flatShape, i -> (i < c.length) ? c[i] : 0L);
+			return ans;
+		}
+		int[] na = pad(ntt, a, aShape, aLimit, z), nb = pad(ntt, b, bShape, bLimit, z);
+		// 最後の次元から変換し、まだ変換していない次元の座標が入力の範囲外の列は 0 のため省略する
+		for (int d = k - 1; d >= 0; d--) {
+			transform(ntt, na, z, d, zeroLimits(aLimit), false, pool);
+			transform(ntt, nb, z, d, zeroLimits(bLimit), false, pool);
+		}
+		if (ntt.montgomery) {
+			// 積で掛かる 2^{-32} と、最後の inv の reduce で掛かる 2^{-32} を打ち消す
+			inv = ntt.safeMod(ntt.safeMod(inv * ntt.montgomeryOne) * ntt.montgomeryOne);
+			for (int i = 0; i < na.length; i++) {
+				na[i] = (int) ntt.reduce((long) na[i] * nb[i]);
+			}
+		} else {
+			for (int i = 0; i < na.length; i++) {
+				na[i] = (int) ntt.safeMod((long) na[i] * nb[i]);
+			}
+		}
+		// 最初の次元から逆変換し、逆変換済みの次元の座標が窓の外の列は使用しないため省略する
+		int[][] window = new int[k][];
+		for (int d = 0; d < k; d++) {
+			window[d] = new int[] { lo[d], hi[d] };
+		}
+		for (int d = 0; d < k; d++) {
+			transform(ntt, na, z, d, window, true, pool);
+		}
+		long f = inv;
+		if (ntt.montgomery) {
+			extract(ans, windowShape, lo, hi, z, i -> {
+				long x = ntt.reduce(na[i] * f);
+				return (x >= m) ? x - m : x;
+			});
+		} else {
+			extract(ans, windowShape, lo, hi, z, i -> ntt.safeMod(na[i] * f));
+		}
+		return ans;
+	}
+
+	/**
+	 * 次元 d の各列を変換する。d より前の次元の座標 c_j が limits[j] = {下限, 上限} の範囲外の列は変換しない。
+	 *
+	 * @param ntt
+	 * @param a
+	 * @param z      各次元の長さ
+	 * @param d
+	 * @param limits d より前の次元について、変換する列の座標の範囲
+	 * @param inv    逆変換かどうか
+	 * @param pool   null の場合は逐次に計算する
+	 */
+	private static void transform(NumberTheoreticTransform ntt, int[] a, int[] z, int d, int[][] limits, boolean inv,
+			ForkJoinPool pool) {
+		int stride = 1;
+		for (int j = d + 1; j < z.length; j++) {
+			stride *= z[j];
+		}
+		int outers = a.length / (z[d] * stride);
+		// 変換する outer (d より前の次元の座標を並べた番号) を列挙する
+		int[] selected = new int[outers];
+		int count = 0;
+		for (int outer = 0; outer < outers; outer++) {
+			boolean inside = true;
+			for (int j = d - 1, x = outer; j >= 0; j--) {
+				int c = x % z[j];
+				x /= z[j];
+				inside &= (limits[j][0] <= c) && (c < limits[j][1]);
+			}
+			if (inside) {
+				selected[count++] = outer;
+			}
+		}
+		LineTask task = new LineTask(ntt, a, z[d], stride, Arrays.copyOf(selected, count), inv, 0,
+				count * ((stride + BLOCK - 1) / BLOCK));
+		if (null == pool) {
+			task.compute();
+		} else if (ForkJoinTask.inForkJoinPool()) {
+			task.invoke();
+		} else {
+			pool.invoke(task);
+		}
+	}
+
+	/**
+	 * 列のまとまりを変換するタスク。u 番目のまとまりは selected[u / blocksPerOuter] 番目の outer の、
+	 * inner が [(u % blocksPerOuter) * BLOCK, +BLOCK) の列となる。
+	 */
+	private static class LineTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		final NumberTheoreticTransform ntt;
+		final int[] a;
+		final int length, stride;
+		final int[] outers;
+		final boolean inv;
+		final int from, to;
+
+		LineTask(NumberTheoreticTransform ntt, int[] a, int length, int stride, int[] outers, boolean inv, int from,
+				int to) {
+			this.ntt = ntt;
+			this.a = a;
+			this.length = length;
+			this.stride = stride;
+			this.outers = outers;
+			this.inv = inv;
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * Montgomery 乗算を使用して変換する。各要素は [0, 2 * mod) の範囲となる。
+		 */
+		private void computeMontgomery(int width) {
+			int blocksPerOuter = (stride + BLOCK - 1) / BLOCK;
+			int[][] lines = new int[width][length];
+			for (int u = from; u < to; u++) {
+				int base = outers[u / blocksPerOuter] * length * stride + (u % blocksPerOuter) * BLOCK;
+				for (int i = 0; i < length; i++) {
+					int p = base + i * stride;
+					for (int j = 0; j < width; j++) {
+						lines[j][i] = a[p + j];
+					}
+				}
+				for (int[] line : lines) {
+					if (inv) {
+						ntt.butterflyInvMontgomery(line);
+					} else {
+						ntt.butterflyMontgomery(line);
+					}
+				}
+				for (int i = 0; i < length; i++) {
+					int p = base + i * stride;
+					for (int j = 0; j < width; j++) {
+						a[p + j] = lines[j][i];
+					}
+				}
+			}
+		}
+
+		/**
+		 * Montgomery 乗算を使用せずに変換する。各要素は [0, mod) の範囲となる。
+		 */
+		private void computeSafeMod(int width) {
+			int blocksPerOuter = (stride + BLOCK - 1) / BLOCK;
+			long[][] lines = new long[width][length];
+			for (int u = from; u < to; u++) {
+				int base = outers[u / blocksPerOuter] * length * stride + (u % blocksPerOuter) * BLOCK;
+				for (int i = 0; i < length; i++) {
+					int p = base + i * stride;
+					for (int j = 0; j < width; j++) {
+						lines[j][i] = a[p + j];
+					}
+				}
+				for (long[] line : lines) {
+					if (inv) {
+						ntt.butterflyInv(line);
+					} else {
+						ntt.butterfly(line);
+					}
+				}
+				for (int i = 0; i < length; i++) {
+					int p = base + i * stride;
+					for (int j = 0; j < width; j++) {
+						a[p + j] = (int) lines[j][i];
+					}
+				}
+			}
+		}
+
+		@Override
+		protected void compute() {
+			int width = Math.min(BLOCK, stride);
+			if (((long) (to - from)) * width * length <= PARALLEL_GRAIN || (to - from <= 1)) {
+				if (ntt.montgomery) {
+					computeMontgomery(width);
+				} else {
+					computeSafeMod(width);
+				}
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new LineTask(ntt, a, length, stride, outers, inv, from, mid),
+						new LineTask(ntt, a, length, stride, outers, inv, mid, to));
+			}
+		}
+	}
+
+	/**
+	 * 窓の各位置 coord (lo <= coord < hi) について、各次元の長さ shape の配列での位置の値を value で求め、ans に格納する
+	 *
+	 * @param ans
+	 * @param windowShape ans の各次元の長さ
+	 * @param lo
+	 * @param hi
+	 * @param shape
+	 * @param value
+	 */
+	private static void extract(long[] ans, int[] windowShape, int[] lo, int[] hi, int[] shape,
+			IntToLongFunction value) {
+		int k = shape.length;
+		int[] coord = lo.clone();
+		while (true) {
+			int src = 0, dst = 0;
+			for (int d = 0; d < k; d++) {
+				src = src * shape[d] + coord[d];
+				dst = dst * windowShape[d] + (coord[d] - lo[d]);
+			}
+			ans[dst] = value.applyAsLong(src);
+			int d = k - 1;
+			while ((0 <= d) && (++coord[d] == hi[d])) {
+				coord[d] = lo[d];
+				d--;
+			}
+			if (d < 0) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * a のうち各次元の座標が limit 未満の要素を、各次元の長さ shape の配列の先頭に [0, mod) に簡約して格納する。<br/>
+	 * 配列の長さは最後の要素の位置 + 1 とする。
+	 */
+	private static long[] flatten(NumberTheoreticTransform ntt, long[] a, int[] aShape, int[] limit, int[] shape) {
+		int k = shape.length, last = 0;
+		for (int d = 0; d < k; d++) {
+			last = last * shape[d] + (limit[d] - 1);
+		}
+		long[] flat = new long[last + 1];
+		int[] coord = new int[k];
+		for (int i = 0; i < a.length; i++) {
+			int p = 0;
+			boolean inside = true;
+			for (int d = 0; d < k; d++) {
+				p = p * shape[d] + coord[d];
+				inside &= coord[d] < limit[d];
+			}
+			if (inside) {
+				flat[p] = ntt.safeMod(a[i]);
+			}
+			for (int d = k - 1; (0 <= d) && (++coord[d] == aShape[d]); d--) {
+				coord[d] = 0;
+			}
+		}
+		return flat;
+	}
+
+	/**
+	 * 入力の各次元の長さから、0 でない列の座標の範囲を返す
+	 */
+	private static int[][] zeroLimits(int[] limit) {
+		int[][] limits = new int[limit.length][];
+		for (int d = 0; d < limit.length; d++) {
+			limits[d] = new int[] { 0, limit[d] };
+		}
+		return limits;
+	}
+
+	/**
+	 * a のうち各次元の座標が limit 未満の要素を、各次元の長さ z の配列に [0, mod) に簡約して格納する
+	 */
+	private static int[] pad(NumberTheoreticTransform ntt, long[] a, int[] shape, int[] limit, int[] z) {
+		int[] na = new int[size(z)];
+		int k = shape.length;
+		int[] coord = new int[k];
+		for (int i = 0; i < a.length; i++) {
+			int p = 0;
+			boolean inside = true;
+			for (int d = 0; d < k; d++) {
+				p = p * z[d] + coord[d];
+				inside &= coord[d] < limit[d];
+			}
+			if (inside) {
+				na[p] = (int) ntt.safeMod(a[i]);
+			}
+			for (int d = k - 1; (0 <= d) && (++coord[d] == shape[d]); d--) {
+				coord[d] = 0;
+			}
+		}
+		return na;
+	}
+
+	private static int size(int[] shape) {
+		long size = 1L;
+		for (int x : shape) {
+			size *= x;
+			if (!(size <= Integer.MAX_VALUE)) {
+				throw new IllegalArgumentException("size is too large");
+			}
+		}
+		return (int) size;
+	}
+
+	private static void checkShape(int aLength, int[] aShape, int bLength, int[] bShape) {
+		if (!((1 <= aShape.length) && (aShape.length == bShape.length))) {
+			throw new IllegalArgumentException("aShape.length is " + aShape.length + ", bShape.length is "
+					+ bShape.length);
+		}
+		for (int d = 0; d < aShape.length; d++) {
+			if (!((0 <= aShape[d]) && (0 <= bShape[d]))) {
+				throw new IllegalArgumentException("aShape[" + d + "] is " + aShape[d] + ", bShape[" + d + "] is "
+						+ bShape[d]);
+			}
+		}
+		if (!((aLength == size(aShape)) && (bLength == size(bShape)))) {
+			throw new IllegalArgumentException("a.length is " + aLength + ", b.length is " + bLength);
+		}
+	}
+
+	private static int[] shape(long[][] a) {
+		int columns = (0 == a.length) ? 0 : a[0].length;
+		for (long[] row : a) {
+			if (!(row.length == columns)) {
+				throw new IllegalArgumentException("row.length is " + row.length + ", columns is " + columns);
+			}
+		}
+		return new int[] { a.length, columns };
+	}
+
+	private static long[] flatten(long[][] a, int[] shape) {
+		long[] flat = new long[shape[0] * shape[1]];
+		for (int i = 0; i < shape[0]; i++) {
+			System.arraycopy(a[i], 0, flat, i * shape[1], shape[1]);
+		}
+		return flat;
+	}
+
+	private static long[][] unflatten(long[] flat, int[] shape) {
+		long[][] a = new long[shape[0]][shape[1]];
+		for (int i = 0; i < shape[0]; i++) {
+			System.arraycopy(flat, i * shape[1], a[i], 0, shape[1]);
+		}
+		return a;
+	}
+}
@@ -0,0 +1,1289 @@
+package convolution;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * https://github.com/atcoder/ac-library/blob/master/atcoder/convolution.hpp をもとに作成
+ *
+ * mod ごとの NTT を計算するクラス。<br/>
+ * 全てのフィールドは生成後に変更されないため、複数のスレッドから同時に使用できる。
+ */
+public class NumberTheoreticTransform {
+	/** キャッシュする mod の最大数 */
+	private static final int CACHE_SIZE = 16;
+	/** mod ごとのインスタンスのキャッシュ */
+	private static final ConcurrentMap<Integer, NumberTheoreticTransform> CACHE = new ConcurrentHashMap<>();
+	/** 並列モードでも、この長さ未満の変換は逐次に計算する */
+	static final int PARALLEL_THRESHOLD = 1 << 16;
+	/** 並列に計算する際の 1 タスクあたりの要素数 */
+	private static final int PARALLEL_GRAIN = 1 << 13;
+	/** SIMD の実装、jdk.incubator.vector を使用できない場合は null */
+	static final VectorButterfly VECTOR = loadVector();
+	/** butterfly の 1 ブロックの要素数がこの値以上の場合に VECTOR を使用する */
+	private static final int VECTOR_THRESHOLD = 16;
+	/**
+	 * 逐次に計算する畳み込みの変換の長さがこの値以上の場合に SixStepTransform を使用する。<br/>
+	 * キャッシュの大きさに依存するため、-Dconvolution.sixStepThreshold=8388608 のように指定した場合のみ使用する。
+	 */
+	static final int SIX_STEP_THRESHOLD = Integer.getInteger("convolution.sixStepThreshold", Integer.MAX_VALUE);
+
+	/** mod */
+	final int mod;
+	/** 原始根 */
+	final int g;
+	/** mod - 1 を割り切る 2 の最大の指数 */
+	final int rank2;
+	final long[] root;
+	final long[] iroot;
+	final long[] rate2;
+	final long[] irate2;
+	final long[] rate3;
+	final long[] irate3;
+	/** 2^i の逆元 */
+	final long[] invPow2;
+
+	/** Montgomery 乗算を使用するかどうか。mod が 2^30 未満の奇数の場合に使用する */
+	final boolean montgomery;
+	/** -mod^{-1} mod 2^32 */
+	final int montgomeryNegInv;
+	/** 2^32 mod mod、Montgomery 表現での 1 */
+	final long montgomeryOne;
+	/** Montgomery 表現の回転因子 */
+	final long montgomeryImag;
+	final long montgomeryIimag;
+	final long[] montgomeryRate2;
+	final long[] montgomeryIrate2;
+	final long[] montgomeryRate3;
+	final long[] montgomeryIrate3;
+	/** convolutionMontgomery の結果を補正する係数、2^i の逆元に (2^32)^2 を掛けた値 */
+	final long[] montgomeryInvPow2;
+
+	/**
+	 * コンストラクター
+	 *
+	 * @param mod
+	 */
+	NumberTheoreticTransform(int mod) {
+		if (!(1 <= mod)) {
+			throw new IllegalArgumentException("mod is " + mod);
+		}
+		this.mod = mod;
+		g = Convolution.primitiveRoot(mod);
+		rank2 = Convolution.bsfConstexpr(mod - 1);
+		root = new long[rank2 + 1];
+		iroot = new long[rank2 + 1];
+		rate2 = new long[Math.max(0, rank2 - 2 + 1)];
+		irate2 = new long[Math.max(0, rank2 - 2 + 1)];
+		rate3 = new long[Math.max(0, rank2 - 3 + 1)];
+		irate3 = new long[Math.max(0, rank2 - 3 + 1)];
+
+		root[rank2] = Convolution.powMod(g, (mod - 1) >> rank2, mod);
+		iroot[rank2] = Convolution.invMod(root[rank2], mod);
+		for (int i = rank2 - 1; i >= 0; i--) {
+			root[i] = safeMod(root[i + 1] * root[i + 1]);
+			iroot[i] = safeMod(iroot[i + 1] * iroot[i + 1]);
+		}
+		{
+			long prod = 1L, iprod = 1L;
+			for (int i = 0; i <= rank2 - 2; i++) {
+				rate2[i] = safeMod(root[i + 2] * prod);
+				irate2[i] = safeMod(iroot[i + 2] * iprod);
+				prod = safeMod(prod * iroot[i + 2]);
+				iprod = safeMod(iprod * root[i + 2]);
+			}
+		}
+		{
+			long prod = 1L, iprod = 1L;
+			for (int i = 0; i <= rank2 - 3; i++) {
+				rate3[i] = safeMod(root[i + 3] * prod);
+				irate3[i] = safeMod(iroot[i + 3] * iprod);
+				prod = safeMod(prod * iroot[i + 3]);
+				iprod = safeMod(iprod * root[i + 3]);
+			}
+		}
+
+		invPow2 = new long[rank2 + 1];
+		invPow2[0] = 1L;
+		for (int i = 1; i <= rank2; i++) {
+			invPow2[i] = safeMod(invPow2[i - 1] * ((mod + 1) / 2));
+		}
+
+		montgomery = (1 == (mod & 1)) && (mod < (1 << 30));
+		if (montgomery) {
+			int inv = mod;
+			// Newton 法で mod^{-1} mod 2^32 を求める
+			for (int i = 0; i < 5; i++) {
+				inv *= 2 - mod * inv;
+			}
+			montgomeryNegInv = -inv;
+			montgomeryOne = (1L << 32) % mod;
+			montgomeryImag = (rank2 >= 2) ? toMontgomery(root[2]) : 0L;
+			montgomeryIimag = (rank2 >= 2) ? toMontgomery(iroot[2]) : 0L;
+			montgomeryRate2 = toMontgomery(rate2);
+			montgomeryIrate2 = toMontgomery(irate2);
+			montgomeryRate3 = toMontgomery(rate3);
+			montgomeryIrate3 = toMontgomery(irate3);
+			// 各点の積で 2^32 で割られているため、1/z に (2^32)^2 を掛けた値で補正する
+			montgomeryInvPow2 = new long[rank2 + 1];
+			for (int i = 0; i <= rank2; i++) {
+				montgomeryInvPow2[i] = safeMod(toMontgomery(invPow2[i]) * montgomeryOne);
+			}
+		} else {
+			montgomeryNegInv = 0;
+			montgomeryOne = 0L;
+			montgomeryImag = 0L;
+			montgomeryIimag = 0L;
+			montgomeryRate2 = null;
+			montgomeryIrate2 = null;
+			montgomeryRate3 = null;
+			montgomeryIrate3 = null;
+			montgomeryInvPow2 = null;
+		}
+	}
+
+	/**
+	 * mod m のインスタンスを返す。生成済みのインスタンスは最大 CACHE_SIZE 個までキャッシュされる。
+	 *
+	 * @param m
+	 * @return mod m のインスタンス
+	 */
+	static NumberTheoreticTransform of(int m) {
+		NumberTheoreticTransform ntt = CACHE.get(m);
+		if (null == ntt) {
+			ntt = new NumberTheoreticTransform(m);
+			if (CACHE.size() >= CACHE_SIZE) {
+				CACHE.clear();
+			}
+			NumberTheoreticTransform prev = CACHE.putIfAbsent(m, ntt);
+			if (null != prev) {
+				ntt = prev;
+			}
+		}
+		return ntt;
+	}
+
+	/**
+	 * a を周波数領域に変換する。a の長さは 2 のべき乗であること。結果は [0, mod) の範囲となる。
+	 *
+	 * @param a
+	 */
+	void butterfly(long[] a) {
+		if (montgomery) {
+			for (int i = 0; i < a.length; i++) {
+				a[i] = safeMod(a[i]);
+			}
+			butterflyMontgomery(a);
+			normalize(a);
+		} else {
+			butterflySafeMod(a);
+		}
+	}
+
+	/**
+	 * butterfly の逆変換を行う。結果は a.length 倍されたままで、[0, mod) の範囲となる。
+	 *
+	 * @param a
+	 */
+	void butterflyInv(long[] a) {
+		if (montgomery) {
+			for (int i = 0; i < a.length; i++) {
+				a[i] = safeMod(a[i]);
+			}
+			butterflyInvMontgomery(a);
+			normalize(a);
+		} else {
+			butterflyInvSafeMod(a);
+		}
+	}
+
+	/**
+	 * 全ての乗算と加算で safeMod を行う butterfly
+	 *
+	 * @param a
+	 */
+	void butterflySafeMod(long[] a) {
+		int n = a.length, h = Convolution.ceilPow2(n);
+		// a[i, i+(n>>len), i+2*(n>>len), ..] is transformed
+		int len = 0;
+		while (len < h) {
+			if (h - len == 1) {
+				int p = 1 << (h - len - 1);
+				long rot = 1L;
+				for (int s = 0; s < (1 << len); s++) {
+					int offset = s << (h - len);
+					for (int i = 0; i < p; i++) {
+						long l = a[i + offset];
+						long r = safeMod(a[i + offset + p] * rot);
+						a[i + offset] = safeMod(l + r);
+						a[i + offset + p] = safeMod(l - r);
+					}
+					if ((s + 1) != (1 << len)) {
+						rot = safeMod(rot * rate2[Convolution.bsf(~s & Integer.MAX_VALUE)]);
+					}
+				}
+				len++;
+			} else {
+				// 4-base
+				int p = 1 << (h - len - 2);
+				long rot = 1L, imag = root[2];
+				for (int s = 0; s < (1 << len); s++) {
+					long rot2 = safeMod(rot * rot);
+					long rot3 = safeMod(rot2 * rot);
+					int offset = s << (h - len);
+					for (int i = 0; i < p; i++) {
+						long a0 = a[i + offset];
+						long a1 = safeMod(a[i + offset + p] * rot);
+						long a2 = safeMod(a[i + offset + 2 * p] * rot2);
+						long a3 = safeMod(a[i + offset + 3 * p] * rot3);
+						long a1na3imag = safeMod((a1 - a3) * imag);
+						long na2 = safeMod(mod - a2);
+						a[i + offset] = safeMod(a0 + a2 + a1 + a3);
+						a[i + offset + 1 * p] = safeMod(a0 + a2 - (a1 + a3));
+						a[i + offset + 2 * p] = safeMod(a0 + na2 + a1na3imag);
+						a[i + offset + 3 * p] = safeMod(a0 + na2 - a1na3imag);
+					}
+					if ((s + 1) != (1 << len)) {
+						rot = safeMod(rot * rate3[Convolution.bsf(~s & Integer.MAX_VALUE)]);
+					}
+				}
+				len += 2;
+			}
+		}
+	}
+
+	/**
+	 * 全ての乗算と加算で safeMod を行う butterflyInv
+	 *
+	 * @param a
+	 */
+	void butterflyInvSafeMod(long[] a) {
+		int n = a.length, h = Convolution.ceilPow2(n);
+
+		int len = h; // a[i, i+(n>>len), i+2*(n>>len), ..] is transformed
+		while (len > 0) {
+			if (len == 1) {
+				int p = 1 << (h - len);
+				long irot = 1L;
+				for (int s = 0; s < (1 << (len - 1)); s++) {
+					int offset = s << (h - len + 1);
+					for (int i = 0; i < p; i++) {
+						long l = a[i + offset], r = a[i + offset + p];
+						a[i + offset] = safeMod(l + r);
+						a[i + offset + p] = safeMod((l - r) * irot);
+					}
+					if ((s + 1) != (1 << (len - 1))) {
+						irot = safeMod(irot * irate2[Convolution.bsf(~s & Integer.MAX_VALUE)]);
+					}
+				}
+				len--;
+			} else {
+				// 4-base
+				int p = 1 << (h - len);
+				long irot = 1, iimag = iroot[2];
+				for (int s = 0; s < (1 << (len - 2)); s++) {
+					long irot2 = irot * irot % mod;
+					long irot3 = irot2 * irot % mod;
+					int offset = s << (h - len + 2);
+					for (int i = 0; i < p; i++) {
+						long a0 = a[i + offset];
+						long a1 = a[i + offset + 1 * p];
+						long a2 = a[i + offset + 2 * p];
+						long a3 = a[i + offset + 3 * p];
+
+						long a2na3iimag = safeMod((a2 - a3) * iimag);
+
+						a[i + offset] = safeMod(a0 + a1 + a2 + a3);
+						a[i + offset + 1 * p] = safeMod((a0 - a1 + a2na3iimag) * irot);
+						a[i + offset + 2 * p] = safeMod((a0 + a1 + -a2 - a3) * irot2);
+						a[i + offset + 3 * p] = safeMod((a0 - a1 - a2na3iimag) * irot3);
+					}
+					if ((s + 1) != (1 << (len - 2))) {
+						irot = safeMod(irot * irate3[Convolution.bsf(~s & Integer.MAX_VALUE)]);
+					}
+				}
+				len -= 2;
+			}
+		}
+	}
+
+	/**
+	 * Montgomery 乗算を使用する butterfly。montgomery が true の場合のみ使用できる。<br/>
+	 * 入力、出力ともに各要素は [0, 2 * mod) の範囲で、途中の値も [0, 2 * mod) の範囲に遅延して簡約する。
+	 *
+	 * @param a
+	 */
+	void butterflyMontgomery(long[] a) {
+		int n = a.length, h = Convolution.ceilPow2(n);
+		long mod2 = 2L * mod, mod4 = 4L * mod;
+		// a[i, i+(n>>len), i+2*(n>>len), ..] is transformed
+		int len = 0;
+		while (len < h) {
+			if (h - len == 1) {
+				int p = 1 << (h - len - 1);
+				long rot = montgomeryOne;
+				for (int s = 0; s < (1 << len); s++) {
+					int offset = s << (h - len);
+					for (int i = 0; i < p; i++) {
+						long l = a[i + offset];
+						long r = reduce(a[i + offset + p] * rot);
+						a[i + offset] = lazyMod(l + r);
+						a[i + offset + p] = lazyMod(l - r + mod2);
+					}
+					if ((s + 1) != (1 << len)) {
+						rot = mulMontgomery(rot, montgomeryRate2[Convolution.bsf(~s & Integer.MAX_VALUE)]);
+					}
+				}
+				len++;
+			} else {
+				// 4-base
+				int p = 1 << (h - len - 2);
+				long rot = montgomeryOne, imag = montgomeryImag;
+				for (int s = 0; s < (1 << len); s++) {
+					long rot2 = mulMontgomery(rot, rot);
+					long rot3 = mulMontgomery(rot2, rot);
+					int offset = s << (h - len);
+					for (int i = 0; i < p; i++) {
+						long a0 = a[i + offset];
+						long a1 = reduce(a[i + offset + p] * rot);
+						long a2 = reduce(a[i + offset + 2 * p] * rot2);
+						long a3 = reduce(a[i + offset + 3 * p] * rot3);
+						long a1na3imag = reduce((a1 - a3 + mod2) * imag);
+						long na2 = mod2 - a2;
+						a[i + offset] = lazyMod(a0 + a2 + a1 + a3);
+						a[i + offset + 1 * p] = lazyMod(a0 + a2 + mod4 - (a1 + a3));
+						a[i + offset + 2 * p] = lazyMod(a0 + na2 + a1na3imag);
+						a[i + offset + 3 * p] = lazyMod(a0 + na2 + mod2 - a1na3imag);
+					}
+					if ((s + 1) != (1 << len)) {
+						rot = mulMontgomery(rot, montgomeryRate3[Convolution.bsf(~s & Integer.MAX_VALUE)]);
+					}
+				}
+				len += 2;
+			}
+		}
+	}
+
+	/**
+	 * Montgomery 乗算を使用する butterflyInv。montgomery が true の場合のみ使用できる。<br/>
+	 * 入力、出力ともに各要素は [0, 2 * mod) の範囲となる。
+	 *
+	 * @param a
+	 */
+	void butterflyInvMontgomery(long[] a) {
+		int n = a.length, h = Convolution.ceilPow2(n);
+		long mod2 = 2L * mod, mod4 = 4L * mod;
+
+		int len = h; // a[i, i+(n>>len), i+2*(n>>len), ..] is transformed
+		while (len > 0) {
+			if (len == 1) {
+				int p = 1 << (h - len);
+				long irot = montgomeryOne;
+				for (int s = 0; s < (1 << (len - 1)); s++) {
+					int offset = s << (h - len + 1);
+					for (int i = 0; i < p; i++) {
+						long l = a[i + offset], r = a[i + offset + p];
+						a[i + offset] = lazyMod(l + r);
+						a[i + offset + p] = reduce((l - r + mod2) * irot);
+					}
+					if ((s + 1) != (1 << (len - 1))) {
+						irot = mulMontgomery(irot, montgomeryIrate2[Convolution.bsf(~s & Integer.MAX_VALUE)]);
+					}
+				}
+				len--;
+			} else {
+				// 4-base
+				int p = 1 << (h - len);
+				long irot = montgomeryOne, iimag = montgomeryIimag;
+				for (int s = 0; s < (1 << (len - 2)); s++) {
+					long irot2 = mulMontgomery(irot, irot);
+					long irot3 = mulMontgomery(irot2, irot);
+					int offset = s << (h - len + 2);
+					for (int i = 0; i < p; i++) {
+						long a0 = a[i + offset];
+						long a1 = a[i + offset + 1 * p];
+						long a2 = a[i + offset + 2 * p];
+						long a3 = a[i + offset + 3 * p];
+
+						long a2na3iimag = reduce((a2 - a3 + mod2) * iimag);
+
+						a[i + offset] = lazyMod(a0 + a1 + a2 + a3);
+						a[i + offset + 1 * p] = reduce(lazyMod(a0 - a1 + mod2 + a2na3iimag) * irot);
+						a[i + offset + 2 * p] = reduce(lazyMod(a0 + a1 + mod4 - a2 - a3) * irot2);
+						a[i + offset + 3 * p] = reduce(lazyMod(a0 - a1 + mod4 - a2na3iimag) * irot3);
+					}
+					if ((s + 1) != (1 << (len - 2))) {
+						irot = mulMontgomery(irot, montgomeryIrate3[Convolution.bsf(~s & Integer.MAX_VALUE)]);
+					}
+				}
+				len -= 2;
+			}
+		}
+	}
+
+	/**
+	 * Montgomery 乗算を使用する int[] 版の butterfly。montgomery が true の場合のみ使用できる。<br/>
+	 * 入力、出力ともに各要素は [0, 2 * mod) の範囲となる。
+	 *
+	 * @param a
+	 */
+	void butterflyMontgomery(int[] a) {
+		butterflyMontgomery(a, null);
+	}
+
+	/**
+	 * Montgomery 乗算を使用する int[] 版の butterfly。montgomery が true の場合のみ使用できる。<br/>
+	 * pool が null でなく a.length が PARALLEL_THRESHOLD 以上の場合、各段の計算を pool で並列に実行する。
+	 *
+	 * @param a
+	 * @param pool
+	 */
+	void butterflyMontgomery(int[] a, ForkJoinPool pool) {
+		int h = Convolution.ceilPow2(a.length);
+		if (a.length < PARALLEL_THRESHOLD) {
+			pool = null;
+		}
+		// a[i, i+(n>>len), i+2*(n>>len), ..] is transformed
+		int len = 0;
+		while (len < h) {
+			if (h - len == 1) {
+				butterflyStage(a, false, false, 1 << len, h - len, 1 << (h - len - 1), montgomeryRate2, pool);
+				len++;
+			} else {
+				// 4-base
+				butterflyStage(a, false, true, 1 << len, h - len, 1 << (h - len - 2), montgomeryRate3, pool);
+				len += 2;
+			}
+		}
+	}
+
+	/**
+	 * Montgomery 乗算を使用する int[] 版の butterflyInv。montgomery が true の場合のみ使用できる。<br/>
+	 * 入力、出力ともに各要素は [0, 2 * mod) の範囲となる。
+	 *
+	 * @param a
+	 */
+	void butterflyInvMontgomery(int[] a) {
+		butterflyInvMontgomery(a, null);
+	}
+
+	/**
+	 * Montgomery 乗算を使用する int[] 版の butterflyInv。montgomery が true の場合のみ使用できる。<br/>
+	 * pool が null でなく a.length が PARALLEL_THRESHOLD 以上の場合、各段の計算を pool で並列に実行する。
+	 *
+	 * @param a
+	 * @param pool
+	 */
+	void butterflyInvMontgomery(int[] a, ForkJoinPool pool) {
+		int h = Convolution.ceilPow2(a.length);
+		if (a.length < PARALLEL_THRESHOLD) {
+			pool = null;
+		}
+		int len = h; // a[i, i+(n>>len), i+2*(n>>len), ..] is transformed
+		while (len > 0) {
+			if (len == 1) {
+				butterflyStage(a, true, false, 1 << (len - 1), h - len + 1, 1 << (h - len), montgomeryIrate2, pool);
+				len--;
+			} else {
+				// 4-base
+				butterflyStage(a, true, true, 1 << (len - 2), h - len + 2, 1 << (h - len), montgomeryIrate3, pool);
+				len -= 2;
+			}
+		}
+	}
+
+	/**
+	 * butterfly の 1 段分を計算する
+	 *
+	 * @param a
+	 * @param inv    逆変換かどうか
+	 * @param radix4 4-base かどうか
+	 * @param blocks ブロック数
+	 * @param shift  ブロックの大きさの指数
+	 * @param p      ブロック内の各要素の間隔
+	 * @param rates  回転因子の更新に使用するテーブル
+	 * @param pool   null の場合は逐次に計算する
+	 */
+	private void butterflyStage(int[] a, boolean inv, boolean radix4, int blocks, int shift, int p, long[] rates,
+			ForkJoinPool pool) {
+		if ((null == pool) || (blocks * p <= PARALLEL_GRAIN)) {
+			long rot = montgomeryOne;
+			for (int s = 0; s < blocks; s++) {
+				butterflyBlock(a, inv, radix4, s << shift, p, 0, p, rot);
+				if ((s + 1) != blocks) {
+					rot = mulMontgomery(rot, rates[Convolution.bsf(~s & Integer.MAX_VALUE)]);
+				}
+			}
+		} else {
+			long[] rots = new long[blocks];
+			rots[0] = montgomeryOne;
+			for (int s = 0; s + 1 < blocks; s++) {
+				rots[s + 1] = mulMontgomery(rots[s], rates[Convolution.bsf(~s & Integer.MAX_VALUE)]);
+			}
+			invoke(pool, new StageTask(a, inv, radix4, shift, p, rots, 0, blocks * p));
+		}
+	}
+
+	/**
+	 * IntVectorButterfly を読み込む。-Dconvolution.vector=false が指定された場合、またはコンパイルされていないか
+	 * jdk.incubator.vector を使用できない場合は null を返す。
+	 *
+	 * @return SIMD の実装
+	 */
+	private static VectorButterfly loadVector() {
+		if (!Boolean.parseBoolean(System.getProperty("convolution.vector", "true"))) {
+			return null;
+		}
+		try {
+			return (VectorButterfly) Class.forName("convolution.IntVectorButterfly").getDeclaredConstructor()
+					.newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+
+	/**
+	 * task を実行する。既に ForkJoinPool のスレッドで実行中の場合はそのまま実行する。
+	 *
+	 * @param pool
+	 * @param task
+	 */
+	private static void invoke(ForkJoinPool pool, ForkJoinTask<?> task) {
+		if (ForkJoinTask.inForkJoinPool()) {
+			task.invoke();
+		} else {
+			pool.invoke(task);
+		}
+	}
+
+	/**
+	 * butterfly の 1 ブロック分の i in [iFrom, iTo) を計算する
+	 *
+	 * @param a
+	 * @param inv
+	 * @param radix4
+	 * @param offset ブロックの開始位置
+	 * @param p
+	 * @param iFrom
+	 * @param iTo
+	 * @param rot    Montgomery 表現の回転因子
+	 */
+	private void butterflyBlock(int[] a, boolean inv, boolean radix4, int offset, int p, int iFrom, int iTo,
+			long rot) {
+		long mod2 = 2L * mod, mod4 = 4L * mod;
+		long rot2 = radix4 ? mulMontgomery(rot, rot) : 0L;
+		long rot3 = radix4 ? mulMontgomery(rot2, rot) : 0L;
+		if ((null != VECTOR) && (iTo - iFrom >= VECTOR_THRESHOLD)) {
+			iFrom = VECTOR.butterflyBlock(a, inv, radix4, offset, p, iFrom, iTo, rot, rot2, rot3,
+					inv ? montgomeryIimag : montgomeryImag, mod, montgomeryNegInv);
+		}
+		if (!inv && !radix4) {
+			for (int i = iFrom; i < iTo; i++) {
+				long l = a[i + offset];
+				long r = reduce(a[i + offset + p] * rot);
+				a[i + offset] = (int) lazyMod(l + r);
+				a[i + offset + p] = (int) lazyMod(l - r + mod2);
+			}
+		} else if (!inv) {
+			long imag = montgomeryImag;
+			for (int i = iFrom; i < iTo; i++) {
+				long a0 = a[i + offset];
+				long a1 = reduce(a[i + offset + p] * rot);
+				long a2 = reduce(a[i + offset + 2 * p] * rot2);
+				long a3 = reduce(a[i + offset + 3 * p] * rot3);
+				long a1na3imag = reduce((a1 - a3 + mod2) * imag);
+				long na2 = mod2 - a2;
+				a[i + offset] = (int) lazyMod(a0 + a2 + a1 + a3);
+				a[i + offset + 1 * p] = (int) lazyMod(a0 + a2 + mod4 - (a1 + a3));
+				a[i + offset + 2 * p] = (int) lazyMod(a0 + na2 + a1na3imag);
+				a[i + offset + 3 * p] = (int) lazyMod(a0 + na2 + mod2 - a1na3imag);
+			}
+		} else if (!radix4) {
+			for (int i = iFrom; i < iTo; i++) {
+				long l = a[i + offset], r = a[i + offset + p];
+				a[i + offset] = (int) lazyMod(l + r);
+				a[i + offset + p] = (int) reduce((l - r + mod2) * rot);
+			}
+		} else {
+			long iimag = montgomeryIimag;
+			for (int i = iFrom; i < iTo; i++) {
+				long a0 = a[i + offset];
+				long a1 = a[i + offset + 1 * p];
+				long a2 = a[i + offset + 2 * p];
+				long a3 = a[i + offset + 3 * p];
+
+				long a2na3iimag = reduce((a2 - a3 + mod2) * iimag);
+
+				a[i + offset] = (int) lazyMod(a0 + a1 + a2 + a3);
+				a[i + offset + 1 * p] = (int) reduce(lazyMod(a0 - a1 + mod2 + a2na3iimag) * rot);
+				a[i + offset + 2 * p] = (int) reduce(lazyMod(a0 + a1 + mod4 - a2 - a3) * rot2);
+				a[i + offset + 3 * p] = (int) reduce(lazyMod(a0 - a1 + mod4 - a2na3iimag) * rot3);
+			}
+		}
+	}
+
+	/**
+	 * butterfly の 1 段分を (ブロック, ブロック内の位置) の組 [from, to) ごとに分割して並列に計算するタスク
+	 */
+	private class StageTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		final int[] a;
+		final boolean inv, radix4;
+		final int shift, p;
+		/** 各ブロックの回転因子 */
+		final long[] rots;
+		final int from, to;
+
+		StageTask(int[] a, boolean inv, boolean radix4, int shift, int p, long[] rots, int from, int to) {
+			this.a = a;
+			this.inv = inv;
+			this.radix4 = radix4;
+			this.shift = shift;
+			this.p = p;
+			this.rots = rots;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= PARALLEL_GRAIN) {
+				int u = from;
+				while (u < to) {
+					int s = u / p, i = u % p;
+					int end = Math.min(to, (s + 1) * p);
+					butterflyBlock(a, inv, radix4, s << shift, p, i, i + (end - u), rots[s]);
+					u = end;
+				}
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new StageTask(a, inv, radix4, shift, p, rots, from, mid),
+						new StageTask(a, inv, radix4, shift, p, rots, mid, to));
+			}
+		}
+	}
+
+	/**
+	 * 畳み込みを mod で計算します。引数のチェックは行わない。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @return 計算した結果配列
+	 */
+	long[] convolution(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex) {
+		return convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, null);
+	}
+
+	/**
+	 * 畳み込みを mod で計算します。引数のチェックは行わない。<br/>
+	 * pool が null でない場合、長さ PARALLEL_THRESHOLD 以上の変換を pool で並列に計算する。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param pool
+	 * @return 計算した結果配列
+	 */
+	long[] convolution(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex,
+			ForkJoinPool pool) {
+		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
+		if ((0 == n) || (0 == m)) {
+			return new long[0];
+		}
+		return convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, pool,
+				ConvolutionThresholds.get().choose(n, m));
+	}
+
+	/**
+	 * 計算方法を指定して畳み込みを mod で計算します。引数のチェックは行わない。<br/>
+	 * ConvolutionThresholds.calibrate で各計算方法の時間を測定するために使用する。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param method     計算方法
+	 * @return 計算した結果配列
+	 */
+	long[] convolutionWith(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex,
+			ConvolutionThresholds.Method method) {
+		if ((aFromIndex == aToIndex) || (bFromIndex == bToIndex)) {
+			return new long[0];
+		}
+		return convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, null, method);
+	}
+
+	private long[] convolution(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex,
+			ForkJoinPool pool, ConvolutionThresholds.Method method) {
+		switch (method) {
+		case NAIVE:
+			return convolutionNaive(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex);
+		case KARATSUBA:
+			long[] ans = new long[(aToIndex - aFromIndex) + (bToIndex - bFromIndex) - 1];
+			Karatsuba.convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, mod, ans, 0);
+			return ans;
+		default:
+			return convolutionFft(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, pool);
+		}
+	}
+
+	/**
+	 * 畳み込みを mod で計算します。引数のチェックは行わない。<br/>
+	 * 計算途中の値も int[] に格納するため、long[] 版よりメモリ使用量が少ない。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @return 計算した結果配列
+	 */
+	int[] convolution(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex, int bToIndex) {
+		return convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, null);
+	}
+
+	/**
+	 * 畳み込みを mod で計算します。引数のチェックは行わない。<br/>
+	 * pool が null でない場合、長さ PARALLEL_THRESHOLD 以上の変換を pool で並列に計算する。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param pool
+	 * @return 計算した結果配列
+	 */
+	int[] convolution(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex, int bToIndex,
+			ForkJoinPool pool) {
+		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
+		if ((0 == n) || (0 == m)) {
+			return new int[0];
+		}
+		ConvolutionThresholds.Method method = ConvolutionThresholds.get().choose(n, m);
+		if (ConvolutionThresholds.Method.NAIVE == method) {
+			return convolutionNaive(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex);
+		} else if (ConvolutionThresholds.Method.KARATSUBA == method) {
+			int[] ans = new int[n + m - 1];
+			Karatsuba.convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, mod, ans, 0);
+			return ans;
+		}
+		int z = 1 << Convolution.ceilPow2(n + m - 1);
+		if (!montgomery) {
+			long[] la = new long[n], lb = new long[m];
+			for (int i = 0; i < n; i++) {
+				la[i] = a[i + aFromIndex];
+			}
+			for (int i = 0; i < m; i++) {
+				lb[i] = b[i + bFromIndex];
+			}
+			long[] c = convolutionFft(la, 0, n, lb, 0, m, pool);
+			int[] ans = new int[c.length];
+			for (int i = 0; i < c.length; i++) {
+				ans[i] = (int) c[i];
+			}
+			return ans;
+		}
+		int[] na = new int[z];
+		for (int i = 0; i < n; i++) {
+			na[i] = (int) safeMod(a[i + aFromIndex]);
+		}
+		int[] nb = new int[z];
+		for (int i = 0; i < m; i++) {
+			nb[i] = (int) safeMod(b[i + bFromIndex]);
+		}
+		convolutionMontgomery(na, nb, pool);
+		int[] ans = new int[(n + m) - 1];
+		long iz = montgomeryInvPow2[Convolution.bsf(z)];
+		for (int i = 0; i < ans.length; i++) {
+			long x = reduce(na[i] * iz);
+			ans[i] = (int) ((x >= mod) ? x - mod : x);
+		}
+		return ans;
+	}
+
+	/**
+	 * 畳み込みの結果の c[fromIndex, toIndex) のみを mod で計算します。引数のチェックは行わない。<br/>
+	 * 巡回畳み込みの折り返しが窓に重ならない最小の長さで変換するため、中間積では全体を計算するより変換が短くなる。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param fromIndex
+	 * @param toIndex
+	 * @return 長さ toIndex - fromIndex の結果配列、n + m - 1 以上の位置は 0
+	 */
+	long[] convolutionWindow(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex,
+			int fromIndex, int toIndex) {
+		long[] ans = new long[toIndex - fromIndex];
+		// c[toIndex] 以降に寄与する係数は不要
+		int n = Math.min(aToIndex - aFromIndex, toIndex), m = Math.min(bToIndex - bFromIndex, toIndex);
+		if ((0 == n) || (0 == m)) {
+			return ans;
+		}
+		int hi = Math.min(toIndex, (n + m) - 1);
+		if (hi <= fromIndex) {
+			return ans;
+		}
+		if (ConvolutionThresholds.get().isNaive(n, m)) {
+			for (int k = fromIndex; k < hi; k++) {
+				long x = 0L;
+				for (int i = Math.max(0, k - m + 1); i <= Math.min(n - 1, k); i++) {
+					x = safeMod(x + a[i + aFromIndex] * b[k - i + bFromIndex]);
+				}
+				ans[k - fromIndex] = safeMod(x);
+			}
+			return ans;
+		}
+		int log = windowLog(n, m, fromIndex, hi), z = 1 << log;
+		if (montgomery) {
+			int[] na = new int[z];
+			for (int i = 0; i < n; i++) {
+				na[i] = (int) safeMod(a[i + aFromIndex]);
+			}
+			int[] nb = new int[z];
+			for (int i = 0; i < m; i++) {
+				nb[i] = (int) safeMod(b[i + bFromIndex]);
+			}
+			convolutionMontgomery(na, nb, null);
+			long iz = montgomeryInvPow2[log];
+			for (int k = fromIndex; k < hi; k++) {
+				long x = reduce(na[k] * iz);
+				ans[k - fromIndex] = (x >= mod) ? x - mod : x;
+			}
+		} else {
+			long[] na = new long[z];
+			System.arraycopy(a, aFromIndex, na, 0, n);
+			long[] nb = new long[z];
+			System.arraycopy(b, bFromIndex, nb, 0, m);
+			butterfly(na);
+			butterfly(nb);
+			for (int i = 0; i < z; i++) {
+				na[i] = safeMod(na[i] * nb[i]);
+			}
+			butterflyInv(na);
+			long iz = invPow2[log];
+			for (int k = fromIndex; k < hi; k++) {
+				ans[k - fromIndex] = safeMod(na[k] * iz);
+			}
+		}
+		return ans;
+	}
+
+	/**
+	 * 畳み込みの結果の c[fromIndex, toIndex) のみを mod で計算します。引数のチェックは行わない。<br/>
+	 * 巡回畳み込みの折り返しが窓に重ならない最小の長さで変換するため、中間積では全体を計算するより変換が短くなる。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param fromIndex
+	 * @param toIndex
+	 * @return 長さ toIndex - fromIndex の結果配列、n + m - 1 以上の位置は 0
+	 */
+	int[] convolutionWindow(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex, int bToIndex,
+			int fromIndex, int toIndex) {
+		int n = Math.min(aToIndex - aFromIndex, toIndex), m = Math.min(bToIndex - bFromIndex, toIndex);
+		int hi = Math.min(toIndex, (n + m) - 1);
+		if (!montgomery || (0 == n) || (0 == m) || (hi <= fromIndex) || ConvolutionThresholds.get().isNaive(n, m)) {
+			long[] la = new long[n], lb = new long[m];
+			for (int i = 0; i < n; i++) {
+				la[i] = a[i + aFromIndex];
+			}
+			for (int i = 0; i < m; i++) {
+				lb[i] = b[i + bFromIndex];
+			}
+			long[] c = convolutionWindow(la, 0, n, lb, 0, m, fromIndex, toIndex);
+			int[] ans = new int[c.length];
+			for (int i = 0; i < c.length; i++) {
+				ans[i] = (int) c[i];
+			}
+			return ans;
+		}
+		int[] ans = new int[toIndex - fromIndex];
+		int log = windowLog(n, m, fromIndex, hi), z = 1 << log;
+		int[] na = new int[z];
+		for (int i = 0; i < n; i++) {
+			na[i] = (int) safeMod(a[i + aFromIndex]);
+		}
+		int[] nb = new int[z];
+		for (int i = 0; i < m; i++) {
+			nb[i] = (int) safeMod(b[i + bFromIndex]);
+		}
+		convolutionMontgomery(na, nb, null);
+		long iz = montgomeryInvPow2[log];
+		for (int k = fromIndex; k < hi; k++) {
+			long x = reduce(na[k] * iz);
+			ans[k - fromIndex] = (int) ((x >= mod) ? x - mod : x);
+		}
+		return ans;
+	}
+
+	/**
+	 * 長さ n, m の畳み込みの c[lo, hi) を得られる最小の変換の長さの指数を返す。<br/>
+	 * 長さ z の巡回畳み込みでは c[t] (t >= z) が c[t - z] に加算されるため、z >= hi かつ n + m - 1 - z <= lo であればよい。
+	 *
+	 * @param n
+	 * @param m
+	 * @param lo
+	 * @param hi
+	 * @return 変換の長さの指数
+	 */
+	private static int windowLog(int n, int m, int lo, int hi) {
+		return Convolution.ceilPow2(Math.max(hi, (n + m) - 1 - lo));
+	}
+
+	/**
+	 * 畳み込みを mod で計算し、out[outOffset, outOffset + n + m - 1) に格納します。引数のチェックは行わない。<br/>
+	 * 作業領域は workspace のものを再利用するため、Karatsuba 法を使用する長さを除いて配列の生成を行わない。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param out
+	 * @param outOffset
+	 * @param workspace
+	 */
+	void convolution(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex, long[] out,
+			int outOffset, ConvolutionWorkspace workspace) {
+		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
+		if ((0 == n) || (0 == m)) {
+			return;
+		}
+		ConvolutionThresholds.Method method = ConvolutionThresholds.get().choose(n, m);
+		if (ConvolutionThresholds.Method.NAIVE == method) {
+			convolutionNaive(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, out, outOffset);
+			return;
+		} else if (ConvolutionThresholds.Method.KARATSUBA == method) {
+			Karatsuba.convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, mod, out, outOffset);
+			return;
+		}
+		int log = Convolution.ceilPow2(n + m - 1), z = 1 << log;
+		if (montgomery) {
+			int[] na = workspace.intBuffer(0, log), nb = workspace.intBuffer(1, log);
+			for (int i = 0; i < n; i++) {
+				na[i] = (int) safeMod(a[i + aFromIndex]);
+			}
+			Arrays.fill(na, n, z, 0);
+			for (int i = 0; i < m; i++) {
+				nb[i] = (int) safeMod(b[i + bFromIndex]);
+			}
+			Arrays.fill(nb, m, z, 0);
+			convolutionMontgomery(na, nb, null);
+			long iz = montgomeryInvPow2[log];
+			for (int i = 0; i < (n + m) - 1; i++) {
+				long x = reduce(na[i] * iz);
+				out[i + outOffset] = (x >= mod) ? x - mod : x;
+			}
+		} else {
+			long[] na = workspace.longBuffer(0, log), nb = workspace.longBuffer(1, log);
+			System.arraycopy(a, aFromIndex, na, 0, n);
+			Arrays.fill(na, n, z, 0L);
+			System.arraycopy(b, bFromIndex, nb, 0, m);
+			Arrays.fill(nb, m, z, 0L);
+			butterfly(na);
+			butterfly(nb);
+			for (int i = 0; i < z; i++) {
+				na[i] = safeMod(na[i] * nb[i]);
+			}
+			butterflyInv(na);
+			long iz = invPow2[log];
+			for (int i = 0; i < (n + m) - 1; i++) {
+				out[i + outOffset] = safeMod(na[i] * iz);
+			}
+		}
+	}
+
+	/**
+	 * 畳み込みを mod で計算し、out[outOffset, outOffset + n + m - 1) に格納します。引数のチェックは行わない。<br/>
+	 * 作業領域は workspace のものを再利用するため、Karatsuba 法を使用する長さを除いて配列の生成を行わない。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @param b
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param out
+	 * @param outOffset
+	 * @param workspace
+	 */
+	void convolution(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex, int bToIndex, int[] out,
+			int outOffset, ConvolutionWorkspace workspace) {
+		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
+		if ((0 == n) || (0 == m)) {
+			return;
+		}
+		ConvolutionThresholds.Method method = ConvolutionThresholds.get().choose(n, m);
+		if (ConvolutionThresholds.Method.NAIVE == method) {
+			convolutionNaive(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, out, outOffset);
+			return;
+		} else if (ConvolutionThresholds.Method.KARATSUBA == method) {
+			Karatsuba.convolution(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, mod, out, outOffset);
+			return;
+		}
+		int log = Convolution.ceilPow2(n + m - 1), z = 1 << log;
+		if (montgomery) {
+			int[] na = workspace.intBuffer(0, log), nb = workspace.intBuffer(1, log);
+			for (int i = 0; i < n; i++) {
+				na[i] = (int) safeMod(a[i + aFromIndex]);
+			}
+			Arrays.fill(na, n, z, 0);
+			for (int i = 0; i < m; i++) {
+				nb[i] = (int) safeMod(b[i + bFromIndex]);
+			}
+			Arrays.fill(nb, m, z, 0);
+			convolutionMontgomery(na, nb, null);
+			long iz = montgomeryInvPow2[log];
+			for (int i = 0; i < (n + m) - 1; i++) {
+				long x = reduce(na[i] * iz);
+				out[i + outOffset] = (int) ((x >= mod) ? x - mod : x);
+			}
+		} else {
+			long[] na = workspace.longBuffer(0, log), nb = workspace.longBuffer(1, log);
+			for (int i = 0; i < n; i++) {
+				na[i] = a[i + aFromIndex];
+			}
+			Arrays.fill(na, n, z, 0L);
+			for (int i = 0; i < m; i++) {
+				nb[i] = b[i + bFromIndex];
+			}
+			Arrays.fill(nb, m, z, 0L);
+			butterfly(na);
+			butterfly(nb);
+			for (int i = 0; i < z; i++) {
+				na[i] = safeMod(na[i] * nb[i]);
+			}
+			butterflyInv(na);
+			long iz = invPow2[log];
+			for (int i = 0; i < (n + m) - 1; i++) {
+				out[i + outOffset] = (int) safeMod(na[i] * iz);
+			}
+		}
+	}
+
+	private int[] convolutionNaive(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex, int bToIndex) {
+		int[] ans = new int[(aToIndex - aFromIndex) + (bToIndex - bFromIndex) - 1];
+		convolutionNaive(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, ans, 0);
+		return ans;
+	}
+
+	private void convolutionNaive(int[] a, int aFromIndex, int aToIndex, int[] b, int bFromIndex, int bToIndex,
+			int[] out, int outOffset) {
+		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
+		Arrays.fill(out, outOffset, outOffset + (n + m) - 1, 0);
+		for (int i = 0; i < n; i++) {
+			long x = safeMod(a[i + aFromIndex]);
+			for (int j = 0; j < m; j++) {
+				out[i + j + outOffset] = (int) safeMod(out[i + j + outOffset] + x * b[j + bFromIndex]);
+			}
+		}
+	}
+
+	private long[] convolutionNaive(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex) {
+		long[] ans = new long[(aToIndex - aFromIndex) + (bToIndex - bFromIndex) - 1];
+		convolutionNaive(a, aFromIndex, aToIndex, b, bFromIndex, bToIndex, ans, 0);
+		return ans;
+	}
+
+	private void convolutionNaive(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex,
+			long[] out, int outOffset) {
+		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
+		Arrays.fill(out, outOffset, outOffset + (n + m) - 1, 0L);
+		if (n < m) {
+			for (int j = 0; j < m; j++) {
+				for (int i = 0; i < n; i++) {
+					out[i + j + outOffset] = safeMod(out[i + j + outOffset] + a[i + aFromIndex] * b[j + bFromIndex]);
+				}
+			}
+		} else {
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < m; j++) {
+					out[i + j + outOffset] = safeMod(out[i + j + outOffset] + a[i + aFromIndex] * b[j + bFromIndex]);
+				}
+			}
+		}
+	}
+
+	private long[] convolutionFft(long[] a, int aFromIndex, int aToIndex, long[] b, int bFromIndex, int bToIndex,
+			ForkJoinPool pool) {
+		int n = aToIndex - aFromIndex, m = bToIndex - bFromIndex;
+		int z = 1 << Convolution.ceilPow2(n + m - 1);
+		if (montgomery) {
+			return convolutionMontgomery(a, aFromIndex, b, bFromIndex, n, m, z, pool);
+		}
+		long[] na = new long[z];
+		System.arraycopy(a, aFromIndex, na, 0, n);
+		long[] nb = new long[z];
+		System.arraycopy(b, bFromIndex, nb, 0, m);
+		butterfly(na);
+		butterfly(nb);
+		for (int i = 0; i < z; i++) {
+			na[i] = safeMod(na[i] * nb[i]);
+		}
+		butterflyInv(na);
+		long[] ans = new long[(n + m) - 1];
+		long iz = invPow2[Convolution.bsf(z)];
+		for (int i = 0; i < ans.length; i++) {
+			ans[i] = safeMod(na[i] * iz);
+		}
+		return ans;
+	}
+
+	private long[] convolutionMontgomery(long[] a, int aFromIndex, long[] b, int bFromIndex, int n, int m, int z,
+			ForkJoinPool pool) {
+		int[] na = new int[z];
+		for (int i = 0; i < n; i++) {
+			na[i] = (int) safeMod(a[i + aFromIndex]);
+		}
+		int[] nb = new int[z];
+		for (int i = 0; i < m; i++) {
+			nb[i] = (int) safeMod(b[i + bFromIndex]);
+		}
+		convolutionMontgomery(na, nb, pool);
+		long[] ans = new long[(n + m) - 1];
+		long iz = montgomeryInvPow2[Convolution.bsf(z)];
+		for (int i = 0; i < ans.length; i++) {
+			long x = reduce(na[i] * iz);
+			ans[i] = (x >= mod) ? x - mod : x;
+		}
+		return ans;
+	}
+
+	/**
+	 * [0, mod) の範囲に簡約済みの na, nb の巡回畳み込みを na に格納する。結果は z / 2^32 倍されたままとなる。<br/>
+	 * pool が null でない場合、na, nb の変換を pool で同時に計算し、逆変換も各段を pool で並列に計算する。
+	 *
+	 * @param na
+	 * @param nb
+	 * @param pool
+	 */
+	private void convolutionMontgomery(int[] na, int[] nb, ForkJoinPool pool) {
+		if ((null == pool) && (na.length >= SIX_STEP_THRESHOLD)) {
+			SixStepTransform.butterfly(this, na);
+			SixStepTransform.butterfly(this, nb);
+			for (int i = 0; i < na.length; i++) {
+				na[i] = (int) reduce((long) na[i] * nb[i]);
+			}
+			SixStepTransform.butterflyInv(this, na);
+			return;
+		}
+		if ((null != pool) && (na.length >= PARALLEL_THRESHOLD)) {
+			invoke(pool, ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(
+					ForkJoinTask.adapt(() -> butterflyMontgomery(na, pool)),
+					ForkJoinTask.adapt(() -> butterflyMontgomery(nb, pool)))));
+		} else {
+			butterflyMontgomery(na);
+			butterflyMontgomery(nb);
+		}
+		for (int i = 0; i < na.length; i++) {
+			na[i] = (int) reduce((long) na[i] * nb[i]);
+		}
+		butterflyInvMontgomery(na, pool);
+	}
+
+	/**
+	 * x mod mod を安全に計算する
+	 *
+	 * @param x
+	 * @return x mod mod
+	 */
+	long safeMod(long x) {
+		x %= mod;
+		if (x < 0) {
+			x += mod;
+		}
+		return x;
+	}
+
+	/**
+	 * Montgomery reduction、t * 2^{-32} mod mod を [0, 2 * mod) の範囲で返す
+	 *
+	 * @param t `0 <= t < mod * 2^32`
+	 * @return t * 2^{-32} mod mod
+	 */
+	long reduce(long t) {
+		long u = (((int) t) * montgomeryNegInv) & 0xFFFF_FFFFL;
+		return (t + u * mod) >>> 32;
+	}
+
+	/**
+	 * Montgomery 表現の x, y の積を [0, mod) の範囲で返す
+	 *
+	 * @param x
+	 * @param y
+	 * @return Montgomery 表現の x * y
+	 */
+	private long mulMontgomery(long x, long y) {
+		long r = reduce(x * y);
+		return (r >= mod) ? r - mod : r;
+	}
+
+	/**
+	 * [0, 8 * mod) の範囲の x を [0, 2 * mod) の範囲に簡約する
+	 *
+	 * @param x
+	 * @return x と合同な [0, 2 * mod) の値
+	 */
+	private long lazyMod(long x) {
+		long mod4 = 4L * mod;
+		if (x >= mod4) {
+			x -= mod4;
+		}
+		long mod2 = 2L * mod;
+		if (x >= mod2) {
+			x -= mod2;
+		}
+		return x;
+	}
+
+	/**
+	 * [0, 2 * mod) の範囲の a の各要素を [0, mod) の範囲に簡約する
+	 *
+	 * @param a
+	 */
+	private void normalize(long[] a) {
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] >= mod) {
+				a[i] -= mod;
+			}
+		}
+	}
+
+	private long toMontgomery(long x) {
+		return safeMod(x * ((1L << 32) % mod));
+	}
+
+	private long[] toMontgomery(long[] x) {
+		long[] y = new long[x.length];
+		for (int i = 0; i < x.length; i++) {
+			y[i] = toMontgomery(x[i]);
+		}
+		return y;
+	}
+}
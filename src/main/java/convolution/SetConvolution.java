@@ -0,0 +1,545 @@
+package convolution;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * 添字の集合演算に関する畳み込みを mod で計算するクラス
+ *
+ * XOR, AND, OR, 部分集合 (subset) の畳み込みは長さ 2^k の配列の添字を k 要素の集合とみなし、高速 Walsh-Hadamard 変換、
+ * 高速ゼータ変換、高速メビウス変換で計算する。GCD, LCM の畳み込みは添字の約数、倍数に関するゼータ変換で計算する。<br/>
+ * 変換は int[] のまま各要素を [0, m) に保って計算する。Parallel の付くメソッドは、長さ PARALLEL_THRESHOLD 以上の変換の各段を
+ * ForkJoinPool.commonPool() で並列に計算する。
+ */
+public class SetConvolution {
+	/** 並列モードでも、この長さ未満の変換は逐次に計算する */
+	static final int PARALLEL_THRESHOLD = 1 << 16;
+	/** 並列に計算する際の 1 タスクあたりの組の数 */
+	private static final int PARALLEL_GRAIN = 1 << 13;
+
+	/** 変換の種類 */
+	private static final int XOR = 0, SUBSET_ZETA = 1, SUBSET_MOBIUS = 2, SUPERSET_ZETA = 3, SUPERSET_MOBIUS = 4;
+
+	private SetConvolution() {
+	}
+
+	/**
+	 * c[i ^ j] += a[i] * b[j] となる c を mod m で計算します。
+	 *
+	 * @param a 長さ 2^k の配列
+	 * @param b a と同じ長さの配列
+	 * @param m 奇数
+	 * @return 計算した結果配列
+	 */
+	static int[] xorConvolution(int[] a, int[] b, int m) {
+		return xorConvolution(a, b, m, null);
+	}
+
+	/**
+	 * c[i ^ j] += a[i] * b[j] となる c を mod m で計算します。長い配列の変換は並列に計算します。
+	 *
+	 * @param a 長さ 2^k の配列
+	 * @param b a と同じ長さの配列
+	 * @param m 奇数
+	 * @return 計算した結果配列
+	 */
+	static int[] xorConvolutionParallel(int[] a, int[] b, int m) {
+		return xorConvolution(a, b, m, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * c[i & j] += a[i] * b[j] となる c を mod m で計算します。
+	 *
+	 * @param a 長さ 2^k の配列
+	 * @param b a と同じ長さの配列
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static int[] andConvolution(int[] a, int[] b, int m) {
+		return bitwiseConvolution(a, b, m, SUPERSET_ZETA, SUPERSET_MOBIUS, null);
+	}
+
+	/**
+	 * c[i & j] += a[i] * b[j] となる c を mod m で計算します。長い配列の変換は並列に計算します。
+	 *
+	 * @param a 長さ 2^k の配列
+	 * @param b a と同じ長さの配列
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static int[] andConvolutionParallel(int[] a, int[] b, int m) {
+		return bitwiseConvolution(a, b, m, SUPERSET_ZETA, SUPERSET_MOBIUS, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * c[i | j] += a[i] * b[j] となる c を mod m で計算します。
+	 *
+	 * @param a 長さ 2^k の配列
+	 * @param b a と同じ長さの配列
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static int[] orConvolution(int[] a, int[] b, int m) {
+		return bitwiseConvolution(a, b, m, SUBSET_ZETA, SUBSET_MOBIUS, null);
+	}
+
+	/**
+	 * c[i | j] += a[i] * b[j] となる c を mod m で計算します。長い配列の変換は並列に計算します。
+	 *
+	 * @param a 長さ 2^k の配列
+	 * @param b a と同じ長さの配列
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static int[] orConvolutionParallel(int[] a, int[] b, int m) {
+		return bitwiseConvolution(a, b, m, SUBSET_ZETA, SUBSET_MOBIUS, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * i & j == 0 のとき c[i | j] += a[i] * b[j] となる c を mod m で計算します。<br/>
+	 * 計算量は O(k^2 2^k)、作業領域は (k + 1) 2^k 要素の int[] 2 つ分となります。
+	 *
+	 * @param a 長さ 2^k の配列
+	 * @param b a と同じ長さの配列
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static int[] subsetConvolution(int[] a, int[] b, int m) {
+		return subsetConvolution(a, b, m, null);
+	}
+
+	/**
+	 * i & j == 0 のとき c[i | j] += a[i] * b[j] となる c を mod m で計算します。長い配列の変換は並列に計算します。
+	 *
+	 * @param a 長さ 2^k の配列
+	 * @param b a と同じ長さの配列
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static int[] subsetConvolutionParallel(int[] a, int[] b, int m) {
+		return subsetConvolution(a, b, m, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * 1 <= i, j < n について c[gcd(i, j)] += a[i] * b[j] となる c を mod m で計算します。添字 0 は使用せず、c[0] は 0 となります。
+	 *
+	 * @param a 長さ n の配列
+	 * @param b a と同じ長さの配列
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static int[] gcdConvolution(int[] a, int[] b, int m) {
+		checkDivisor(a.length, b.length, m);
+		int[] na = reduce(a, m), nb = reduce(b, m);
+		int[] primes = primes(a.length - 1);
+		multipleZeta(na, primes, m);
+		multipleZeta(nb, primes, m);
+		multiply(na, nb, m);
+		multipleMobius(na, primes, m);
+		na[0] = 0;
+		return na;
+	}
+
+	/**
+	 * 1 <= i, j < n について lcm(i, j) < n のとき c[lcm(i, j)] += a[i] * b[j] となる c を mod m
+	 * で計算します。添字 0 は使用せず、c[0] は 0 となります。
+	 *
+	 * @param a 長さ n の配列
+	 * @param b a と同じ長さの配列
+	 * @param m
+	 * @return 計算した結果配列
+	 */
+	static int[] lcmConvolution(int[] a, int[] b, int m) {
+		checkDivisor(a.length, b.length, m);
+		int[] na = reduce(a, m), nb = reduce(b, m);
+		int[] primes = primes(a.length - 1);
+		divisorZeta(na, primes, m);
+		divisorZeta(nb, primes, m);
+		multiply(na, nb, m);
+		divisorMobius(na, primes, m);
+		na[0] = 0;
+		return na;
+	}
+
+	/**
+	 * 高速 Walsh-Hadamard 変換を計算する。逆変換は同じ変換の後に 1 / a.length を掛ける。
+	 *
+	 * @param a    長さ 2^k の配列、各要素は [0, m) の範囲
+	 * @param m
+	 * @param pool null の場合は逐次に計算する
+	 */
+	static void walshHadamard(int[] a, int m, ForkJoinPool pool) {
+		transform(a, XOR, m, pool);
+	}
+
+	/**
+	 * 部分集合についてのゼータ変換 a[S] = Σ_{T ⊆ S} a[T] を計算する
+	 *
+	 * @param a    長さ 2^k の配列、各要素は [0, m) の範囲
+	 * @param m
+	 * @param pool null の場合は逐次に計算する
+	 */
+	static void subsetZeta(int[] a, int m, ForkJoinPool pool) {
+		transform(a, SUBSET_ZETA, m, pool);
+	}
+
+	/**
+	 * subsetZeta の逆変換を計算する
+	 *
+	 * @param a    長さ 2^k の配列、各要素は [0, m) の範囲
+	 * @param m
+	 * @param pool null の場合は逐次に計算する
+	 */
+	static void subsetMobius(int[] a, int m, ForkJoinPool pool) {
+		transform(a, SUBSET_MOBIUS, m, pool);
+	}
+
+	/**
+	 * 上位集合についてのゼータ変換 a[S] = Σ_{T ⊇ S} a[T] を計算する
+	 *
+	 * @param a    長さ 2^k の配列、各要素は [0, m) の範囲
+	 * @param m
+	 * @param pool null の場合は逐次に計算する
+	 */
+	static void supersetZeta(int[] a, int m, ForkJoinPool pool) {
+		transform(a, SUPERSET_ZETA, m, pool);
+	}
+
+	/**
+	 * supersetZeta の逆変換を計算する
+	 *
+	 * @param a    長さ 2^k の配列、各要素は [0, m) の範囲
+	 * @param m
+	 * @param pool null の場合は逐次に計算する
+	 */
+	static void supersetMobius(int[] a, int m, ForkJoinPool pool) {
+		transform(a, SUPERSET_MOBIUS, m, pool);
+	}
+
+	private static int[] xorConvolution(int[] a, int[] b, int m, ForkJoinPool pool) {
+		checkBitwise(a.length, b.length, m);
+		if (0 == (m & 1)) {
+			throw new IllegalArgumentException("m is " + m);
+		}
+		int[] na = reduce(a, m), nb = reduce(b, m);
+		transform(na, XOR, m, pool);
+		transform(nb, XOR, m, pool);
+		multiply(na, nb, m);
+		transform(na, XOR, m, pool);
+		long inv = Convolution.invMod(na.length, m);
+		for (int i = 0; i < na.length; i++) {
+			na[i] = (int) ((na[i] * inv) % m);
+		}
+		return na;
+	}
+
+	private static int[] bitwiseConvolution(int[] a, int[] b, int m, int zeta, int mobius, ForkJoinPool pool) {
+		checkBitwise(a.length, b.length, m);
+		int[] na = reduce(a, m), nb = reduce(b, m);
+		transform(na, zeta, m, pool);
+		transform(nb, zeta, m, pool);
+		multiply(na, nb, m);
+		transform(na, mobius, m, pool);
+		return na;
+	}
+
+	private static int[] subsetConvolution(int[] a, int[] b, int m, ForkJoinPool pool) {
+		checkBitwise(a.length, b.length, m);
+		int n = a.length, k = Convolution.ceilPow2(n);
+		if (n < PARALLEL_THRESHOLD) {
+			pool = null;
+		}
+		// 要素数ごとに分けた配列 ra[r][S] = (|S| == r) ? a[S] : 0
+		int[][] ra = new int[k + 1][n], rb = new int[k + 1][n];
+		for (int s = 0; s < n; s++) {
+			int r = Integer.bitCount(s);
+			ra[r][s] = (int) Convolution.safeMod(a[s], m);
+			rb[r][s] = (int) Convolution.safeMod(b[s], m);
+		}
+		forEachRank(k + 1, r -> {
+			transform(ra[r], SUBSET_ZETA, m, null);
+			transform(rb[r], SUBSET_ZETA, m, null);
+		}, pool);
+		// ra[r][S] に Σ_{i <= r} ra[i][S] * rb[r - i][S] を格納する。r の降順に計算すれば ra[0..r) は未更新のまま使用できる
+		RangeAction product = (from, to) -> {
+			for (int s = from; s < to; s++) {
+				// ra[i][S] は i > |S| で 0 となり、c[S] には r >= |S| の値のみ使用する
+				int c = Integer.bitCount(s);
+				for (int r = k; r >= c; r--) {
+					long x = 0L;
+					for (int i = r - c; i <= c; i++) {
+						x = (x + (long) ra[i][s] * rb[r - i][s]) % m;
+					}
+					ra[r][s] = (int) x;
+				}
+			}
+		};
+		if (null == pool) {
+			product.run(0, n);
+		} else {
+			invoke(pool, new RangeTask(product, 0, n));
+		}
+		forEachRank(k + 1, r -> transform(ra[r], SUBSET_MOBIUS, m, null), pool);
+		int[] ans = new int[n];
+		for (int s = 0; s < n; s++) {
+			ans[s] = ra[Integer.bitCount(s)][s];
+		}
+		return ans;
+	}
+
+	/**
+	 * 要素数 0 <= r < ranks ごとに task を実行する。pool が null でない場合は並列に実行する。
+	 */
+	private static void forEachRank(int ranks, IntConsumer task, ForkJoinPool pool) {
+		if (null == pool) {
+			for (int r = 0; r < ranks; r++) {
+				task.accept(r);
+			}
+		} else {
+			ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[ranks];
+			for (int r = 0; r < ranks; r++) {
+				int rank = r;
+				tasks[r] = ForkJoinTask.adapt(() -> task.accept(rank));
+			}
+			invoke(pool, ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+		}
+	}
+
+	/**
+	 * 変換を計算する。pool が null でなく a.length が PARALLEL_THRESHOLD 以上の場合、各段の計算を pool で並列に実行する。
+	 *
+	 * @param a
+	 * @param kind 変換の種類
+	 * @param m
+	 * @param pool
+	 */
+	private static void transform(int[] a, int kind, int m, ForkJoinPool pool) {
+		if (a.length < PARALLEL_THRESHOLD) {
+			pool = null;
+		}
+		for (int h = 1; h < a.length; h <<= 1) {
+			if (null == pool) {
+				stage(a, kind, h, m, 0, a.length >> 1);
+			} else {
+				int step = h;
+				invoke(pool, new RangeTask((from, to) -> stage(a, kind, step, m, from, to), 0, a.length >> 1));
+			}
+		}
+	}
+
+	/**
+	 * 間隔 h の組 (i, i | h) のうち、u 番目 (from <= u < to) の組を変換する。<br/>
+	 * u 番目の組は i = ((u & ~(h - 1)) << 1) | (u & (h - 1)) となる。
+	 *
+	 * @param a
+	 * @param kind
+	 * @param h
+	 * @param m
+	 * @param from
+	 * @param to
+	 */
+	private static void stage(int[] a, int kind, int h, int m, int from, int to) {
+		int u = from;
+		while (u < to) {
+			int base = (u & ~(h - 1)) << 1, end = Math.min(to, (u | (h - 1)) + 1);
+			int i = base | (u & (h - 1)), last = i + (end - u);
+			switch (kind) {
+			case XOR:
+				for (; i < last; i++) {
+					int x = a[i], y = a[i | h];
+					int s = x + y - m, d = x - y;
+					a[i] = (s < 0) ? s + m : s;
+					a[i | h] = (d < 0) ? d + m : d;
+				}
+				break;
+			case SUBSET_ZETA:
+				for (; i < last; i++) {
+					int s = a[i | h] + a[i] - m;
+					a[i | h] = (s < 0) ? s + m : s;
+				}
+				break;
+			case SUBSET_MOBIUS:
+				for (; i < last; i++) {
+					int d = a[i | h] - a[i];
+					a[i | h] = (d < 0) ? d + m : d;
+				}
+				break;
+			case SUPERSET_ZETA:
+				for (; i < last; i++) {
+					int s = a[i] + a[i | h] - m;
+					a[i] = (s < 0) ? s + m : s;
+				}
+				break;
+			default:
+				for (; i < last; i++) {
+					int d = a[i] - a[i | h];
+					a[i] = (d < 0) ? d + m : d;
+				}
+				break;
+			}
+			u = end;
+		}
+	}
+
+	/**
+	 * 倍数についてのゼータ変換 a[i] = Σ_{i | j} a[j] を計算する
+	 */
+	private static void multipleZeta(int[] a, int[] primes, int m) {
+		for (int p : primes) {
+			for (int i = (a.length - 1) / p; i >= 1; i--) {
+				a[i] = addMod(a[i], a[i * p], m);
+			}
+		}
+	}
+
+	/**
+	 * multipleZeta の逆変換を計算する
+	 */
+	private static void multipleMobius(int[] a, int[] primes, int m) {
+		for (int p : primes) {
+			for (int i = 1; i <= (a.length - 1) / p; i++) {
+				a[i] = subMod(a[i], a[i * p], m);
+			}
+		}
+	}
+
+	/**
+	 * 約数についてのゼータ変換 a[i] = Σ_{j | i} a[j] を計算する
+	 */
+	private static void divisorZeta(int[] a, int[] primes, int m) {
+		for (int p : primes) {
+			for (int i = 1; i <= (a.length - 1) / p; i++) {
+				a[i * p] = addMod(a[i * p], a[i], m);
+			}
+		}
+	}
+
+	/**
+	 * divisorZeta の逆変換を計算する
+	 */
+	private static void divisorMobius(int[] a, int[] primes, int m) {
+		for (int p : primes) {
+			for (int i = (a.length - 1) / p; i >= 1; i--) {
+				a[i * p] = subMod(a[i * p], a[i], m);
+			}
+		}
+	}
+
+	/**
+	 * n 以下の素数をエラトステネスの篩で列挙する
+	 *
+	 * @param n
+	 * @return n 以下の素数の昇順の配列
+	 */
+	static int[] primes(int n) {
+		if (n < 2) {
+			return new int[0];
+		}
+		boolean[] composite = new boolean[n + 1];
+		int count = 0;
+		for (int i = 2; i <= n; i++) {
+			if (!composite[i]) {
+				count++;
+				for (long j = (long) i * i; j <= n; j += i) {
+					composite[(int) j] = true;
+				}
+			}
+		}
+		int[] primes = new int[count];
+		for (int i = 2, k = 0; i <= n; i++) {
+			if (!composite[i]) {
+				primes[k++] = i;
+			}
+		}
+		return primes;
+	}
+
+	private static void multiply(int[] a, int[] b, int m) {
+		for (int i = 0; i < a.length; i++) {
+			a[i] = (int) (((long) a[i] * b[i]) % m);
+		}
+	}
+
+	private static int addMod(int x, int y, int m) {
+		int s = x + y - m;
+		return (s < 0) ? s + m : s;
+	}
+
+	private static int subMod(int x, int y, int m) {
+		int d = x - y;
+		return (d < 0) ? d + m : d;
+	}
+
+	private static int[] reduce(int[] a, int m) {
+		int[] na = new int[a.length];
+		for (int i = 0; i < a.length; i++) {
+			na[i] = (int) Convolution.safeMod(a[i], m);
+		}
+		return na;
+	}
+
+	private static void checkBitwise(int aLength, int bLength, int m) {
+		if (!((1 <= aLength) && (0 == (aLength & (aLength - 1))) && (aLength == bLength))) {
+			throw new IllegalArgumentException("a.length is " + aLength + ", b.length is " + bLength);
+		}
+		if (!(1 <= m)) {
+			throw new IllegalArgumentException("m is " + m);
+		}
+	}
+
+	private static void checkDivisor(int aLength, int bLength, int m) {
+		if (!((1 <= aLength) && (aLength == bLength))) {
+			throw new IllegalArgumentException("a.length is " + aLength + ", b.length is " + bLength);
+		}
+		if (!(1 <= m)) {
+			throw new IllegalArgumentException("m is " + m);
+		}
+	}
+
+	/**
+	 * task を実行する。既に ForkJoinPool のスレッドで実行中の場合はそのまま実行する。
+	 *
+	 * @param pool
+	 * @param task
+	 */
+	private static void invoke(ForkJoinPool pool, ForkJoinTask<?> task) {
+		if (ForkJoinTask.inForkJoinPool()) {
+			task.invoke();
+		} else {
+			pool.invoke(task);
+		}
+	}
+
+	/** [from, to) の範囲の処理 */
+	private interface RangeAction {
+		void run(int from, int to);
+	}
+
+	/**
+	 * [from, to) を PARALLEL_GRAIN 以下に分割して並列に処理するタスク
+	 */
+	private static class RangeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		final RangeAction action;
+		final int from, to;
+
+		RangeTask(RangeAction action, int from, int to) {
+			this.action = action;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= PARALLEL_GRAIN) {
+				action.run(from, to);
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new RangeTask(action, from, mid), new RangeTask(action, mid, to));
+			}
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package convolution;
+
+/**
+ * 長い配列の NTT を six-step (Bailey) のアルゴリズムで計算するクラス
+ *
+ * 長さ N = R * C の配列を R 行 C 列の行列とみなし、列ごとの長さ R の変換、回転因子の積、行ごとの長さ C の変換で計算する。<br/>
+ * 列は BLOCK 本ずつ連続した作業領域に集めてから変換するため、各変換はキャッシュに収まる領域のみを扱い、
+ * 配列全体を段ごとに走査する butterfly よりメモリ帯域の影響を受けにくい。<br/>
+ * 変換後の並びは NumberTheoreticTransform.butterflyMontgomery と異なるが、butterflyInv と組にして各点の積を取る用途では同様に使用できる。
+ */
+final class SixStepTransform {
+	/** 一度に集める列の数、int 16 個でキャッシュラインの大きさとなる */
+	private static final int BLOCK = 16;
+
+	private SixStepTransform() {
+	}
+
+	/**
+	 * a を変換する。ntt.montgomery が true の場合のみ使用できる。<br/>
+	 * 入力、出力ともに各要素は [0, 2 * mod) の範囲となる。
+	 *
+	 * @param ntt
+	 * @param a   長さ 2^k (k <= ntt.rank2) の配列
+	 */
+	static void butterfly(NumberTheoreticTransform ntt, int[] a) {
+		int log = Convolution.ceilPow2(a.length), logR = log / 2;
+		int r = 1 << logR, c = a.length >> logR;
+		int[] t = new int[a.length];
+		Twiddle twiddle = new Twiddle(ntt, ntt.root[log], logR, log);
+		// a[C * n1 + n2] の列 n2 ごとに長さ R の変換を行い、回転因子を掛けて t の n2 行目に格納する
+		int[][] rows = new int[Math.min(BLOCK, c)][r];
+		for (int j0 = 0; j0 < c; j0 += rows.length) {
+			for (int n1 = 0; n1 < r; n1++) {
+				for (int j = 0; j < rows.length; j++) {
+					rows[j][n1] = a[n1 * c + j0 + j];
+				}
+			}
+			for (int j = 0; j < rows.length; j++) {
+				ntt.butterflyMontgomery(rows[j]);
+				twiddle.multiply(rows[j], j0 + j);
+				System.arraycopy(rows[j], 0, t, (j0 + j) * r, r);
+			}
+		}
+		// t の列 k1 ごとに長さ C の変換を行い、a の k1 行目に格納する
+		rows = new int[Math.min(BLOCK, r)][c];
+		for (int k0 = 0; k0 < r; k0 += rows.length) {
+			for (int n2 = 0; n2 < c; n2++) {
+				for (int k = 0; k < rows.length; k++) {
+					rows[k][n2] = t[n2 * r + k0 + k];
+				}
+			}
+			for (int k = 0; k < rows.length; k++) {
+				ntt.butterflyMontgomery(rows[k]);
+				System.arraycopy(rows[k], 0, a, (k0 + k) * c, c);
+			}
+		}
+	}
+
+	/**
+	 * butterfly の逆変換を計算する。結果は a.length 倍されたままとなる。<br/>
+	 * 入力、出力ともに各要素は [0, 2 * mod) の範囲となる。
+	 *
+	 * @param ntt
+	 * @param a   長さ 2^k (k <= ntt.rank2) の配列
+	 */
+	static void butterflyInv(NumberTheoreticTransform ntt, int[] a) {
+		int log = Convolution.ceilPow2(a.length), logR = log / 2;
+		int r = 1 << logR, c = a.length >> logR;
+		int[] t = new int[a.length];
+		Twiddle twiddle = new Twiddle(ntt, ntt.iroot[log], logR, log);
+		// a の k1 行目を逆変換し、t の列 k1 に格納する
+		int[][] rows = new int[Math.min(BLOCK, r)][c];
+		for (int k0 = 0; k0 < r; k0 += rows.length) {
+			for (int k = 0; k < rows.length; k++) {
+				System.arraycopy(a, (k0 + k) * c, rows[k], 0, c);
+				ntt.butterflyInvMontgomery(rows[k]);
+			}
+			for (int n2 = 0; n2 < c; n2++) {
+				for (int k = 0; k < rows.length; k++) {
+					t[n2 * r + k0 + k] = rows[k][n2];
+				}
+			}
+		}
+		// t の n2 行目に回転因子の逆数を掛けて逆変換し、a の列 n2 に格納する
+		rows = new int[Math.min(BLOCK, c)][r];
+		for (int j0 = 0; j0 < c; j0 += rows.length) {
+			for (int j = 0; j < rows.length; j++) {
+				System.arraycopy(t, (j0 + j) * r, rows[j], 0, r);
+				twiddle.multiply(rows[j], j0 + j);
+				ntt.butterflyInvMontgomery(rows[j]);
+			}
+			for (int n1 = 0; n1 < r; n1++) {
+				for (int j = 0; j < rows.length; j++) {
+					a[n1 * c + j0 + j] = rows[j][n1];
+				}
+			}
+		}
+	}
+
+	/**
+	 * six-step の回転因子 w^(n2 * k1) を掛ける処理
+	 *
+	 * 長さ R の butterfly の i 番目の値は 1 の R 乗根の bitrev(i) 乗での値となるため、k1 = bitrev(i) とする。<br/>
+	 * w^e は w^(e の上位) と w^(e の下位 logR bit) の表の積で求め、逐次の累乗による依存を避ける。
+	 */
+	private static final class Twiddle {
+		final NumberTheoreticTransform ntt;
+		final int logR, mask;
+		/** Montgomery 表現の w^j (0 <= j < R) */
+		final long[] low;
+		/** Montgomery 表現の w^(j * R) (0 <= j < N / R) */
+		final long[] high;
+
+		Twiddle(NumberTheoreticTransform ntt, long w, int logR, int log) {
+			this.ntt = ntt;
+			this.logR = logR;
+			mask = (1 << log) - 1;
+			low = powers(ntt, toMontgomery(ntt, w), 1 << logR);
+			high = powers(ntt, toMontgomery(ntt, Convolution.powMod(w, 1L << logR, ntt.mod)), 1 << (log - logR));
+		}
+
+		/**
+		 * row[i] に w^(n2 * bitrev(i)) を掛ける
+		 *
+		 * @param row
+		 * @param n2
+		 */
+		void multiply(int[] row, int n2) {
+			for (int i = 0; i < row.length; i++) {
+				int k1 = (0 == logR) ? 0 : Integer.reverse(i) >>> (32 - logR);
+				int e = (n2 * k1) & mask;
+				long f = mul(ntt, high[e >>> logR], low[e & (row.length - 1)]);
+				row[i] = (int) ntt.reduce(row[i] * f);
+			}
+		}
+
+		private static long[] powers(NumberTheoreticTransform ntt, long w, int n) {
+			long[] p = new long[n];
+			p[0] = ntt.montgomeryOne;
+			for (int i = 1; i < n; i++) {
+				p[i] = mul(ntt, p[i - 1], w);
+			}
+			return p;
+		}
+	}
+
+	private static long mul(NumberTheoreticTransform ntt, long x, long y) {
+		long r = ntt.reduce(x * y);
+		return (r >= ntt.mod) ? r - ntt.mod : r;
+	}
+
+	private static long toMontgomery(NumberTheoreticTransform ntt, long x) {
+		return ntt.safeMod(x * ntt.montgomeryOne);
+	}
+}
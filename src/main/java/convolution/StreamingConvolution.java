@@ -0,0 +1,139 @@
+package convolution;
+
+import java.util.Arrays;
+
+/**
+ * 短いフィルターと、分割して与えられる長い信号の畳み込みを overlap-add 法で計算するクラス
+ *
+ * フィルターの変換は TransformedKernel で一度だけ行い、入力を blockLength ごとに畳み込んで前のブロックの末尾と足し合わせる。<br/>
+ * 確定した出力は push のたびに返すため、保持するのは 1 ブロック分の入力とフィルターの長さ - 1 の繰り越しのみとなる。<br/>
+ * 状態を持つため、複数のスレッドから同時に使用できない。
+ */
+public class StreamingConvolution {
+	/** 変換の長さの指数の最小値 */
+	private static final int MIN_LOG = 10;
+
+	/** 変換済みのフィルター */
+	private final TransformedKernel kernel;
+	/** mod */
+	private final int mod;
+	/** 1 ブロックの入力の長さ */
+	final int blockLength;
+	/** 現在のブロックの入力 */
+	private final long[] block;
+	/** 現在のブロックに格納した入力の数 */
+	private int blockSize;
+	/** 前のブロックから繰り越す出力、長さはフィルターの長さ - 1 */
+	private final long[] tail;
+	/** finish 以降に与えられた入力の数 */
+	private long inputLength;
+
+	/**
+	 * コンストラクター。変換の長さがフィルターの長さの 2 倍以上となるようにブロックの長さを決める。
+	 *
+	 * @param filter フィルター
+	 * @param m      mod
+	 */
+	StreamingConvolution(long[] filter, int m) {
+		this(filter, defaultBlockLength(filter.length), m);
+	}
+
+	/**
+	 * コンストラクター。blockLength + filter.length - 1 が 2 のべき乗の場合に変換の無駄が最も少ない。
+	 *
+	 * @param filter      フィルター
+	 * @param blockLength 1 ブロックの入力の長さ
+	 * @param m           mod
+	 */
+	StreamingConvolution(long[] filter, int blockLength, int m) {
+		kernel = new TransformedKernel(filter, blockLength, m);
+		mod = m;
+		this.blockLength = blockLength;
+		block = new long[blockLength];
+		tail = new long[Math.max(filter.length - 1, 0)];
+	}
+
+	/**
+	 * 入力を追加し、確定した出力を返します。
+	 *
+	 * @param a 入力
+	 * @return 確定した出力、長さは blockLength の倍数
+	 */
+	long[] push(long[] a) {
+		return push(a, 0, a.length);
+	}
+
+	/**
+	 * 入力 a[fromIndex, toIndex) を追加し、確定した出力を返します。
+	 *
+	 * @param a
+	 * @param fromIndex
+	 * @param toIndex
+	 * @return 確定した出力、長さは blockLength の倍数
+	 */
+	long[] push(long[] a, int fromIndex, int toIndex) {
+		if (!((0 <= fromIndex) && (fromIndex <= toIndex) && (toIndex <= a.length))) {
+			throw new IllegalArgumentException("fromIndex is " + fromIndex + ", toIndex is " + toIndex);
+		}
+		inputLength += toIndex - fromIndex;
+		if (0 == kernel.length) {
+			return new long[0];
+		}
+		long[] ans = new long[((blockSize + (toIndex - fromIndex)) / blockLength) * blockLength];
+		int pos = 0;
+		for (int i = fromIndex; i < toIndex;) {
+			int len = Math.min(toIndex - i, blockLength - blockSize);
+			System.arraycopy(a, i, block, blockSize, len);
+			blockSize += len;
+			i += len;
+			if (blockSize == blockLength) {
+				flush(ans, pos);
+				pos += blockLength;
+			}
+		}
+		return ans;
+	}
+
+	/**
+	 * 残りの出力を全て返し、次の信号を与えられる状態に戻します。<br/>
+	 * 出力の長さの合計は、入力の長さの合計 + フィルターの長さ - 1 となります。入力とフィルターの少なくとも一方が空の場合は空配列を返します。
+	 *
+	 * @return 残りの出力
+	 */
+	long[] finish() {
+		long[] ans;
+		if ((0 == inputLength) || (0 == kernel.length)) {
+			ans = new long[0];
+		} else {
+			ans = new long[blockSize + tail.length];
+			flush(ans, 0);
+		}
+		Arrays.fill(tail, 0L);
+		blockSize = 0;
+		inputLength = 0L;
+		return ans;
+	}
+
+	/**
+	 * 現在のブロックを畳み込み、確定した blockSize 個の出力を out[outOffset, outOffset + blockSize) に格納する。<br/>
+	 * 残りの出力は次のブロックへ繰り越す。out に余裕がある場合は繰り越す分も続けて格納する。
+	 *
+	 * @param out
+	 * @param outOffset
+	 */
+	private void flush(long[] out, int outOffset) {
+		long[] c = (0 == blockSize) ? new long[tail.length] : kernel.convolution(block, 0, blockSize);
+		for (int i = 0; i < tail.length; i++) {
+			long x = c[i] + tail[i];
+			c[i] = (x >= mod) ? x - mod : x;
+		}
+		System.arraycopy(c, 0, out, outOffset, Math.min(c.length, out.length - outOffset));
+		System.arraycopy(c, blockSize, tail, 0, tail.length);
+		blockSize = 0;
+	}
+
+	private static int defaultBlockLength(int filterLength) {
+		int log = Math.max(MIN_LOG, Convolution.ceilPow2(2 * Math.max(filterLength, 1)));
+		return (1 << log) - Math.max(filterLength, 1) + 1;
+	}
+}
@@ -0,0 +1,203 @@
+package convolution;
+
+/**
+ * 変換済みの多項式を保持し、様々な多項式との畳み込みを計算するクラス
+ *
+ * 固定の多項式 b を一度だけ変換しておき、畳み込みのたびに b の変換を省略する。<br/>
+ * 生成後は変更されないため、複数のスレッドから同時に使用できる。
+ */
+public class TransformedKernel {
+	/** mod の NumberTheoreticTransform */
+	final NumberTheoreticTransform ntt;
+	/** 変換前の多項式の長さ */
+	final int length;
+	/** 畳み込む多項式の最大の長さ */
+	final int maxLength;
+	/** 変換の長さの指数 */
+	final int log;
+	/** Montgomery 乗算を使用する場合の変換済みの値、[0, 2 * mod) の範囲 */
+	private final int[] montgomeryValues;
+	/** Montgomery 乗算を使用しない場合の変換済みの値 */
+	private final long[] values;
+
+	/**
+	 * コンストラクター
+	 *
+	 * @param b         変換する多項式
+	 * @param maxLength 畳み込む多項式の最大の長さ
+	 * @param m         mod
+	 */
+	TransformedKernel(long[] b, int maxLength, int m) {
+		this(b, 0, b.length, maxLength, m);
+	}
+
+	/**
+	 * コンストラクター
+	 *
+	 * @param b          変換する多項式
+	 * @param bFromIndex
+	 * @param bToIndex
+	 * @param maxLength  畳み込む多項式の最大の長さ
+	 * @param m          mod
+	 */
+	TransformedKernel(long[] b, int bFromIndex, int bToIndex, int maxLength, int m) {
+		if (!((0 <= bFromIndex) && (bFromIndex <= bToIndex) && (bToIndex <= b.length))) {
+			throw new IllegalArgumentException("bFromIndex is " + bFromIndex + ", bToIndex is " + bToIndex);
+		}
+		if (!(1 <= maxLength)) {
+			throw new IllegalArgumentException("maxLength is " + maxLength);
+		}
+		ntt = NumberTheoreticTransform.of(m);
+		length = bToIndex - bFromIndex;
+		this.maxLength = maxLength;
+		log = Convolution.ceilPow2(maxLength + Math.max(length, 1) - 1);
+		int z = 1 << log;
+		if (ntt.montgomery) {
+			montgomeryValues = new int[z];
+			for (int i = 0; i < length; i++) {
+				montgomeryValues[i] = (int) ntt.safeMod(b[i + bFromIndex]);
+			}
+			ntt.butterflyMontgomery(montgomeryValues);
+			values = null;
+		} else {
+			values = new long[z];
+			System.arraycopy(b, bFromIndex, values, 0, length);
+			ntt.butterfly(values);
+			montgomeryValues = null;
+		}
+	}
+
+	/**
+	 * a と変換済みの多項式の畳み込みを計算します。どちらかが空の場合は空配列を返します。
+	 *
+	 * @param a 長さ maxLength 以下の配列
+	 * @return 計算した結果配列
+	 */
+	long[] convolution(long[] a) {
+		return convolution(a, 0, a.length);
+	}
+
+	/**
+	 * a[aFromIndex, aToIndex) と変換済みの多項式の畳み込みを計算します。どちらかが空の場合は空配列を返します。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @return 計算した結果配列
+	 */
+	long[] convolution(long[] a, int aFromIndex, int aToIndex) {
+		int n = checkIndex(a.length, aFromIndex, aToIndex);
+		if ((0 == n) || (0 == length)) {
+			return new long[0];
+		}
+		long[] ans = new long[(n + length) - 1];
+		int z = 1 << log;
+		if (ntt.montgomery) {
+			int[] na = new int[z];
+			for (int i = 0; i < n; i++) {
+				na[i] = (int) ntt.safeMod(a[i + aFromIndex]);
+			}
+			multiplyMontgomery(na);
+			long iz = ntt.montgomeryInvPow2[log];
+			for (int i = 0; i < ans.length; i++) {
+				long x = ntt.reduce(na[i] * iz);
+				ans[i] = (x >= ntt.mod) ? x - ntt.mod : x;
+			}
+		} else {
+			long[] na = new long[z];
+			System.arraycopy(a, aFromIndex, na, 0, n);
+			multiply(na);
+			long iz = ntt.invPow2[log];
+			for (int i = 0; i < ans.length; i++) {
+				ans[i] = ntt.safeMod(na[i] * iz);
+			}
+		}
+		return ans;
+	}
+
+	/**
+	 * a と変換済みの多項式の畳み込みを計算します。どちらかが空の場合は空配列を返します。
+	 *
+	 * @param a 長さ maxLength 以下の配列
+	 * @return 計算した結果配列
+	 */
+	int[] convolution(int[] a) {
+		return convolution(a, 0, a.length);
+	}
+
+	/**
+	 * a[aFromIndex, aToIndex) と変換済みの多項式の畳み込みを計算します。どちらかが空の場合は空配列を返します。
+	 *
+	 * @param a
+	 * @param aFromIndex
+	 * @param aToIndex
+	 * @return 計算した結果配列
+	 */
+	int[] convolution(int[] a, int aFromIndex, int aToIndex) {
+		int n = checkIndex(a.length, aFromIndex, aToIndex);
+		if ((0 == n) || (0 == length)) {
+			return new int[0];
+		}
+		int[] ans = new int[(n + length) - 1];
+		int z = 1 << log;
+		if (ntt.montgomery) {
+			int[] na = new int[z];
+			for (int i = 0; i < n; i++) {
+				na[i] = (int) ntt.safeMod(a[i + aFromIndex]);
+			}
+			multiplyMontgomery(na);
+			long iz = ntt.montgomeryInvPow2[log];
+			for (int i = 0; i < ans.length; i++) {
+				long x = ntt.reduce(na[i] * iz);
+				ans[i] = (int) ((x >= ntt.mod) ? x - ntt.mod : x);
+			}
+		} else {
+			long[] na = new long[z];
+			for (int i = 0; i < n; i++) {
+				na[i] = a[i + aFromIndex];
+			}
+			multiply(na);
+			long iz = ntt.invPow2[log];
+			for (int i = 0; i < ans.length; i++) {
+				ans[i] = (int) ntt.safeMod(na[i] * iz);
+			}
+		}
+		return ans;
+	}
+
+	/**
+	 * na を変換し、変換済みの多項式との各点の積を取って逆変換する
+	 *
+	 * @param na
+	 */
+	private void multiplyMontgomery(int[] na) {
+		ntt.butterflyMontgomery(na);
+		for (int i = 0; i < na.length; i++) {
+			na[i] = (int) ntt.reduce((long) na[i] * montgomeryValues[i]);
+		}
+		ntt.butterflyInvMontgomery(na);
+	}
+
+	/**
+	 * na を変換し、変換済みの多項式との各点の積を取って逆変換する
+	 *
+	 * @param na
+	 */
+	private void multiply(long[] na) {
+		ntt.butterfly(na);
+		for (int i = 0; i < na.length; i++) {
+			na[i] = ntt.safeMod(na[i] * values[i]);
+		}
+		ntt.butterflyInv(na);
+	}
+
+	private int checkIndex(int aLength, int aFromIndex, int aToIndex) {
+		if (!((0 <= aFromIndex) && (aFromIndex <= aToIndex) && (aToIndex <= aLength))) {
+			throw new IllegalArgumentException("aFromIndex is " + aFromIndex + ", aToIndex is " + aToIndex);
+		}
+		if (!(aToIndex - aFromIndex <= maxLength)) {
+			throw new IllegalArgumentException("length is " + (aToIndex - aFromIndex) + ", maxLength is " + maxLength);
+		}
+		return aToIndex - aFromIndex;
+	}
+}
@@ -0,0 +1,31 @@
+package convolution;
+
+/**
+ * butterfly の内側のループを SIMD で計算する実装
+ *
+ * jdk.incubator.vector を使用する実装は src/vector/java にあり、-P vector を指定した場合のみコンパイルされる。<br/>
+ * 実行時に --add-modules jdk.incubator.vector が指定されていない場合は読み込めないため、スカラーの実装を使用する。
+ */
+interface VectorButterfly {
+	/**
+	 * NumberTheoreticTransform の int[] 版の butterfly の 1 ブロック分を i in [iFrom, iTo) について計算する。<br/>
+	 * ベクトルの長さに満たない端数は計算しない。
+	 *
+	 * @param a
+	 * @param inv    逆変換かどうか
+	 * @param radix4 4-base かどうか
+	 * @param offset ブロックの開始位置
+	 * @param p      ブロック内の各要素の間隔
+	 * @param iFrom
+	 * @param iTo
+	 * @param rot    Montgomery 表現の回転因子
+	 * @param rot2   rot の 2 乗
+	 * @param rot3   rot の 3 乗
+	 * @param imag   Montgomery 表現の 4 乗根
+	 * @param mod
+	 * @param negInv -mod^{-1} mod 2^32
+	 * @return 計算した i の上限、[戻り値, iTo) はスカラーで計算すること
+	 */
+	int butterflyBlock(int[] a, boolean inv, boolean radix4, int offset, int p, int iFrom, int iTo, long rot,
+			long rot2, long rot3, long imag, int mod, int negInv);
+}
@@ -0,0 +1,20 @@
+package convolution;
+
+/**
+ * 複素数の FFT の butterfly の内側のループを SIMD で計算する実装
+ *
+ * VectorButterfly と同様に、jdk.incubator.vector を使用する実装は src/vector/java にあり、-P vector を指定した場合のみコンパイルされる。
+ */
+interface VectorComplexButterfly {
+	/**
+	 * Convolution2.FastFourierTransform.fft(double[], boolean) の 1 ブロック分を j in [0, s) について計算する。<br/>
+	 * ベクトルの長さに満たない端数は計算しない。
+	 *
+	 * @param p 実部と虚部を交互に並べた配列
+	 * @param w 回転因子、cos と sin を交互に並べた配列
+	 * @param a ブロックの開始位置 (p の添字)、後半は a + 2 * s から始まる
+	 * @param s ブロックの前半の複素数の個数
+	 * @return 計算した j の上限、[戻り値, s) はスカラーで計算すること
+	 */
+	int butterflyBlock(double[] p, double[] w, int a, int s);
+}
@@ -1,12 +1,19 @@
 package lazysegtree;
 
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Predicate;
 
 /**
  * https://github.com/atcoder/ac-library/blob/master/atcoder/lazysegtree.hpp を参考に作成
  */
 public abstract class LazySegTree<S, F> {
+	/** 葉の数がこれ以上の場合、内部ノードの構築を並列に計算する */
+	static final int PARALLEL_THRESHOLD = 1 << 16;
+	/** 並列の構築で、部分木の葉の数がこれ以下になったら逐次に計算する */
+	static final int BUILD_GRAIN = 1 << 13;
 
 	final int n, size, log;
 	final S[] d;
@@ -31,9 +38,7 @@ public abstract class LazySegTree<S, F> {
 		Arrays.fill(d, e());
 		lz = (F[]) new Object[size];
 		Arrays.fill(lz, id());
-		for (int i = size - 1; i >= 1; i--) {
-			update(i);
-		}
+		buildAll();
 	}
 
 	public LazySegTree() {
@@ -50,9 +55,7 @@ public abstract class LazySegTree<S, F> {
 		lz = (F[]) new Object[size];
 		Arrays.fill(lz, id());
 		System.arraycopy(v, 0, d, size, n);
-		for (int i = size - 1; i >= 1; i--) {
-			update(i);
-		}
+		buildAll();
 	}
 
 	/**
@@ -291,6 +294,61 @@ public abstract class LazySegTree<S, F> {
 		return 0;
 	}
 
+	/**
+	 * 全ての内部ノードを深い段から再計算する。<br/>
+	 * 葉の数が PARALLEL_THRESHOLD 以上の場合、独立な部分木を ForkJoinPool.commonPool() で並列に計算するため、op は複数のスレッドから同時に呼ばれる。
+	 */
+	private void buildAll() {
+		if (size < PARALLEL_THRESHOLD) {
+			buildSubtree(1, Integer.numberOfTrailingZeros(size));
+		} else if (ForkJoinTask.inForkJoinPool()) {
+			new BuildTask(1, Integer.numberOfTrailingZeros(size)).invoke();
+		} else {
+			ForkJoinPool.commonPool().invoke(new BuildTask(1, Integer.numberOfTrailingZeros(size)));
+		}
+	}
+
+	/**
+	 * ノード k を根とする高さ h の部分木の内部ノードを、段ごとに逐次に再計算する
+	 *
+	 * @param k
+	 * @param h
+	 */
+	private void buildSubtree(int k, int h) {
+		for (int j = h - 1; j >= 0; j--) {
+			for (int i = ((k + 1) << j) - 1; i >= k << j; i--) {
+				update(i);
+			}
+		}
+	}
+
+	/**
+	 * ノード k を根とする高さ h の部分木を、葉の数が BUILD_GRAIN 以下になるまで左右に分けて並列に再計算するタスク
+	 */
+	private class BuildTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		final int k, h;
+
+		BuildTask(int k, int h) {
+			this.k = k;
+			this.h = h;
+		}
+
+		@Override
+		protected void compute() {
+			if ((1 << h) <= BUILD_GRAIN) {
+				buildSubtree(k, h);
+				return;
+			}
+			BuildTask left = new BuildTask(k << 1, h - 1);
+			left.fork();
+			new BuildTask(k << 1 | 1, h - 1).compute();
+			left.join();
+			update(k);
+		}
+	}
+
 	private void update(int k) {
 		d[k] = op(d[k << 1], d[k << 1 | 1]);
 	}
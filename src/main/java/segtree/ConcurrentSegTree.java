@@ -0,0 +1,256 @@
+package segtree;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 複数のスレッドから同時に点更新と区間のクエリを行える SegTree
+ *
+ * 葉を stripes 個の連続した区間 (部分木) に分け、部分木ごとに StampedLock を持つ。<br/>
+ * set は対象の部分木の書き込みロックを取り、部分木の根まで再計算した後、部分木の根より上のノードを top の lock で排他して再計算する。
+ * 異なる部分木への set は部分木の根より上の再計算を除いて並列に実行される。<br/>
+ * prod は区間に重なる部分木の楽観的読み取りで計算し、いずれかが更新されていた場合は重なる部分木の読み取りロックを昇順に取って計算し直す。
+ * 使用するノードは全て区間に重なる部分木に含まれるか、それらの部分木のみを覆うノードのため、結果はある時点の値と一致する。<br/>
+ * 楽観的読み取りでは更新途中の値に op を適用する場合があるため、S は不変なオブジェクトであること。
+ */
+abstract class ConcurrentSegTree<S> {
+	/** 既定の部分木の数 */
+	static final int DEFAULT_STRIPES = 64;
+
+	final int n, size;
+	/** 部分木の数、2 のべき乗 */
+	final int stripes;
+	/** 1 つの部分木の葉の数 */
+	final int width;
+	final S[] d;
+	/** 部分木ごとのロック */
+	private final StampedLock[] locks;
+	/** 部分木の根より上のノードのロック */
+	private final ReentrantLock top = new ReentrantLock();
+
+	abstract S e();
+
+	abstract S op(S a, S b);
+
+	/**
+	 * コンストラクター
+	 *
+	 * @param n
+	 */
+	ConcurrentSegTree(int n) {
+		this(n, DEFAULT_STRIPES);
+	}
+
+	/**
+	 * コンストラクター
+	 *
+	 * @param n
+	 * @param stripes 部分木の数の上限、2 のべき乗に切り下げ、葉の数で抑える
+	 */
+	@SuppressWarnings("unchecked")
+	ConcurrentSegTree(int n, int stripes) {
+		this((S[]) new Object[0], n, stripes);
+	}
+
+	/**
+	 * コンストラクター
+	 *
+	 * @param v
+	 */
+	ConcurrentSegTree(S[] v) {
+		this(v, v.length, DEFAULT_STRIPES);
+	}
+
+	/**
+	 * コンストラクター
+	 *
+	 * @param v
+	 * @param stripes 部分木の数の上限、2 のべき乗に切り下げ、葉の数で抑える
+	 */
+	ConcurrentSegTree(S[] v, int stripes) {
+		this(v, v.length, stripes);
+	}
+
+	@SuppressWarnings("unchecked")
+	private ConcurrentSegTree(S[] v, int n, int stripes) {
+		if (!(1 <= stripes)) {
+			throw new IllegalArgumentException("stripes is " + stripes);
+		}
+		this.n = n;
+		size = 1 << ceilPow2(n);
+		this.stripes = Math.min(Integer.highestOneBit(stripes), size);
+		width = size / this.stripes;
+		d = (S[]) new Object[size << 1];
+		Arrays.fill(d, e());
+		System.arraycopy(v, 0, d, size, v.length);
+		for (int i = size - 1; i >= 1; i--) {
+			update(i);
+		}
+		locks = new StampedLock[this.stripes];
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new StampedLock();
+		}
+	}
+
+	/**
+	 * a[p] に x を代入する
+	 *
+	 * @param p
+	 * @param x
+	 */
+	void set(int p, S x) {
+		if (!(0 <= p && p < n)) {
+			throw new IllegalArgumentException("p is " + p);
+		}
+		StampedLock lock = locks[p / width];
+		long stamp = lock.writeLock();
+		try {
+			p += size;
+			d[p] = x;
+			// 部分木の根 (stripes 以上) まで
+			while ((p >> 1) >= stripes) {
+				p >>= 1;
+				update(p);
+			}
+			if (p > 1) {
+				top.lock();
+				try {
+					while (p > 1) {
+						p >>= 1;
+						update(p);
+					}
+				} finally {
+					top.unlock();
+				}
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * a[p] を返す
+	 *
+	 * @param p
+	 * @return a[p]
+	 */
+	S get(int p) {
+		if (!(0 <= p && p < n)) {
+			throw new IllegalArgumentException("p is " + p);
+		}
+		StampedLock lock = locks[p / width];
+		long stamp = lock.tryOptimisticRead();
+		S x = d[p + size];
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				x = d[p + size];
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return x;
+	}
+
+	/**
+	 * op(a[l], ..., a[r - 1]) を、モノイドの性質を満たしていると仮定して計算します。<br/>
+	 * 結果は呼び出し中のある時点の a での値と一致します。
+	 *
+	 * @param l
+	 * @param r
+	 * @return op(a[l], ..., a[r - 1])、 l==r のときは e()。
+	 */
+	S prod(int l, int r) {
+		if (!(0 <= l && l <= r && r <= n)) {
+			throw new IllegalArgumentException("l is " + l + ", r is " + r);
+		}
+		if (l == r) {
+			return e();
+		}
+		int from = l / width, to = (r - 1) / width + 1;
+		long[] stamps = new long[to - from];
+		boolean valid = true;
+		for (int k = from; k < to; k++) {
+			stamps[k - from] = locks[k].tryOptimisticRead();
+			valid &= 0L != stamps[k - from];
+		}
+		if (valid) {
+			S x = null;
+			RuntimeException thrown = null;
+			try {
+				x = prodUnlocked(l, r);
+			} catch (RuntimeException e) {
+				// 更新途中の値に op を適用した場合は検証に失敗するため、読み取りロックで計算し直す
+				thrown = e;
+			}
+			for (int k = from; (k < to) && valid; k++) {
+				valid = locks[k].validate(stamps[k - from]);
+			}
+			if (valid) {
+				// 検証に成功した場合の例外は op 自体が投げたもの
+				if (null != thrown) {
+					throw thrown;
+				}
+				return x;
+			}
+		}
+		for (int k = from; k < to; k++) {
+			stamps[k - from] = locks[k].readLock();
+		}
+		try {
+			return prodUnlocked(l, r);
+		} finally {
+			for (int k = from; k < to; k++) {
+				locks[k].unlockRead(stamps[k - from]);
+			}
+		}
+	}
+
+	/**
+	 * op(a[0], ..., a[n - 1]) を計算します。n==0 のときは e() を返します。
+	 *
+	 * @return op(a[0], ..., a[n - 1])、n==0 のときは e()。
+	 */
+	S allProd() {
+		return prod(0, n);
+	}
+
+	private S prodUnlocked(int l, int r) {
+		S sml = e(), smr = e();
+		l += size;
+		r += size;
+
+		while (l < r) {
+			if (0 != (l & 1)) {
+				sml = op(sml, d[l++]);
+			}
+			if (0 != (r & 1)) {
+				smr = op(d[--r], smr);
+			}
+			l >>= 1;
+			r >>= 1;
+		}
+		return op(sml, smr);
+	}
+
+	private void update(int k) {
+		d[k] = op(d[k << 1], d[k << 1 | 1]);
+	}
+
+	/**
+	 *
+	 * @param n `0 <= n`
+	 * @return minimum non-negative `x` s.t. `n <= 2**x`
+	 */
+	private static int ceilPow2(int n) {
+		if (!(0 <= n)) {
+			throw new IllegalArgumentException("n is " + n);
+		}
+		int x = 0;
+		while ((1 << x) < n) {
+			x++;
+		}
+		return x;
+	}
+}
@@ -0,0 +1,288 @@
+package segtree;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * https://github.com/atcoder/ac-library/blob/master/atcoder/segtree.hpp を参考に作成
+ *
+ * long を使用する SegTree。ノードを long[] に保持するため、op の呼び出しや set でボクシングが発生しない。
+ */
+abstract class LongSegTree {
+	final int n, size;
+	final long[] d;
+
+	abstract long e();
+
+	abstract long op(long a, long b);
+
+	/**
+	 * コンストラクター
+	 */
+	LongSegTree() {
+		this(0);
+	}
+
+	/**
+	 * コンストラクター
+	 *
+	 * @param n
+	 */
+	LongSegTree(int n) {
+		this.n = n;
+		size = 1 << ceilPow2(n);
+		d = new long[size << 1];
+		Arrays.fill(d, e());
+		for (int i = size - 1; i >= 1; i--) {
+			update(i);
+		}
+	}
+
+	/**
+	 * コンストラクター
+	 *
+	 * @param v
+	 */
+	LongSegTree(long[] v) {
+		n = v.length;
+		size = 1 << ceilPow2(n);
+		d = new long[size << 1];
+		Arrays.fill(d, e());
+		System.arraycopy(v, 0, d, size, n);
+		for (int i = size - 1; i >= 1; i--) {
+			update(i);
+		}
+	}
+
+	/**
+	 * a[p] に x を代入する
+	 *
+	 * @param p
+	 * @param x
+	 */
+	void set(int p, long x) {
+		if (!(0 <= p && p < n)) {
+			throw new IllegalArgumentException("p is " + p);
+		}
+		p += size;
+		d[p] = x;
+		while (p > 1) {
+			p >>= 1;
+			update(p);
+		}
+	}
+
+	/**
+	 * i = 0..ps.length-1 について順に a[ps[i]] に xs[i] を代入する。<br/>
+	 * 葉を全て書き換えてから、変更のあった祖先のみを深い段から一度ずつ再計算する。変更が多い場合は全ての内部ノードを再計算する。
+	 *
+	 * @param ps
+	 * @param xs
+	 */
+	void setAll(int[] ps, long[] xs) {
+		if (!(ps.length == xs.length)) {
+			throw new IllegalArgumentException("ps.length is " + ps.length + ", xs.length is " + xs.length);
+		}
+		for (int p : ps) {
+			if (!(0 <= p && p < n)) {
+				throw new IllegalArgumentException("p is " + p);
+			}
+		}
+		int k = ps.length;
+		for (int i = 0; i < k; i++) {
+			d[ps[i] + size] = xs[i];
+		}
+		if ((long) k * Integer.numberOfTrailingZeros(size) >= size) {
+			for (int i = size - 1; i >= 1; i--) {
+				update(i);
+			}
+			return;
+		}
+		// 葉の位置を昇順に並べると、親の位置も昇順に並ぶため隣と比べるだけで重複を除ける
+		int[] nodes = new int[k];
+		for (int i = 0; i < k; i++) {
+			nodes[i] = ps[i] + size;
+		}
+		Arrays.sort(nodes);
+		while (k > 0 && nodes[0] > 1) {
+			int m = 0;
+			for (int i = 0; i < k; i++) {
+				int x = nodes[i] >> 1;
+				if ((0 == m) || (nodes[m - 1] != x)) {
+					nodes[m++] = x;
+					update(x);
+				}
+			}
+			k = m;
+		}
+	}
+
+	/**
+	 * a を v で置き換え、全ての内部ノードを再計算する。コンストラクターと異なり、配列を再利用する。
+	 *
+	 * @param v 長さ n の配列
+	 */
+	void build(long[] v) {
+		if (!(v.length == n)) {
+			throw new IllegalArgumentException("v.length is " + v.length + ", n is " + n);
+		}
+		System.arraycopy(v, 0, d, size, n);
+		for (int i = size - 1; i >= 1; i--) {
+			update(i);
+		}
+	}
+
+	/**
+	 * a[p] を返す
+	 *
+	 * @param p
+	 * @return a[p]
+	 */
+	long get(int p) {
+		if (!(0 <= p && p < n)) {
+			throw new IllegalArgumentException("p is " + p);
+		}
+		return d[p + size];
+	}
+
+	/**
+	 * op(a[l], ..., a[r - 1]) を、モノイドの性質を満たしていると仮定して計算します。
+	 *
+	 * @param l
+	 * @param r
+	 * @return op(a[l], ..., a[r - 1])、 l==r のときは e()。
+	 */
+	long prod(int l, int r) {
+		if (!(0 <= l && l <= r && r <= n)) {
+			throw new IllegalArgumentException("l is " + l + ", r is " + r);
+		}
+		long sml = e(), smr = e();
+		l += size;
+		r += size;
+
+		while (l < r) {
+			if (0 != (l & 1)) {
+				sml = op(sml, d[l++]);
+			}
+			if (0 != (r & 1)) {
+				smr = op(d[--r], smr);
+			}
+			l >>= 1;
+			r >>= 1;
+		}
+		return op(sml, smr);
+	}
+
+	/**
+	 * op(a[0], ..., a[n - 1]) を計算します。n==0 のときは e() を返します。
+	 *
+	 * @return op(a[0], ..., a[n - 1])、n==0 のときは e()。
+	 */
+	long allProd() {
+		return d[1];
+	}
+
+	/**
+	 * 以下の条件を両方満たす r を(いずれか一つ)返します。<br/>
+	 * r = l もしくは f(op(a[l], a[l + 1], ..., a[r - 1])) = true <br/>
+	 * r = n もしくは f(op(a[l], a[l + 1], ..., a[r])) = false <br/>
+	 * fが単調だとすれば、f(op(a[l], a[l + 1], ..., a[r - 1])) = true となる最大の r、と解釈することが可能です。
+	 *
+	 * @param l
+	 * @param f
+	 * @return 条件を両方満たす r を(いずれか一つ)
+	 */
+	int maxRight(int l, LongPredicate f) {
+		if (!(0 <= l && l <= n)) {
+			throw new IllegalArgumentException("l is " + l);
+		}
+		if (!f.test(e())) {
+			throw new IllegalArgumentException("f.test(e()) is " + f.test(e()));
+		}
+		if (l == n) {
+			return n;
+		}
+		l += size;
+		long sm = e();
+		do {
+			while (0 == (l & 1)) {
+				l >>= 1;
+			}
+			if (!f.test(op(sm, d[l]))) {
+				while (l < size) {
+					l <<= 1;
+					if (f.test(op(sm, d[l]))) {
+						sm = op(sm, d[l]);
+						l++;
+					}
+				}
+				return l - size;
+			}
+			sm = op(sm, d[l]);
+			l++;
+		} while ((l & -l) != l);
+		return n;
+	}
+
+	/**
+	 * 以下の条件を両方満たす l を(いずれか一つ)返します。<br/>
+	 * l = r もしくは f(op(a[l], a[l + 1], ..., a[r - 1])) = true <br/>
+	 * l = 0 もしくは f(op(a[l - 1], a[l], ..., a[r - 1])) = false <br/>
+	 * fが単調だとすれば、f(op(a[l], a[l + 1], ..., a[r - 1])) = true となる最小の l、と解釈することが可能です。
+	 *
+	 * @param r
+	 * @param f
+	 * @return 条件を両方満たす l を(いずれか一つ)
+	 */
+	int minLeft(int r, LongPredicate f) {
+		if (!(0 <= r && r <= n)) {
+			throw new IllegalArgumentException("r is " + r);
+		}
+		if (!f.test(e())) {
+			throw new IllegalArgumentException("f.test(e()) is " + f.test(e()));
+		}
+		if (0 == r) {
+			return 0;
+		}
+		r += size;
+		long sm = e();
+		do {
+			r--;
+			while (r > 1 && 0 != (r & 1)) {
+				r >>= 1;
+			}
+			if (!f.test(op(d[r], sm))) {
+				while (r < size) {
+					r = (2 * r + 1);
+					if (f.test(op(d[r], sm))) {
+						sm = op(d[r], sm);
+						r--;
+					}
+				}
+				return r + 1 - size;
+			}
+			sm = op(d[r], sm);
+		} while ((r & -r) != r);
+		return 0;
+	}
+
+	private void update(int k) {
+		d[k] = op(d[k << 1], d[k << 1 | 1]);
+	}
+
+	/**
+	 *
+	 * @param n `0 <= n`
+	 * @return minimum non-negative `x` s.t. `n <= 2**x`
+	 */
+	private static int ceilPow2(int n) {
+		if (!(0 <= n)) {
+			throw new IllegalArgumentException("n is " + n);
+		}
+		int x = 0;
+		while ((1 << x) < n) {
+			x++;
+		}
+		return x;
+	}
+}
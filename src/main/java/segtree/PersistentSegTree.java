@@ -0,0 +1,232 @@
+package segtree;
+
+import java.util.Arrays;
+
+/**
+ * 永続 SegTree
+ *
+ * set は根から葉までの O(log n) 個のノードを複製して新しい版を作り、他のノードは元の版と共有する。
+ * 版 0 は構築時の状態で、set(version, p, x) は任意の版から新しい版を作ってその番号を返す。<br/>
+ * ノードは配列 left, right, value の添字で表し、配列は足りなくなったら倍に伸ばす。
+ * 使用するメモリは構築時の O(n) に、更新 1 回ごとに O(log n) を加えたものになる。
+ */
+abstract class PersistentSegTree<S> {
+	final int n, size, log;
+	/** 子ノードの添字 */
+	int[] left, right;
+	/** ノードの値 */
+	S[] value;
+	/** 使用したノードの数 */
+	int nodes;
+	/** 各版の根ノードの添字 */
+	int[] roots;
+	/** 版の数 */
+	int versions;
+
+	abstract S e();
+
+	abstract S op(S a, S b);
+
+	/**
+	 * コンストラクター
+	 *
+	 * 全ての値が e() の版 0 を作る。各段で 1 つのノードを共有するため、O(log n) 個のノードを使用する。
+	 *
+	 * @param n
+	 */
+	@SuppressWarnings("unchecked")
+	PersistentSegTree(int n) {
+		this((S[]) new Object[0], n);
+	}
+
+	/**
+	 * コンストラクター
+	 *
+	 * 値が v の版 0 を作る。
+	 *
+	 * @param v
+	 */
+	PersistentSegTree(S[] v) {
+		this(v, v.length);
+	}
+
+	@SuppressWarnings("unchecked")
+	private PersistentSegTree(S[] v, int n) {
+		this.n = n;
+		log = ceilPow2(n);
+		size = 1 << log;
+		int capacity = Math.max(16, 2 * Math.max(v.length, 1) + log + 1);
+		left = new int[capacity];
+		right = new int[capacity];
+		value = (S[]) new Object[capacity];
+		// empty[h] は値が全て e() の高さ h の部分木
+		int[] empty = new int[log + 1];
+		empty[0] = newNode(-1, -1, e());
+		for (int h = 1; h <= log; h++) {
+			empty[h] = newNode(empty[h - 1], empty[h - 1], e());
+		}
+		roots = new int[16];
+		roots[versions++] = build(v, empty, 0, log);
+	}
+
+	/**
+	 * v[lo, lo + 2^h) を葉とする部分木を作る
+	 *
+	 * @return 根ノード
+	 */
+	private int build(S[] v, int[] empty, int lo, int h) {
+		if (lo >= v.length) {
+			return empty[h];
+		}
+		if (0 == h) {
+			return newNode(-1, -1, v[lo]);
+		}
+		int l = build(v, empty, lo, h - 1);
+		int r = build(v, empty, lo + (1 << (h - 1)), h - 1);
+		return newNode(l, r, op(value[l], value[r]));
+	}
+
+	/**
+	 * 版 version の a[p] を x に変えた新しい版を作る
+	 *
+	 * @param version
+	 * @param p
+	 * @param x
+	 * @return 新しい版の番号
+	 */
+	int set(int version, int p, S x) {
+		checkVersion(version);
+		if (!(0 <= p && p < n)) {
+			throw new IllegalArgumentException("p is " + p);
+		}
+		// 根から葉の親までのノード
+		int[] path = new int[log];
+		int node = roots[version];
+		for (int h = log; h >= 1; h--) {
+			path[log - h] = node;
+			node = (0 == ((p >> (h - 1)) & 1)) ? left[node] : right[node];
+		}
+		node = newNode(-1, -1, x);
+		for (int h = 1; h <= log; h++) {
+			int parent = path[log - h];
+			if (0 == ((p >> (h - 1)) & 1)) {
+				node = newNode(node, right[parent], op(value[node], value[right[parent]]));
+			} else {
+				node = newNode(left[parent], node, op(value[left[parent]], value[node]));
+			}
+		}
+		if (versions == roots.length) {
+			roots = Arrays.copyOf(roots, versions << 1);
+		}
+		roots[versions] = node;
+		return versions++;
+	}
+
+	/**
+	 * 版 version の a[p] を返す
+	 *
+	 * @param version
+	 * @param p
+	 * @return a[p]
+	 */
+	S get(int version, int p) {
+		checkVersion(version);
+		if (!(0 <= p && p < n)) {
+			throw new IllegalArgumentException("p is " + p);
+		}
+		int node = roots[version];
+		for (int h = log; h >= 1; h--) {
+			node = (0 == ((p >> (h - 1)) & 1)) ? left[node] : right[node];
+		}
+		return value[node];
+	}
+
+	/**
+	 * 版 version の op(a[l], ..., a[r - 1]) を、モノイドの性質を満たしていると仮定して計算します。
+	 *
+	 * @param version
+	 * @param l
+	 * @param r
+	 * @return op(a[l], ..., a[r - 1])、 l==r のときは e()。
+	 */
+	S prod(int version, int l, int r) {
+		checkVersion(version);
+		if (!(0 <= l && l <= r && r <= n)) {
+			throw new IllegalArgumentException("l is " + l + ", r is " + r);
+		}
+		if (l == r) {
+			return e();
+		}
+		return prod(roots[version], 0, log, l, r);
+	}
+
+	/**
+	 * 版 version の op(a[0], ..., a[n - 1]) を計算します。n==0 のときは e() を返します。
+	 *
+	 * @param version
+	 * @return op(a[0], ..., a[n - 1])、n==0 のときは e()。
+	 */
+	S allProd(int version) {
+		checkVersion(version);
+		return value[roots[version]];
+	}
+
+	/**
+	 * @return 版の数、最新の版の番号は versions() - 1
+	 */
+	int versions() {
+		return versions;
+	}
+
+	/**
+	 * [lo, lo + 2^h) を覆う node と [l, r) の共通部分の積、共通部分は空でないこと
+	 */
+	private S prod(int node, int lo, int h, int l, int r) {
+		if (l <= lo && lo + (1 << h) <= r) {
+			return value[node];
+		}
+		int mid = lo + (1 << (h - 1));
+		if (r <= mid) {
+			return prod(left[node], lo, h - 1, l, r);
+		}
+		if (mid <= l) {
+			return prod(right[node], mid, h - 1, l, r);
+		}
+		return op(prod(left[node], lo, h - 1, l, r), prod(right[node], mid, h - 1, l, r));
+	}
+
+	private int newNode(int l, int r, S x) {
+		if (nodes == value.length) {
+			int capacity = nodes << 1;
+			left = Arrays.copyOf(left, capacity);
+			right = Arrays.copyOf(right, capacity);
+			value = Arrays.copyOf(value, capacity);
+		}
+		left[nodes] = l;
+		right[nodes] = r;
+		value[nodes] = x;
+		return nodes++;
+	}
+
+	private void checkVersion(int version) {
+		if (!(0 <= version && version < versions)) {
+			throw new IllegalArgumentException("version is " + version);
+		}
+	}
+
+	/**
+	 *
+	 * @param n `0 <= n`
+	 * @return minimum non-negative `x` s.t. `n <= 2**x`
+	 */
+	private static int ceilPow2(int n) {
+		if (!(0 <= n)) {
+			throw new IllegalArgumentException("n is " + n);
+		}
+		int x = 0;
+		while ((1 << x) < n) {
+			x++;
+		}
+		return x;
+	}
+}
@@ -1,12 +1,20 @@
 package segtree;
 
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Predicate;
 
 /**
  * https://github.com/atcoder/ac-library/blob/master/atcoder/segtree.hpp を参考に作成
  */
 abstract class SegTree<S> {
+	/** 葉の数がこれ以上の場合、内部ノードの構築を並列に計算する */
+	static final int PARALLEL_THRESHOLD = 1 << 16;
+	/** 並列の構築で、部分木の葉の数がこれ以下になったら逐次に計算する */
+	static final int BUILD_GRAIN = 1 << 13;
+
 	final int n, size;
 	final S[] d;
 
@@ -32,9 +40,7 @@ abstract class SegTree<S> {
 		size = 1 << ceilPow2(n);
 		d = (S[]) new Object[size << 1];
 		Arrays.fill(d, e());
-		for (int i = size - 1; i >= 1; i--) {
-			update(i);
-		}
+		buildAll();
 	}
 
 	/**
@@ -51,9 +57,7 @@ abstract class SegTree<S> {
 		// https://atcoder.jp/contests/practice2/submissions/17594068 に参考
 		// そのまま代入の場合、REが発生する
 		System.arraycopy(v, 0, d, size, n);
-		for (int i = size - 1; i >= 1; i--) {
-			update(i);
-		}
+		buildAll();
 	}
 
 	/**
@@ -74,6 +78,62 @@ abstract class SegTree<S> {
 		}
 	}
 
+	/**
+	 * i = 0..ps.length-1 について順に a[ps[i]] に xs[i] を代入する。<br/>
+	 * 葉を全て書き換えてから、変更のあった祖先のみを深い段から一度ずつ再計算する。変更が多い場合は全ての内部ノードを再計算する。
+	 *
+	 * @param ps
+	 * @param xs
+	 */
+	void setAll(int[] ps, S[] xs) {
+		if (!(ps.length == xs.length)) {
+			throw new IllegalArgumentException("ps.length is " + ps.length + ", xs.length is " + xs.length);
+		}
+		for (int p : ps) {
+			if (!(0 <= p && p < n)) {
+				throw new IllegalArgumentException("p is " + p);
+			}
+		}
+		int k = ps.length;
+		for (int i = 0; i < k; i++) {
+			d[ps[i] + size] = xs[i];
+		}
+		if ((long) k * Integer.numberOfTrailingZeros(size) >= size) {
+			buildAll();
+			return;
+		}
+		// 葉の位置を昇順に並べると、親の位置も昇順に並ぶため隣と比べるだけで重複を除ける
+		int[] nodes = new int[k];
+		for (int i = 0; i < k; i++) {
+			nodes[i] = ps[i] + size;
+		}
+		Arrays.sort(nodes);
+		while (k > 0 && nodes[0] > 1) {
+			int m = 0;
+			for (int i = 0; i < k; i++) {
+				int x = nodes[i] >> 1;
+				if ((0 == m) || (nodes[m - 1] != x)) {
+					nodes[m++] = x;
+					update(x);
+				}
+			}
+			k = m;
+		}
+	}
+
+	/**
+	 * a を v で置き換え、全ての内部ノードを再計算する。コンストラクターと異なり、配列を再利用する。
+	 *
+	 * @param v 長さ n の配列
+	 */
+	void build(S[] v) {
+		if (!(v.length == n)) {
+			throw new IllegalArgumentException("v.length is " + v.length + ", n is " + n);
+		}
+		System.arraycopy(v, 0, d, size, n);
+		buildAll();
+	}
+
 	/**
 	 * a[p] を返す
 	 *
@@ -208,6 +268,61 @@ abstract class SegTree<S> {
 		return 0;
 	}
 
+	/**
+	 * 全ての内部ノードを深い段から再計算する。<br/>
+	 * 葉の数が PARALLEL_THRESHOLD 以上の場合、独立な部分木を ForkJoinPool.commonPool() で並列に計算するため、op は複数のスレッドから同時に呼ばれる。
+	 */
+	private void buildAll() {
+		if (size < PARALLEL_THRESHOLD) {
+			buildSubtree(1, Integer.numberOfTrailingZeros(size));
+		} else if (ForkJoinTask.inForkJoinPool()) {
+			new BuildTask(1, Integer.numberOfTrailingZeros(size)).invoke();
+		} else {
+			ForkJoinPool.commonPool().invoke(new BuildTask(1, Integer.numberOfTrailingZeros(size)));
+		}
+	}
+
+	/**
+	 * ノード k を根とする高さ h の部分木の内部ノードを、段ごとに逐次に再計算する
+	 *
+	 * @param k
+	 * @param h
+	 */
+	private void buildSubtree(int k, int h) {
+		for (int j = h - 1; j >= 0; j--) {
+			for (int i = ((k + 1) << j) - 1; i >= k << j; i--) {
+				update(i);
+			}
+		}
+	}
+
+	/**
+	 * ノード k を根とする高さ h の部分木を、葉の数が BUILD_GRAIN 以下になるまで左右に分けて並列に再計算するタスク
+	 */
+	private class BuildTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		final int k, h;
+
+		BuildTask(int k, int h) {
+			this.k = k;
+			this.h = h;
+		}
+
+		@Override
+		protected void compute() {
+			if ((1 << h) <= BUILD_GRAIN) {
+				buildSubtree(k, h);
+				return;
+			}
+			BuildTask left = new BuildTask(k << 1, h - 1);
+			left.fork();
+			new BuildTask(k << 1 | 1, h - 1).compute();
+			left.join();
+			update(k);
+		}
+	}
+
 	private void update(int k) {
 		d[k] = op(d[k << 1], d[k << 1 | 1]);
 	}
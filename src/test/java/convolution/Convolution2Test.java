@@ -1,6 +1,9 @@
 package convolution;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import java.util.Arrays;
 import java.util.Random;
@@ -42,6 +45,68 @@ class Convolution2Test {
 		assertArrayEquals(convNaive(a, b, MOD), Convolution2.convolution(a, b, MOD));
 	}
 
+	@Test
+	void errorMonitor() {
+		Random random = new Random();
+		int n = 1 << 17, m = 1 << 17, v = Integer.MAX_VALUE;
+		int[] a = new int[n], b = new int[m];
+		IntStream.range(0, n).forEach(i -> a[i] = random.nextInt());
+		IntStream.range(0, m).forEach(i -> b[i] = random.nextInt());
+		Convolution2.MOD = v;
+		assertNull(Convolution2.convolutionFft(a, 0, n, b, 0, m, 0.0));
+		assertArrayEquals(Convolution.convolutionArbitraryMod(a, b, v), Convolution2.convolution(a, b, v));
+
+		int[] c = Arrays.copyOf(a, 100), d = Arrays.copyOf(b, 100);
+		Convolution2.MOD = MOD;
+		assertArrayEquals(convNaive(c, d, MOD), Convolution2.convolutionFft(c, 0, 100, d, 0, 100, 0.5));
+	}
+
+	@Test
+	void fftInterleaved() {
+		Random random = new Random();
+		for (int k = 0; k <= 12; k++) {
+			int n = 1 << k;
+			double[] re = new double[n], im = new double[n], p = new double[n << 1];
+			for (int i = 0; i < n; i++) {
+				p[i << 1] = re[i] = random.nextInt(1 << 15);
+				p[i << 1 | 1] = im[i] = random.nextInt(1 << 15);
+			}
+			for (boolean inv : new boolean[] { false, true }) {
+				Convolution2.FastFourierTransform.fft(new double[][] { re, im }, inv);
+				Convolution2.FastFourierTransform.fft(p, inv);
+				for (int i = 0; i < n; i++) {
+					assertEquals(re[i], p[i << 1], 1e-6 * n);
+					assertEquals(im[i], p[i << 1 | 1], 1e-6 * n);
+				}
+			}
+		}
+	}
+
+	/**
+	 * SIMD の実装は演算の順序がスカラーの実装と同じため、実部と虚部を分けた配列の変換と完全に一致する
+	 */
+	@Test
+	void fftVector() {
+		assumeTrue(null != Convolution2.FastFourierTransform.VECTOR, "jdk.incubator.vector is not available");
+		Random random = new Random();
+		for (int k = 0; k <= 14; k++) {
+			int n = 1 << k;
+			double[] re = new double[n], im = new double[n], p = new double[n << 1];
+			for (int i = 0; i < n; i++) {
+				p[i << 1] = re[i] = random.nextInt(1 << 15);
+				p[i << 1 | 1] = im[i] = random.nextInt(1 << 15);
+			}
+			for (boolean inv : new boolean[] { false, true }) {
+				Convolution2.FastFourierTransform.fft(new double[][] { re, im }, inv);
+				Convolution2.FastFourierTransform.fft(p, inv);
+				for (int i = 0; i < n; i++) {
+					assertEquals(re[i], p[i << 1]);
+					assertEquals(im[i], p[i << 1 | 1]);
+				}
+			}
+		}
+	}
+
 	@Test
 	void simpleSMod() {
 		Random random = new Random();
@@ -1,6 +1,7 @@
 package convolution;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.Arrays;
 import java.util.Random;
@@ -54,6 +55,135 @@ class ConvolutionTest {
 		assertArrayEquals(convNaive(a, b, MOD), Convolution.convolution(a, b, MOD));
 	}
 
+	@Test
+	void midInt() {
+		int n = 1234, m = 2345;
+		Random random = new Random();
+		long[] a = new long[n], b = new long[m];
+		int[] ia = new int[n], ib = new int[m];
+
+		IntStream.range(0, n).forEach(i -> a[i] = ia[i] = random.nextInt());
+		IntStream.range(0, m).forEach(i -> b[i] = ib[i] = random.nextInt());
+		for (int v : new int[] { MOD, 754_974_721, 2_130_706_433 }) {
+			assertArrayEquals(convNaive(a, b, v), Arrays.stream(Convolution.convolution(ia, ib, v)).asLongStream()
+					.toArray());
+		}
+		assertArrayEquals(new int[] {}, Convolution.convolution(new int[] {}, new int[] { 1, 2 }, MOD));
+		assertArrayEquals(new int[] { 3, 10, 8 },
+				Convolution.convolution(new int[] { 0, 1, 2, 0 }, 1, 3, new int[] { 3, 4 }, 0, 2, MOD));
+	}
+
+	@Test
+	void parallel() {
+		int n = 70000, m = 80000;
+		Random random = new Random();
+		long[] a = new long[n], b = new long[m];
+		int[] ia = new int[n], ib = new int[m];
+
+		IntStream.range(0, n).forEach(i -> a[i] = ia[i] = random.nextInt());
+		IntStream.range(0, m).forEach(i -> b[i] = ib[i] = random.nextInt());
+		for (int v : new int[] { MOD, 2_130_706_433 }) {
+			assertArrayEquals(Convolution.convolution(a, b, v), Convolution.convolutionParallel(a, b, v));
+			assertArrayEquals(Convolution.convolution(ia, ib, v), Convolution.convolutionParallel(ia, ib, v));
+		}
+		assertArrayEquals(convNaive(Arrays.copyOf(a, 1000), Arrays.copyOf(b, 2000), MOD),
+				Convolution.convolutionParallel(a, 0, 1000, b, 0, 2000, MOD));
+	}
+
+	/**
+	 * 変換の長さがちょうど PARALLEL_THRESHOLD の場合も、逆変換まで並列に計算した結果が逐次の結果と一致する
+	 */
+	@Test
+	void parallelThreshold() {
+		Random random = new Random();
+		int z = NumberTheoreticTransform.PARALLEL_THRESHOLD;
+		for (int n : new int[] { z / 2, z / 2 + 1 }) {
+			int m = z - n + 1;
+			long[] a = random.longs(n, 0, MOD).toArray(), b = random.longs(m, 0, MOD).toArray();
+			int[] ia = random.ints(n, 0, MOD).toArray(), ib = random.ints(m, 0, MOD).toArray();
+			assertArrayEquals(Convolution.convolution(a, b, MOD), Convolution.convolutionParallel(a, b, MOD));
+			assertArrayEquals(Convolution.convolution(ia, ib, MOD), Convolution.convolutionParallel(ia, ib, MOD));
+		}
+	}
+
+	@Test
+	void window() {
+		Random random = new Random();
+		for (int v : new int[] { MOD, 2_130_706_433 }) {
+			for (int k = 0; k < 20; k++) {
+				int n = 1 + random.nextInt(500), m = 1 + random.nextInt(500);
+				long[] a = new long[n], b = new long[m];
+				int[] ia = new int[n], ib = new int[m];
+				IntStream.range(0, n).forEach(i -> a[i] = ia[i] = random.nextInt());
+				IntStream.range(0, m).forEach(i -> b[i] = ib[i] = random.nextInt());
+				long[] c = convNaive(a, b, v);
+				int from = random.nextInt(n + m + 5), to = from + random.nextInt(n + m + 5);
+				long[] expected = new long[to - from];
+				for (int i = from; i < Math.min(to, c.length); i++) {
+					expected[i - from] = c[i];
+				}
+				assertArrayEquals(expected, Convolution.convolutionWindow(a, 0, n, b, 0, m, from, to, v));
+				assertArrayEquals(expected, Arrays.stream(Convolution.convolutionWindow(ia, 0, n, ib, 0, m, from, to, v))
+						.asLongStream().toArray());
+				assertArrayEquals(Arrays.copyOf(c, to), Convolution.convolutionTruncated(a, b, to, v));
+				long[] big = n >= m ? a : b, small = n >= m ? b : a;
+				assertArrayEquals(Arrays.copyOfRange(c, small.length - 1, big.length),
+						Convolution.convolutionMiddle(big, small, v));
+			}
+		}
+		assertThrows(IllegalArgumentException.class,
+				() -> Convolution.convolutionMiddle(new long[] { 1L }, new long[] { 1L, 2L }, MOD));
+		assertThrows(IllegalArgumentException.class,
+				() -> Convolution.convolutionWindow(new long[] { 1L }, 0, 1, new long[] { 1L }, 0, 1, 2, 1, MOD));
+	}
+
+	@Test
+	void arbitraryMod() {
+		Random random = new Random();
+		for (int v : new int[] { 1, 2, 1_000_000_007, Integer.MAX_VALUE }) {
+			int n = 1 + random.nextInt(1000), m = 1 + random.nextInt(1000);
+			long[] a = new long[n], b = new long[m];
+			int[] ia = new int[n], ib = new int[m];
+			IntStream.range(0, n).forEach(i -> a[i] = ia[i] = random.nextInt(v));
+			IntStream.range(0, m).forEach(i -> b[i] = ib[i] = random.nextInt(v));
+			long[] c = new long[(n + m) - 1];
+			IntStream.range(0, n).forEach(i -> IntStream.range(0, m)
+					.forEach(j -> c[i + j] = (c[i + j] + a[i] * b[j] % v) % v));
+			assertArrayEquals(c, Convolution.convolutionArbitraryMod(a, b, v));
+			assertArrayEquals(c, Arrays.stream(Convolution.convolutionArbitraryMod(ia, ib, v)).asLongStream().toArray());
+		}
+		long[] a = { -1L, Long.MIN_VALUE };
+		long[] ra = Arrays.stream(a).map(x -> Convolution.safeMod(x, 1_000_000_007)).toArray();
+		assertArrayEquals(convNaive(ra, ra, 1_000_000_007), Convolution.convolutionArbitraryMod(a, a, 1_000_000_007));
+		assertThrows(IllegalArgumentException.class,
+				() -> Convolution.convolutionArbitraryMod(new long[] { 1L }, new long[] { 1L }, 0));
+	}
+
+	@Test
+	void batch() {
+		Random random = new Random();
+		int k = 300;
+		long[][] a = new long[k][], b = new long[k][];
+		int[][] ia = new int[k][], ib = new int[k][];
+		for (int i = 0; i < k; i++) {
+			a[i] = random.longs(random.nextInt(2000), 0, MOD).toArray();
+			b[i] = random.longs(random.nextInt(100), 0, MOD).toArray();
+			ia[i] = Arrays.stream(a[i]).mapToInt(x -> (int) x).toArray();
+			ib[i] = Arrays.stream(b[i]).mapToInt(x -> (int) x).toArray();
+		}
+		long[][] c = Convolution.convolutionBatch(a, b, MOD), pc = Convolution.convolutionBatchParallel(a, b, MOD);
+		int[][] ic = Convolution.convolutionBatch(ia, ib, MOD), ipc = Convolution.convolutionBatchParallel(ia, ib, MOD);
+		for (int i = 0; i < k; i++) {
+			long[] expected = Convolution.convolution(a[i], b[i], MOD);
+			assertArrayEquals(expected, c[i]);
+			assertArrayEquals(expected, pc[i]);
+			assertArrayEquals(expected, Arrays.stream(ic[i]).asLongStream().toArray());
+			assertArrayEquals(expected, Arrays.stream(ipc[i]).asLongStream().toArray());
+		}
+		assertThrows(IllegalArgumentException.class,
+				() -> Convolution.convolutionBatch(new long[1][], new long[2][], MOD));
+	}
+
 	@Test
 	void simpleSMod() {
 		Random random = new Random();
@@ -114,6 +244,24 @@ class ConvolutionTest {
 		}));
 	}
 
+	@Test
+	void convLLParallel() {
+		Random random = new Random();
+		IntStream.range(1, 20).forEach(n -> IntStream.range(1, 20).forEach(m -> {
+			long[] a = new long[n], b = new long[m];
+			IntStream.range(0, n).forEach(i -> a[i] = (random.nextInt() % 1_000_000L) - 500_000L);
+			IntStream.range(0, m).forEach(i -> b[i] = (random.nextInt() % 1_000_000L) - 500_000L);
+			assertArrayEquals(convLongNaive(a, b), Convolution.convolutionLongParallel(a, b));
+		}));
+		int n = 70000, m = 80000;
+		long[] a = new long[n], b = new long[m];
+		IntStream.range(0, n).forEach(i -> a[i] = (random.nextInt() % 1_000_000L) - 500_000L);
+		IntStream.range(0, m).forEach(i -> b[i] = (random.nextInt() % 1_000_000L) - 500_000L);
+		assertArrayEquals(Convolution.convolutionLong(a, b), Convolution.convolutionLongParallel(a, b));
+		assertArrayEquals(convLongNaive(Arrays.copyOfRange(a, 10, 500), Arrays.copyOfRange(b, 20, 700)),
+				Convolution.convolutionLongParallel(a, 10, 500, b, 20, 700));
+	}
+
 	@Test
 	void convLLBound() {
 		final long MOD1 = 469762049; // 2^26
@@ -0,0 +1,157 @@
+package convolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ConvolutionThresholdsTest {
+
+	private static final int MOD = 998_244_353;
+
+	@Test
+	void choose() {
+		ConvolutionThresholds t = ConvolutionThresholds.DEFAULT;
+		assertEquals(ConvolutionThresholds.Method.NAIVE, t.choose(60, 1000));
+		assertEquals(ConvolutionThresholds.Method.NTT, t.choose(61, 61));
+		assertEquals(0, ConvolutionThresholds.shape(5, 9));
+		assertEquals(1, ConvolutionThresholds.shape(10, 5));
+		assertEquals(ConvolutionThresholds.SHAPES - 1, ConvolutionThresholds.shape(1, 1 << 20));
+
+		int[] naive = new int[ConvolutionThresholds.SHAPES], karatsuba = new int[ConvolutionThresholds.SHAPES];
+		Arrays.fill(naive, 10);
+		Arrays.fill(karatsuba, 100);
+		t = new ConvolutionThresholds(naive, karatsuba);
+		assertEquals(ConvolutionThresholds.Method.NAIVE, t.choose(10, 10));
+		assertEquals(ConvolutionThresholds.Method.KARATSUBA, t.choose(11, 500));
+		assertEquals(ConvolutionThresholds.Method.NTT, t.choose(101, 101));
+		assertTrue(t.isNaive(10, 1000));
+		assertTrue(t.isNaiveFft(50, 50));
+		assertFalse(t.isNaiveFft(51, 51));
+		t = new ConvolutionThresholds(naive, karatsuba, naive);
+		assertTrue(t.isNaiveFft(10, 1000));
+		assertFalse(t.isNaiveFft(11, 11));
+		assertThrows(IllegalArgumentException.class, () -> new ConvolutionThresholds(naive, karatsuba, new int[1]));
+
+		karatsuba[3] = 9;
+		assertThrows(IllegalArgumentException.class, () -> new ConvolutionThresholds(naive, karatsuba));
+		assertThrows(IllegalArgumentException.class, () -> new ConvolutionThresholds(new int[1], new int[1]));
+	}
+
+	@Test
+	void karatsuba() {
+		Random random = new Random();
+		NumberTheoreticTransform ntt = NumberTheoreticTransform.of(MOD);
+		for (int n = 1; n <= 300; n += 37) {
+			for (int m = 1; m <= 700; m += 113) {
+				long[] a = random.longs(n, 0, MOD).toArray(), b = random.longs(m, 0, MOD).toArray();
+				long[] expected = ntt.convolutionWith(a, 0, n, b, 0, m, ConvolutionThresholds.Method.NAIVE);
+				assertArrayEquals(expected, ntt.convolutionWith(a, 0, n, b, 0, m, ConvolutionThresholds.Method.KARATSUBA));
+				assertArrayEquals(expected, ntt.convolutionWith(a, 0, n, b, 0, m, ConvolutionThresholds.Method.NTT));
+
+				int[] ia = random.ints(n).toArray(), ib = random.ints(m).toArray();
+				int[] c = new int[n + m - 1];
+				Karatsuba.convolution(ia, 0, n, ib, 0, m, MOD, c, 0);
+				assertArrayEquals(ntt.convolution(ia, 0, n, ib, 0, m), c);
+			}
+		}
+	}
+
+	/**
+	 * 2^31 に近い mod でも愚直な計算の部分で long がオーバーフローしない
+	 */
+	@Test
+	void karatsubaLargeMod() {
+		Random random = new Random();
+		for (int mod : new int[] { Integer.MAX_VALUE, 1_000_000_007, 2, 1 }) {
+			for (int n = 1; n <= 300; n += 37) {
+				for (int m = 1; m <= 700; m += 113) {
+					long[] a = random.longs(n, 0, mod).toArray(), b = random.longs(m, 0, mod).toArray();
+					// 剰余を取る前の最大値で、オーバーフローしやすくする
+					a[0] = mod - 1;
+					b[0] = mod - 1;
+					long[] expected = convolutionNaive(a, b, mod);
+					long[] c = new long[n + m - 1];
+					Karatsuba.convolution(a, 0, n, b, 0, m, mod, c, 0);
+					assertArrayEquals(expected, c);
+
+					int[] ia = Arrays.stream(a).mapToInt(x -> (int) x).toArray();
+					int[] ib = Arrays.stream(b).mapToInt(x -> (int) x).toArray();
+					int[] ic = new int[n + m - 1];
+					Karatsuba.convolution(ia, 0, n, ib, 0, m, mod, ic, 0);
+					assertArrayEquals(Arrays.stream(expected).mapToInt(x -> (int) x).toArray(), ic);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 積ごとに剰余を取る愚直な畳み込み
+	 */
+	private static long[] convolutionNaive(long[] a, long[] b, int mod) {
+		long[] c = new long[a.length + b.length - 1];
+		for (int i = 0; i < a.length; i++) {
+			for (int j = 0; j < b.length; j++) {
+				c[i + j] = (c[i + j] + a[i] * b[j] % mod) % mod;
+			}
+		}
+		return c;
+	}
+
+	@Test
+	void convolutionWithKaratsuba() {
+		int[] naive = new int[ConvolutionThresholds.SHAPES], karatsuba = new int[ConvolutionThresholds.SHAPES];
+		Arrays.fill(naive, 16);
+		Arrays.fill(karatsuba, 1000);
+		ConvolutionThresholds saved = ConvolutionThresholds.get();
+		Random random = new Random();
+		long[] a = random.longs(300, 0, MOD).toArray(), b = random.longs(700, 0, MOD).toArray();
+		long[] expected = Convolution.convolution(a, b, MOD);
+		try {
+			ConvolutionThresholds.set(new ConvolutionThresholds(naive, karatsuba));
+			assertArrayEquals(expected, Convolution.convolution(a, b, MOD));
+		} finally {
+			ConvolutionThresholds.set(saved);
+		}
+	}
+
+	@Test
+	void convolution2Thresholds() {
+		int[] fftNaive = new int[ConvolutionThresholds.SHAPES];
+		ConvolutionThresholds saved = ConvolutionThresholds.get();
+		Random random = new Random();
+		for (int v : new int[] { MOD, 1_000_000_007 }) {
+			int[] a = random.ints(30, 0, v).toArray(), b = random.ints(40, 0, v).toArray();
+			int[] expected = Convolution2.convolution(a, b, v);
+			try {
+				// 短い配列も FFT で計算させる
+				ConvolutionThresholds.set(new ConvolutionThresholds(saved.naive(), saved.karatsuba(), fftNaive));
+				assertArrayEquals(expected, Convolution2.convolution(a, b, v));
+			} finally {
+				ConvolutionThresholds.set(saved);
+			}
+			assertArrayEquals(expected, Convolution2.convolutionWith(a, b, v, false));
+			assertArrayEquals(expected, Convolution2.convolutionWith(a, b, v, true));
+		}
+	}
+
+	@Test
+	void calibrate() {
+		ConvolutionThresholds t = ConvolutionThresholds.calibrate(MOD, 64);
+		int[] naive = t.naive(), karatsuba = t.karatsuba();
+		for (int s = 0; s < ConvolutionThresholds.SHAPES; s++) {
+			assertTrue(naive[s] <= karatsuba[s]);
+			assertTrue(karatsuba[s] <= 64);
+		}
+		for (int x : t.fftNaive()) {
+			assertTrue((0 <= x) && (x <= 64));
+		}
+		assertThrows(IllegalArgumentException.class, () -> ConvolutionThresholds.calibrate(MOD, 0));
+	}
+}
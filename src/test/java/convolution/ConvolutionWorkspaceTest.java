@@ -0,0 +1,62 @@
+package convolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class ConvolutionWorkspaceTest {
+
+	private static final int MOD = 998_244_353;
+
+	@Test
+	void empty() {
+		ConvolutionWorkspace workspace = new ConvolutionWorkspace();
+		long[] out = { 1L, 2L };
+		assertEquals(0, workspace.convolution(new long[] {}, new long[] { 1L, 2L }, MOD, out));
+		assertArrayEquals(new long[] { 1L, 2L }, out);
+		assertEquals(0, workspace.convolution(new int[] {}, new int[] {}, MOD, new int[0]));
+	}
+
+	@Test
+	void invalid() {
+		ConvolutionWorkspace workspace = new ConvolutionWorkspace();
+		assertThrows(IllegalArgumentException.class,
+				() -> workspace.convolution(new long[] { 1L, 2L }, new long[] { 1L, 2L }, MOD, new long[2]));
+		assertThrows(IllegalArgumentException.class, () -> workspace.convolution(new long[] { 1L, 2L }, 0, 2,
+				new long[] { 1L, 2L }, 0, 2, MOD, new long[4], 2));
+		assertThrows(IllegalArgumentException.class,
+				() -> workspace.convolution(new int[] { 1 }, 0, 2, new int[] { 1 }, 0, 1, MOD, new int[4], 0));
+	}
+
+	@Test
+	void reuse() {
+		Random random = new Random();
+		ConvolutionWorkspace workspace = new ConvolutionWorkspace();
+		for (int v : new int[] { MOD, 754_974_721, 2_130_706_433, MOD }) {
+			for (int k = 0; k < 20; k++) {
+				int n = 1 + random.nextInt(2000), m = 1 + random.nextInt(2000), offset = random.nextInt(10);
+				long[] a = new long[n], b = new long[m];
+				int[] ia = new int[n], ib = new int[m];
+				IntStream.range(0, n).forEach(i -> a[i] = ia[i] = random.nextInt());
+				IntStream.range(0, m).forEach(i -> b[i] = ib[i] = random.nextInt());
+				long[] out = new long[offset + n + m + 5];
+				int[] iout = new int[offset + n + m + 5];
+				Arrays.fill(out, -1L);
+				Arrays.fill(iout, -1);
+				assertEquals(n + m - 1, workspace.convolution(a, 0, n, b, 0, m, v, out, offset));
+				assertEquals(n + m - 1, workspace.convolution(ia, 0, n, ib, 0, m, v, iout, offset));
+				assertArrayEquals(Convolution.convolution(a, b, v), Arrays.copyOfRange(out, offset, offset + n + m - 1));
+				assertArrayEquals(Convolution.convolution(ia, ib, v),
+						Arrays.copyOfRange(iout, offset, offset + n + m - 1));
+				assertEquals(-1L, out[offset + n + m - 1]);
+				assertEquals(-1, iout[offset + n + m - 1]);
+			}
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package convolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class FormalPowerSeriesTest {
+
+	private static final int MOD = 998_244_353;
+
+	@Test
+	void invalid() {
+		assertThrows(IllegalArgumentException.class, () -> FormalPowerSeries.inv(new long[] { 0L, 1L }, 2, MOD));
+		assertThrows(IllegalArgumentException.class, () -> FormalPowerSeries.inv(new long[] { 1L }, -1, MOD));
+		assertThrows(IllegalArgumentException.class, () -> FormalPowerSeries.log(new long[] { 2L }, 2, MOD));
+		assertThrows(IllegalArgumentException.class, () -> FormalPowerSeries.exp(new long[] { 1L }, 2, MOD));
+		assertThrows(IllegalArgumentException.class, () -> FormalPowerSeries.pow(new long[] { 1L }, -1L, 2, MOD));
+		assertThrows(IllegalArgumentException.class,
+				() -> FormalPowerSeries.divMod(new long[] { 1L }, new long[] { 0L, MOD }, MOD));
+	}
+
+	@Test
+	void inv() {
+		Random random = new Random();
+		for (int n : new int[] { 0, 1, 2, 3, 10, 100, 1000 }) {
+			long[] a = random(random, 1 + random.nextInt(n + 1));
+			a[0] = 1 + random.nextInt(MOD - 1);
+			long[] b = FormalPowerSeries.inv(a, n, MOD);
+			assertEquals(n, b.length);
+			long[] c = truncate(convNaive(a, b), n);
+			for (int i = 0; i < n; i++) {
+				assertEquals((0 == i) ? 1L : 0L, c[i]);
+			}
+		}
+	}
+
+	@Test
+	void logExp() {
+		Random random = new Random();
+		for (int n : new int[] { 0, 1, 2, 5, 64, 1000 }) {
+			long[] a = random(random, n);
+			if (0 < n) {
+				a[0] = 0L;
+			}
+			long[] e = FormalPowerSeries.exp(a, n, MOD);
+			assertArrayEquals(a, FormalPowerSeries.log(e, n, MOD));
+			// exp(a)' = a' exp(a)
+			long[] de = new long[Math.max(0, n - 1)], da = new long[Math.max(0, n - 1)];
+			for (int i = 1; i < n; i++) {
+				de[i - 1] = e[i] * i % MOD;
+				da[i - 1] = a[i] * i % MOD;
+			}
+			assertArrayEquals(de, truncate(convNaive(da, e), de.length));
+		}
+	}
+
+	@Test
+	void pow() {
+		Random random = new Random();
+		for (int k = 0; k < 50; k++) {
+			int n = random.nextInt(80), z = random.nextInt(5);
+			long e = random.nextInt(12);
+			long[] a = random(random, n);
+			Arrays.fill(a, 0, Math.min(z, n), 0L);
+			long[] expected = new long[n];
+			if (0 < n) {
+				expected[0] = 1L;
+			}
+			for (int i = 0; i < e; i++) {
+				expected = truncate(convNaive(expected, a), n);
+			}
+			assertArrayEquals(expected, FormalPowerSeries.pow(a, e, n, MOD));
+		}
+		long[] zero = FormalPowerSeries.pow(new long[] { 0L, 1L }, Long.MAX_VALUE, 10, MOD);
+		assertArrayEquals(new long[10], zero);
+	}
+
+	@Test
+	void sqrt() {
+		Random random = new Random();
+		for (int k = 0; k < 50; k++) {
+			int n = 1 + random.nextInt(300), z = random.nextInt(4);
+			long[] g = random(random, n);
+			Arrays.fill(g, 0, Math.min(z, n), 0L);
+			long[] a = truncate(convNaive(g, g), n);
+			long[] s = FormalPowerSeries.sqrt(a, n, MOD);
+			assertArrayEquals(a, truncate(convNaive(s, s), n));
+		}
+		assertNull(FormalPowerSeries.sqrt(new long[] { 0L, 1L }, 3, MOD));
+		// 3 は 998244353 の平方非剰余
+		assertNull(FormalPowerSeries.sqrt(new long[] { 3L }, 3, MOD));
+		assertEquals(-1L, FormalPowerSeries.sqrtMod(3L, MOD));
+		long r = FormalPowerSeries.sqrtMod(4L, MOD);
+		assertEquals(4L, r * r % MOD);
+	}
+
+	@Test
+	void divMod() {
+		Random random = new Random();
+		for (int k = 0; k < 50; k++) {
+			int n = random.nextInt(500), m = 1 + random.nextInt(300);
+			long[] a = random(random, n), b = random(random, m);
+			b[m - 1] = 1 + random.nextInt(MOD - 1);
+			long[][] qr = FormalPowerSeries.divMod(a, b, MOD);
+			assertEquals(m - 1, qr[1].length);
+			long[] bq = convNaive(b, qr[0]);
+			long[] c = new long[Math.max(n, m - 1)];
+			for (int i = 0; i < c.length; i++) {
+				c[i] = ((i < bq.length) ? bq[i] : 0L) + ((i < m - 1) ? qr[1][i] : 0L);
+				c[i] %= MOD;
+			}
+			assertArrayEquals(Arrays.copyOf(a, c.length), c);
+		}
+	}
+
+	@Test
+	void multipointEvaluation() {
+		Random random = new Random();
+		for (int k = 0; k < 10; k++) {
+			int n = random.nextInt(300), m = random.nextInt(300);
+			long[] a = random(random, n), xs = random(random, m);
+			long[] ans = FormalPowerSeries.multipointEvaluation(a, xs, MOD);
+			for (int i = 0; i < m; i++) {
+				long y = 0L;
+				for (int j = n - 1; j >= 0; j--) {
+					y = (y * xs[i] + a[j]) % MOD;
+				}
+				assertEquals(y, ans[i]);
+			}
+		}
+	}
+
+	private static long[] random(Random random, int n) {
+		return random.longs(n, 0, MOD).toArray();
+	}
+
+	private static long[] truncate(long[] a, int n) {
+		return Arrays.copyOf(a, n);
+	}
+
+	private static long[] convNaive(long[] a, long[] b) {
+		if ((0 == a.length) || (0 == b.length)) {
+			return new long[0];
+		}
+		long[] c = new long[a.length + b.length - 1];
+		for (int i = 0; i < a.length; i++) {
+			for (int j = 0; j < b.length; j++) {
+				c[i + j] = (c[i + j] + a[i] * b[j]) % MOD;
+			}
+		}
+		return c;
+	}
+}
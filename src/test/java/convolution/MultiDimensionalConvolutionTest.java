@@ -0,0 +1,143 @@
+package convolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class MultiDimensionalConvolutionTest {
+
+	private static final int MOD = 998_244_353;
+
+	/**
+	 * 畳み込みの結果の窓 [fromIndex, toIndex) を愚直に計算する
+	 */
+	long[] naive(long[] a, int[] aShape, long[] b, int[] bShape, int[] fromIndex, int[] toIndex, int m) {
+		int k = aShape.length;
+		int[] windowShape = new int[k];
+		int size = 1;
+		for (int d = 0; d < k; d++) {
+			windowShape[d] = toIndex[d] - fromIndex[d];
+			size *= windowShape[d];
+		}
+		long[] c = new long[size];
+		for (int i = 0; i < a.length; i++) {
+			for (int j = 0; j < b.length; j++) {
+				int p = 0, x = i, y = j;
+				int[] coord = new int[k];
+				for (int d = k - 1; d >= 0; d--) {
+					coord[d] = x % aShape[d] + y % bShape[d];
+					x /= aShape[d];
+					y /= bShape[d];
+				}
+				boolean inside = true;
+				for (int d = 0; d < k; d++) {
+					inside &= (fromIndex[d] <= coord[d]) && (coord[d] < toIndex[d]);
+					p = p * Math.max(windowShape[d], 1) + coord[d] - fromIndex[d];
+				}
+				if (inside) {
+					c[p] = Convolution.safeMod(c[p] + Convolution.safeMod(a[i], m) * Convolution.safeMod(b[j], m), m);
+				}
+			}
+		}
+		return c;
+	}
+
+	@Test
+	void compareNaive() {
+		Random random = new Random();
+		for (int m : new int[] { MOD, 754_974_721, 2_130_706_433 }) {
+			for (int t = 0; t < 30; t++) {
+				int k = 1 + random.nextInt(3);
+				int[] aShape = new int[k], bShape = new int[k], full = new int[k];
+				for (int d = 0; d < k; d++) {
+					aShape[d] = 1 + random.nextInt(9);
+					bShape[d] = 1 + random.nextInt(9);
+					full[d] = aShape[d] + bShape[d] - 1;
+				}
+				long[] a = random.longs(MultiDimensionalConvolutionTest.size(aShape)).toArray();
+				long[] b = random.longs(MultiDimensionalConvolutionTest.size(bShape)).toArray();
+				assertArrayEquals(naive(a, aShape, b, bShape, new int[k], full, m),
+						MultiDimensionalConvolution.convolution(a, aShape, b, bShape, m));
+
+				int[] fromIndex = new int[k], toIndex = new int[k];
+				for (int d = 0; d < k; d++) {
+					fromIndex[d] = random.nextInt(full[d] + 1);
+					toIndex[d] = fromIndex[d] + random.nextInt(full[d] + 3 - fromIndex[d]);
+				}
+				assertArrayEquals(naive(a, aShape, b, bShape, fromIndex, toIndex, m),
+						MultiDimensionalConvolution.convolution(a, aShape, b, bShape, fromIndex, toIndex, m));
+			}
+		}
+	}
+
+	@Test
+	void twoDimensional() {
+		Random random = new Random();
+		long[][] a = new long[37][53], b = new long[21][5];
+		for (long[] row : a) {
+			for (int j = 0; j < row.length; j++) {
+				row[j] = random.nextInt(MOD);
+			}
+		}
+		for (long[] row : b) {
+			for (int j = 0; j < row.length; j++) {
+				row[j] = random.nextInt(MOD);
+			}
+		}
+		long[][] c = MultiDimensionalConvolution.convolution(a, b, MOD);
+		long[] flat = naive(flatten(a), new int[] { 37, 53 }, flatten(b), new int[] { 21, 5 }, new int[2],
+				new int[] { 57, 57 }, MOD);
+		for (int i = 0; i < 57; i++) {
+			assertArrayEquals(Arrays.copyOfRange(flat, i * 57, (i + 1) * 57), c[i]);
+		}
+		long[][] w = MultiDimensionalConvolution.convolution(a, b, 20, 40, 4, 53, MOD);
+		for (int i = 0; i < 20; i++) {
+			assertArrayEquals(Arrays.copyOfRange(c[i + 20], 4, 53), w[i]);
+		}
+		assertArrayEquals(new long[0][], MultiDimensionalConvolution.convolution(new long[0][], b, MOD));
+	}
+
+	@Test
+	void parallel() {
+		Random random = new Random();
+		int[] aShape = { 200, 300 }, bShape = { 100, 150 };
+		long[] a = random.longs(200 * 300, 0, MOD).toArray(), b = random.longs(100 * 150, 0, MOD).toArray();
+		long[] expected = MultiDimensionalConvolution.convolution(a, aShape, b, bShape, MOD);
+		assertArrayEquals(expected, MultiDimensionalConvolution.convolutionParallel(a, aShape, b, bShape, MOD));
+		// 1 行目は 1 次元の畳み込みと一致する
+		long[] row = Convolution.convolution(Arrays.copyOf(a, 300), Arrays.copyOf(b, 150), MOD);
+		assertArrayEquals(row, Arrays.copyOf(expected, 449));
+	}
+
+	@Test
+	void invalid() {
+		assertThrows(IllegalArgumentException.class, () -> MultiDimensionalConvolution.convolution(new long[6],
+				new int[] { 2, 3 }, new long[2], new int[] { 2 }, MOD));
+		assertThrows(IllegalArgumentException.class, () -> MultiDimensionalConvolution.convolution(new long[5],
+				new int[] { 2, 3 }, new long[2], new int[] { 2, 1 }, MOD));
+		assertThrows(IllegalArgumentException.class, () -> MultiDimensionalConvolution.convolution(new long[6],
+				new int[] { 2, 3 }, new long[2], new int[] { 2, 1 }, new int[] { 1, 2 }, new int[] { 0, 3 }, MOD));
+		assertThrows(IllegalArgumentException.class, () -> MultiDimensionalConvolution.convolution(
+				new long[][] { { 1L }, { 1L, 2L } }, new long[][] { { 1L } }, MOD));
+	}
+
+	static int size(int[] shape) {
+		int size = 1;
+		for (int x : shape) {
+			size *= x;
+		}
+		return size;
+	}
+
+	static long[] flatten(long[][] a) {
+		long[] flat = new long[a.length * a[0].length];
+		for (int i = 0; i < a.length; i++) {
+			System.arraycopy(a[i], 0, flat, i * a[0].length, a[0].length);
+		}
+		return flat;
+	}
+}
@@ -0,0 +1,154 @@
+package convolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class NumberTheoreticTransformTest {
+
+	long[] convNaive(long[] a, long[] b, int v) {
+		int n = a.length, m = b.length;
+		long[] c = new long[(n + m) - 1];
+		IntStream.range(0, n).forEach(
+				i -> IntStream.range(0, m).forEach(j -> c[i + j] = Convolution.safeMod(c[i + j] + a[i] * b[j], v)));
+		return c;
+	}
+
+	@Test
+	void invalid() {
+		assertThrows(IllegalArgumentException.class, () -> NumberTheoreticTransform.of(0));
+	}
+
+	@Test
+	void cache() {
+		assertSame(NumberTheoreticTransform.of(998_244_353), NumberTheoreticTransform.of(998_244_353));
+		// キャッシュの上限を超える数の mod を使用する
+		IntStream.range(3, 200).filter(i -> IntStream.range(2, i).allMatch(j -> 0 != (i % j)))
+				.forEach(i -> NumberTheoreticTransform.of(i));
+		NumberTheoreticTransform ntt = NumberTheoreticTransform.of(754_974_721);
+		assertSame(ntt, NumberTheoreticTransform.of(754_974_721));
+	}
+
+	@Test
+	void butterfly() {
+		final int MOD = 998_244_353;
+		Random random = new Random();
+		NumberTheoreticTransform ntt = NumberTheoreticTransform.of(MOD);
+		for (int z = 1; z <= (1 << 12); z <<= 1) {
+			long[] a = new long[z];
+			IntStream.range(0, z).forEach(i -> a[i] = random.nextInt(MOD));
+			long[] b = a.clone();
+			ntt.butterfly(b);
+			ntt.butterflyInv(b);
+			long iz = Convolution.invMod(z, MOD);
+			IntStream.range(0, z).forEach(i -> b[i] = b[i] * iz % MOD);
+			assertArrayEquals(a, b);
+		}
+	}
+
+	@Test
+	void montgomery() {
+		final int[] MODS = { 998_244_353, 754_974_721, 167_772_161, 469_762_049, 641, 18_433 };
+		Random random = new Random();
+		for (int MOD : MODS) {
+			NumberTheoreticTransform ntt = NumberTheoreticTransform.of(MOD);
+			for (int z = 1; z <= (1 << 14); z <<= 1) {
+				if (z > (1 << ntt.rank2)) {
+					break;
+				}
+				long[] a = new long[z];
+				IntStream.range(0, z).forEach(i -> a[i] = MOD - 1 - random.nextInt(Math.min(MOD, 3)));
+				long[] b = a.clone();
+				ntt.butterflySafeMod(a);
+				ntt.butterfly(b);
+				assertArrayEquals(a, b);
+				ntt.butterflyInvSafeMod(a);
+				ntt.butterflyInv(b);
+				assertArrayEquals(a, b);
+			}
+		}
+	}
+
+	@Test
+	void vector() {
+		assumeTrue(null != NumberTheoreticTransform.VECTOR, "jdk.incubator.vector is not available");
+		Random random = new Random();
+		for (int MOD : new int[] { 998_244_353, 754_974_721, 167_772_161 }) {
+			NumberTheoreticTransform ntt = NumberTheoreticTransform.of(MOD);
+			for (int z = 1; z <= (1 << 14); z <<= 1) {
+				int[] a = random.ints(z, 0, 2 * MOD).toArray();
+				long[] b = IntStream.of(a).asLongStream().map(x -> x % MOD).toArray();
+				ntt.butterflyMontgomery(a);
+				ntt.butterflySafeMod(b);
+				assertArrayEquals(b, IntStream.of(a).asLongStream().map(x -> x % MOD).toArray());
+				ntt.butterflyInvMontgomery(a);
+				ntt.butterflyInvSafeMod(b);
+				assertArrayEquals(b, IntStream.of(a).asLongStream().map(x -> x % MOD).toArray());
+			}
+		}
+	}
+
+	@Test
+	void parallel() {
+		final int MOD = 998_244_353;
+		Random random = new Random();
+		NumberTheoreticTransform ntt = NumberTheoreticTransform.of(MOD);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int z = NumberTheoreticTransform.PARALLEL_THRESHOLD; z <= (1 << 18); z <<= 1) {
+				int[] a = new int[z];
+				IntStream.range(0, z).forEach(i -> a[i] = random.nextInt(MOD));
+				int[] b = a.clone();
+				ntt.butterflyMontgomery(a);
+				ntt.butterflyMontgomery(b, pool);
+				assertArrayEquals(a, b);
+				ntt.butterflyInvMontgomery(a);
+				ntt.butterflyInvMontgomery(b, pool);
+				assertArrayEquals(a, b);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void concurrent() throws Exception {
+		final int[] MODS = { 998_244_353, 754_974_721, 167_772_161, 469_762_049 };
+		ExecutorService executor = Executors.newFixedThreadPool(MODS.length);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < MODS.length * 4; t++) {
+				final int MOD = MODS[t % MODS.length];
+				final long seed = t;
+				futures.add(executor.submit(() -> {
+					Random random = new Random(seed);
+					for (int k = 0; k < 10; k++) {
+						int n = 100 + random.nextInt(300), m = 100 + random.nextInt(300);
+						long[] a = new long[n], b = new long[m];
+						IntStream.range(0, n).forEach(i -> a[i] = random.nextInt(MOD));
+						IntStream.range(0, m).forEach(i -> b[i] = random.nextInt(MOD));
+						assertArrayEquals(convNaive(a, b, MOD), Convolution.convolution(a, b, MOD));
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
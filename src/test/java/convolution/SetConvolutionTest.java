@@ -0,0 +1,105 @@
+package convolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import java.util.function.IntBinaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+class SetConvolutionTest {
+
+	private static final int MOD = 998_244_353;
+
+	int[] naive(int[] a, int[] b, int m, IntBinaryOperator index) {
+		int[] c = new int[a.length];
+		for (int i = 0; i < a.length; i++) {
+			for (int j = 0; j < b.length; j++) {
+				int k = index.applyAsInt(i, j);
+				if ((0 <= k) && (k < c.length)) {
+					c[k] = (int) ((c[k] + Convolution.safeMod(a[i], m) * Convolution.safeMod(b[j], m)) % m);
+				}
+			}
+		}
+		return c;
+	}
+
+	static int gcd(int x, int y) {
+		return (0 == y) ? x : gcd(y, x % y);
+	}
+
+	static long lcm(int x, int y) {
+		return ((0 == x) || (0 == y)) ? 0L : (long) x / gcd(x, y) * y;
+	}
+
+	@Test
+	void bitwise() {
+		Random random = new Random();
+		for (int m : new int[] { MOD, 1_000_000_007, 3 }) {
+			for (int log = 0; log <= 8; log++) {
+				int n = 1 << log;
+				int[] a = random.ints(n).toArray(), b = random.ints(n).toArray();
+				assertArrayEquals(naive(a, b, m, (i, j) -> i ^ j), SetConvolution.xorConvolution(a, b, m));
+				assertArrayEquals(naive(a, b, m, (i, j) -> i & j), SetConvolution.andConvolution(a, b, m));
+				assertArrayEquals(naive(a, b, m, (i, j) -> i | j), SetConvolution.orConvolution(a, b, m));
+				assertArrayEquals(naive(a, b, m, (i, j) -> (0 == (i & j)) ? i | j : -1),
+						SetConvolution.subsetConvolution(a, b, m));
+			}
+		}
+		int[] a = random.ints(8).toArray(), b = random.ints(8).toArray();
+		assertArrayEquals(naive(a, b, 1 << 20, (i, j) -> i | j), SetConvolution.orConvolution(a, b, 1 << 20));
+	}
+
+	@Test
+	void divisor() {
+		Random random = new Random();
+		for (int m : new int[] { MOD, 1_000_000_007, 2 }) {
+			for (int n = 1; n <= 200; n += 13) {
+				int[] a = random.ints(n).toArray(), b = random.ints(n).toArray();
+				a[0] = 0;
+				b[0] = 0;
+				assertArrayEquals(naive(a, b, m, (i, j) -> (0 == i) || (0 == j) ? 0 : gcd(i, j)),
+						SetConvolution.gcdConvolution(a, b, m));
+				assertArrayEquals(naive(a, b, m, (i, j) -> (int) Math.min(lcm(i, j), Integer.MAX_VALUE)),
+						SetConvolution.lcmConvolution(a, b, m));
+			}
+		}
+	}
+
+	@Test
+	void parallel() {
+		Random random = new Random();
+		int n = SetConvolution.PARALLEL_THRESHOLD * 2;
+		int[] a = random.ints(n, 0, MOD).toArray(), b = random.ints(n, 0, MOD).toArray();
+		assertArrayEquals(SetConvolution.xorConvolution(a, b, MOD), SetConvolution.xorConvolutionParallel(a, b, MOD));
+		assertArrayEquals(SetConvolution.andConvolution(a, b, MOD), SetConvolution.andConvolutionParallel(a, b, MOD));
+		assertArrayEquals(SetConvolution.orConvolution(a, b, MOD), SetConvolution.orConvolutionParallel(a, b, MOD));
+		assertArrayEquals(SetConvolution.subsetConvolution(a, b, MOD),
+				SetConvolution.subsetConvolutionParallel(a, b, MOD));
+	}
+
+	@Test
+	void transform() {
+		Random random = new Random();
+		int[] a = random.ints(1 << 10, 0, MOD).toArray();
+		int[] b = a.clone();
+		SetConvolution.subsetZeta(b, MOD, null);
+		SetConvolution.subsetMobius(b, MOD, null);
+		assertArrayEquals(a, b);
+		SetConvolution.supersetZeta(b, MOD, null);
+		SetConvolution.supersetMobius(b, MOD, null);
+		assertArrayEquals(a, b);
+		assertArrayEquals(new int[] { 2, 3, 5, 7, 11, 13 }, SetConvolution.primes(14));
+	}
+
+	@Test
+	void invalid() {
+		assertThrows(IllegalArgumentException.class, () -> SetConvolution.xorConvolution(new int[3], new int[3], MOD));
+		assertThrows(IllegalArgumentException.class, () -> SetConvolution.orConvolution(new int[4], new int[2], MOD));
+		assertThrows(IllegalArgumentException.class, () -> SetConvolution.xorConvolution(new int[4], new int[4], 4));
+		assertThrows(IllegalArgumentException.class, () -> SetConvolution.andConvolution(new int[0], new int[0], MOD));
+		assertThrows(IllegalArgumentException.class, () -> SetConvolution.gcdConvolution(new int[3], new int[2], MOD));
+		assertThrows(IllegalArgumentException.class, () -> SetConvolution.lcmConvolution(new int[3], new int[3], 0));
+	}
+}
@@ -0,0 +1,41 @@
+package convolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class SixStepTransformTest {
+
+	@Test
+	void convolution() {
+		Random random = new Random();
+		for (int MOD : new int[] { 998_244_353, 754_974_721 }) {
+			NumberTheoreticTransform ntt = NumberTheoreticTransform.of(MOD);
+			for (int log = 0; log <= 15; log++) {
+				int z = 1 << log, n = (z + 1) / 2, m = z / 2 + 1 - ((1 == z) ? 1 : 0);
+				long[] a = random.longs(n, 0, MOD).toArray(), b = random.longs(m, 0, MOD).toArray();
+				int[] na = new int[z], nb = new int[z];
+				for (int i = 0; i < n; i++) {
+					na[i] = (int) a[i];
+				}
+				for (int i = 0; i < m; i++) {
+					nb[i] = (int) b[i];
+				}
+				SixStepTransform.butterfly(ntt, na);
+				SixStepTransform.butterfly(ntt, nb);
+				for (int i = 0; i < z; i++) {
+					na[i] = (int) ntt.reduce((long) na[i] * nb[i]);
+				}
+				SixStepTransform.butterflyInv(ntt, na);
+				long[] c = new long[n + m - 1];
+				for (int i = 0; i < c.length; i++) {
+					long x = ntt.reduce(na[i] * ntt.montgomeryInvPow2[log]);
+					c[i] = (x >= MOD) ? x - MOD : x;
+				}
+				assertArrayEquals(Convolution.convolution(a, b, MOD), c);
+			}
+		}
+	}
+}
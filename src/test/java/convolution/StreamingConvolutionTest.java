@@ -0,0 +1,76 @@
+package convolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class StreamingConvolutionTest {
+
+	private static final int MOD = 998_244_353;
+
+	@Test
+	void empty() {
+		StreamingConvolution s = new StreamingConvolution(new long[] {}, 4, MOD);
+		assertArrayEquals(new long[] {}, s.push(new long[] { 1L, 2L, 3L, 4L, 5L }));
+		assertArrayEquals(new long[] {}, s.finish());
+		s = new StreamingConvolution(new long[] { 1L, 2L }, 4, MOD);
+		assertArrayEquals(new long[] {}, s.push(new long[] {}));
+		assertArrayEquals(new long[] {}, s.finish());
+	}
+
+	@Test
+	void invalid() {
+		assertThrows(IllegalArgumentException.class, () -> new StreamingConvolution(new long[] { 1L }, 0, MOD));
+		StreamingConvolution s = new StreamingConvolution(new long[] { 1L }, 4, MOD);
+		assertThrows(IllegalArgumentException.class, () -> s.push(new long[2], 1, 3));
+	}
+
+	@Test
+	void compareConvolution() {
+		Random random = new Random();
+		for (int v : new int[] { MOD, 754_974_721, 2_130_706_433 }) {
+			for (int l : new int[] { 1, 2, 7, 100, 1000 }) {
+				long[] filter = random.longs(l, 0, v).toArray();
+				for (int blockLength : new int[] { 1, 3, 64, 2000 }) {
+					StreamingConvolution s = new StreamingConvolution(filter, blockLength, v);
+					// 同じインスタンスで 2 つの信号を続けて処理する
+					for (int t = 0; t < 2; t++) {
+						long[] a = random.longs(random.nextInt(5000) + 1, 0, v).toArray();
+						long[] expected = Convolution.convolution(a, filter, v);
+						long[] actual = new long[expected.length];
+						int pos = 0;
+						for (int i = 0; i < a.length;) {
+							int len = Math.min(a.length - i, random.nextInt(700));
+							long[] out = s.push(a, i, i + len);
+							assertEquals(0, out.length % blockLength);
+							System.arraycopy(out, 0, actual, pos, out.length);
+							pos += out.length;
+							i += len;
+						}
+						long[] out = s.finish();
+						System.arraycopy(out, 0, actual, pos, out.length);
+						assertEquals(expected.length, pos + out.length);
+						assertArrayEquals(expected, actual);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void defaultBlockLength() {
+		Random random = new Random();
+		long[] filter = random.longs(300, 0, MOD).toArray(), a = random.longs(10000, 0, MOD).toArray();
+		StreamingConvolution s = new StreamingConvolution(filter, MOD);
+		assertEquals(1024 - 300 + 1, s.blockLength);
+		long[] head = s.push(a), rest = s.finish();
+		long[] actual = new long[head.length + rest.length];
+		System.arraycopy(head, 0, actual, 0, head.length);
+		System.arraycopy(rest, 0, actual, head.length, rest.length);
+		assertArrayEquals(Convolution.convolution(a, filter, MOD), actual);
+	}
+}
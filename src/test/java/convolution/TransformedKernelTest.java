@@ -0,0 +1,55 @@
+package convolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class TransformedKernelTest {
+
+	private static final int MOD = 998_244_353;
+
+	@Test
+	void empty() {
+		TransformedKernel kernel = new TransformedKernel(new long[] {}, 10, MOD);
+		assertArrayEquals(new long[] {}, kernel.convolution(new long[] { 1L, 2L }));
+		kernel = new TransformedKernel(new long[] { 1L, 2L }, 10, MOD);
+		assertArrayEquals(new long[] {}, kernel.convolution(new long[] {}));
+		assertArrayEquals(new int[] {}, kernel.convolution(new int[] {}));
+	}
+
+	@Test
+	void invalid() {
+		assertThrows(IllegalArgumentException.class, () -> new TransformedKernel(new long[] { 1L }, 0, MOD));
+		assertThrows(IllegalArgumentException.class, () -> new TransformedKernel(new long[] { 1L }, 0, 2, 1, MOD));
+		TransformedKernel kernel = new TransformedKernel(new long[] { 1L, 2L }, 3, MOD);
+		assertThrows(IllegalArgumentException.class, () -> kernel.convolution(new long[4]));
+		assertThrows(IllegalArgumentException.class, () -> kernel.convolution(new int[4], 2, 1));
+	}
+
+	@Test
+	void compareConvolution() {
+		Random random = new Random();
+		for (int v : new int[] { MOD, 754_974_721, 2_130_706_433 }) {
+			int m = 1 + random.nextInt(1000), maxLength = 1 + random.nextInt(2000);
+			long[] b = new long[m + 10];
+			IntStream.range(0, b.length).forEach(i -> b[i] = random.nextInt());
+			TransformedKernel kernel = new TransformedKernel(b, 5, m + 5, maxLength, v);
+			long[] kb = Arrays.copyOfRange(b, 5, m + 5);
+			int[] ikb = Arrays.stream(kb).mapToInt(x -> (int) x).toArray();
+			for (int k = 0; k < 10; k++) {
+				int n = 1 + random.nextInt(maxLength);
+				long[] a = new long[n];
+				int[] ia = new int[n];
+				IntStream.range(0, n).forEach(i -> a[i] = ia[i] = random.nextInt());
+				assertArrayEquals(Convolution.convolution(a, kb, v), kernel.convolution(a));
+				assertArrayEquals(Convolution.convolution(ia, ikb, v), kernel.convolution(ia));
+				assertArrayEquals(Convolution.convolution(a, 0, n / 2, kb, 0, m, v), kernel.convolution(a, 0, n / 2));
+			}
+		}
+	}
+}
@@ -127,6 +127,32 @@ class LazySegTreeTest {
 		assertEquals(0, seg.prod(2, 4));
 	}
 
+	@Test
+	void parallelBuild() {
+		Random random = new Random();
+		for (int n : new int[] { LazySegTree.PARALLEL_THRESHOLD - 1, LazySegTree.PARALLEL_THRESHOLD + 1,
+				3 * LazySegTree.PARALLEL_THRESHOLD + 5 }) {
+			Integer[] v = new Integer[n];
+			for (int i = 0; i < n; i++) {
+				v[i] = random.nextInt(1_000_000);
+			}
+			LazySegTree<Integer, Integer> seg = new ArraySegTree(v);
+			// 各段のノードが覆う区間
+			for (int w = 1; w <= seg.size; w <<= 1) {
+				for (int l = 0; l < n; l += w) {
+					int r = Math.min(n, l + w);
+					assertEquals(IntStream.range(l, r).map(i -> v[i]).max().getAsInt(), seg.prod(l, r));
+				}
+			}
+			assertEquals(Arrays.stream(v).mapToInt(x -> x).max().getAsInt(), seg.allProd());
+			seg.apply(0, n, 7);
+			for (int i = 0; i < 100; i++) {
+				int p = random.nextInt(n);
+				assertEquals(v[p] + 7, seg.get(p));
+			}
+		}
+	}
+
 	private static class TimeManager {
 		int[] v;
 
@@ -0,0 +1,181 @@
+package segtree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrentSegTreeTest {
+
+	/**
+	 * テスト用クラス、区間和
+	 */
+	private static class Seg extends ConcurrentSegTree<Long> {
+		Seg(int n, int stripes) {
+			super(n, stripes);
+		}
+
+		Seg(Long[] v) {
+			super(v);
+		}
+
+		@Override
+		Long e() {
+			return 0L;
+		}
+
+		@Override
+		Long op(Long a, Long b) {
+			return a + b;
+		}
+	}
+
+	@Test
+	void zero() {
+		Seg s = new Seg(0, 4);
+		assertEquals(0L, s.allProd());
+	}
+
+	@Test
+	void invalid() {
+		assertThrows(IllegalArgumentException.class, () -> new Seg(-1, 4));
+		assertThrows(IllegalArgumentException.class, () -> new Seg(10, 0));
+		Seg s = new Seg(10, 4);
+		assertThrows(IllegalArgumentException.class, () -> s.get(-1));
+		assertThrows(IllegalArgumentException.class, () -> s.get(10));
+		assertThrows(IllegalArgumentException.class, () -> s.set(10, 0L));
+		assertThrows(IllegalArgumentException.class, () -> s.prod(3, 2));
+		assertThrows(IllegalArgumentException.class, () -> s.prod(0, 11));
+	}
+
+	/**
+	 * 他のスレッドの更新がない場合、op の例外はそのまま呼び出し元に伝わる
+	 */
+	@Test
+	void opThrows() {
+		AtomicBoolean fail = new AtomicBoolean();
+		ConcurrentSegTree<Long> s = new ConcurrentSegTree<Long>(10, 4) {
+			@Override
+			Long e() {
+				return 0L;
+			}
+
+			@Override
+			Long op(Long a, Long b) {
+				if (fail.get()) {
+					throw new ArithmeticException("op");
+				}
+				return a + b;
+			}
+		};
+		s.set(3, 5L);
+		assertEquals(5L, s.prod(0, 10));
+		fail.set(true);
+		assertThrows(ArithmeticException.class, () -> s.prod(0, 10));
+		assertThrows(ArithmeticException.class, () -> s.prod(6, 9));
+		fail.set(false);
+		assertEquals(5L, s.prod(0, 10));
+	}
+
+	@Test
+	void compareNaive() {
+		for (int n = 0; n < 40; n++) {
+			for (int stripes : new int[] { 1, 2, 3, 8, 64 }) {
+				Seg s = new Seg(n, stripes);
+				long[] p = new long[n];
+				for (int i = 0; i < n; i++) {
+					p[i] = (i * i + 100) % 31;
+					s.set(i, p[i]);
+				}
+				for (int l = 0; l <= n; l++) {
+					long sum = 0;
+					for (int r = l; r <= n; r++) {
+						assertEquals(sum, s.prod(l, r));
+						if (r < n) {
+							sum += p[r];
+						}
+					}
+				}
+				for (int i = 0; i < n; i++) {
+					assertEquals(p[i], s.get(i));
+				}
+			}
+		}
+	}
+
+	@Test
+	void array() {
+		Long[] v = new Long[1000];
+		for (int i = 0; i < v.length; i++) {
+			v[i] = (long) i;
+		}
+		Seg s = new Seg(v);
+		assertEquals(999L * 1000 / 2, s.allProd());
+		assertEquals(10L + 11 + 12, s.prod(10, 13));
+	}
+
+	/**
+	 * 各スレッドは自分の位置の値を増やすだけなので、同じ区間の prod は線形化可能なら単調非減少になる
+	 */
+	@Test
+	void concurrent() throws Exception {
+		int n = 1 << 12, writers = 4, readers = 4, rounds = 20000;
+		Seg s = new Seg(n, 16);
+		ExecutorService executor = Executors.newFixedThreadPool(writers + readers);
+		AtomicBoolean done = new AtomicBoolean();
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < writers; t++) {
+				int id = t;
+				futures.add(executor.submit(() -> {
+					Random random = new Random(id);
+					for (int i = 0; i < rounds; i++) {
+						// id と合同な位置のみを更新する
+						int p = random.nextInt(n / writers) * writers + id;
+						s.set(p, s.get(p) + 1);
+					}
+				}));
+			}
+			List<Future<?>> checks = new ArrayList<>();
+			for (int t = 0; t < readers; t++) {
+				int id = t;
+				checks.add(executor.submit(() -> {
+					Random random = new Random(100 + id);
+					int l = random.nextInt(n / 2), r = n / 2 + random.nextInt(n / 2);
+					long last = 0;
+					while (!done.get()) {
+						long x = s.prod(l, r);
+						assertTrue(last <= x, last + " > " + x);
+						last = x;
+						long all = s.allProd();
+						assertTrue(x <= all, x + " > " + all);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			done.set(true);
+			for (Future<?> check : checks) {
+				check.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals((long) writers * rounds, s.allProd());
+		long sum = 0;
+		for (int i = 0; i < n; i++) {
+			sum += s.get(i);
+		}
+		assertEquals((long) writers * rounds, sum);
+	}
+}
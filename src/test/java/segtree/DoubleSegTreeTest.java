@@ -0,0 +1,157 @@
+package segtree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DoubleSegTreeTest {
+
+	/**
+	 * 区間和のテスト用クラス
+	 */
+	private static class Seg extends DoubleSegTree {
+		Seg() {
+			super();
+		}
+
+		Seg(int n) {
+			super(n);
+		}
+
+		Seg(double[] v) {
+			super(v);
+		}
+
+		@Override
+		double e() {
+			return 0.0;
+		}
+
+		@Override
+		double op(double a, double b) {
+			return a + b;
+		}
+	}
+
+	@Test
+	void zero() {
+		Seg s = new Seg(0);
+		assertEquals(0.0, s.allProd());
+		s = new Seg();
+		assertEquals(0.0, s.allProd());
+		s = new Seg(new double[0]);
+		assertEquals(0.0, s.allProd());
+	}
+
+	@Test
+	void invalid() {
+		assertThrows(IllegalArgumentException.class, () -> new Seg(-1));
+		Seg s = new Seg(10);
+		assertThrows(IllegalArgumentException.class, () -> s.get(-1));
+		assertThrows(IllegalArgumentException.class, () -> s.get(10));
+		assertThrows(IllegalArgumentException.class, () -> s.set(10, 1.0));
+
+		assertThrows(IllegalArgumentException.class, () -> s.prod(-1, -1));
+		assertThrows(IllegalArgumentException.class, () -> s.prod(3, 2));
+		assertThrows(IllegalArgumentException.class, () -> s.prod(0, 11));
+
+		assertThrows(IllegalArgumentException.class, () -> s.maxRight(11, a -> true));
+		assertThrows(IllegalArgumentException.class, () -> s.minLeft(-1, a -> true));
+		assertThrows(IllegalArgumentException.class, () -> s.maxRight(0, a -> false));
+	}
+
+	@Test
+	void setAll() {
+		Random random = new Random();
+		for (int n = 0; n < 70; n++) {
+			Seg seg = new Seg(n);
+			double[] a = new double[n];
+			for (int k : new int[] { 0, 1, 3, n / 2, 2 * n }) {
+				if (0 == n) {
+					k = 0;
+				}
+				int[] ps = new int[k];
+				double[] xs = new double[k];
+				for (int i = 0; i < k; i++) {
+					ps[i] = random.nextInt(n);
+					xs[i] = random.nextInt(1000);
+					a[ps[i]] = xs[i];
+				}
+				seg.setAll(ps, xs);
+				for (int l = 0; l <= n; l++) {
+					double sum = 0.0;
+					for (int r = l; r <= n; r++) {
+						assertEquals(sum, seg.prod(l, r));
+						if (r < n) {
+							sum += a[r];
+						}
+					}
+				}
+			}
+			double[] v = new double[n];
+			for (int i = 0; i < n; i++) {
+				v[i] = i;
+			}
+			seg.build(v);
+			assertEquals((double) (n * (n - 1) / 2), seg.allProd());
+		}
+		Seg seg = new Seg(4);
+		assertThrows(IllegalArgumentException.class, () -> seg.setAll(new int[] { 0 }, new double[0]));
+		assertThrows(IllegalArgumentException.class, () -> seg.setAll(new int[] { 4 }, new double[] { 1.0 }));
+		assertThrows(IllegalArgumentException.class, () -> seg.build(new double[3]));
+	}
+
+	@Test
+	void compareNaive() {
+		Random random = new Random();
+		for (int n = 0; n < 40; n++) {
+			double[] a = new double[n];
+			for (int i = 0; i < n; i++) {
+				a[i] = random.nextInt(100);
+			}
+			Seg seg = (0 == (n & 1)) ? new Seg(a) : new Seg(n);
+			if (1 == (n & 1)) {
+				for (int i = 0; i < n; i++) {
+					seg.set(i, a[i]);
+				}
+			}
+			for (int q = 0; q < 3; q++) {
+				if (0 < n) {
+					int p = random.nextInt(n);
+					a[p] = random.nextInt(100);
+					seg.set(p, a[p]);
+					assertEquals(a[p], seg.get(p));
+				}
+				for (int l = 0; l <= n; l++) {
+					double sum = 0.0;
+					for (int r = l; r <= n; r++) {
+						assertEquals(sum, seg.prod(l, r));
+						if (r < n) {
+							sum += a[r];
+						}
+					}
+				}
+				double limit = random.nextInt(500);
+				for (int l = 0; l <= n; l++) {
+					int r = l;
+					double sum = 0.0;
+					while ((r < n) && (sum + a[r] <= limit)) {
+						sum += a[r++];
+					}
+					assertEquals(r, seg.maxRight(l, x -> x <= limit));
+				}
+				for (int r = 0; r <= n; r++) {
+					int l = r;
+					double sum = 0.0;
+					while ((0 < l) && (sum + a[l - 1] <= limit)) {
+						sum += a[--l];
+					}
+					assertEquals(l, seg.minLeft(r, x -> x <= limit));
+				}
+			}
+		}
+	}
+}
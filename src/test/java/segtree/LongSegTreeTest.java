@@ -0,0 +1,157 @@
+package segtree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LongSegTreeTest {
+
+	/**
+	 * 区間和のテスト用クラス
+	 */
+	private static class Seg extends LongSegTree {
+		Seg() {
+			super();
+		}
+
+		Seg(int n) {
+			super(n);
+		}
+
+		Seg(long[] v) {
+			super(v);
+		}
+
+		@Override
+		long e() {
+			return 0L;
+		}
+
+		@Override
+		long op(long a, long b) {
+			return a + b;
+		}
+	}
+
+	@Test
+	void zero() {
+		Seg s = new Seg(0);
+		assertEquals(0L, s.allProd());
+		s = new Seg();
+		assertEquals(0L, s.allProd());
+		s = new Seg(new long[0]);
+		assertEquals(0L, s.allProd());
+	}
+
+	@Test
+	void invalid() {
+		assertThrows(IllegalArgumentException.class, () -> new Seg(-1));
+		Seg s = new Seg(10);
+		assertThrows(IllegalArgumentException.class, () -> s.get(-1));
+		assertThrows(IllegalArgumentException.class, () -> s.get(10));
+		assertThrows(IllegalArgumentException.class, () -> s.set(10, 1L));
+
+		assertThrows(IllegalArgumentException.class, () -> s.prod(-1, -1));
+		assertThrows(IllegalArgumentException.class, () -> s.prod(3, 2));
+		assertThrows(IllegalArgumentException.class, () -> s.prod(0, 11));
+
+		assertThrows(IllegalArgumentException.class, () -> s.maxRight(11, a -> true));
+		assertThrows(IllegalArgumentException.class, () -> s.minLeft(-1, a -> true));
+		assertThrows(IllegalArgumentException.class, () -> s.maxRight(0, a -> false));
+	}
+
+	@Test
+	void setAll() {
+		Random random = new Random();
+		for (int n = 0; n < 70; n++) {
+			Seg seg = new Seg(n);
+			long[] a = new long[n];
+			for (int k : new int[] { 0, 1, 3, n / 2, 2 * n }) {
+				if (0 == n) {
+					k = 0;
+				}
+				int[] ps = new int[k];
+				long[] xs = new long[k];
+				for (int i = 0; i < k; i++) {
+					ps[i] = random.nextInt(n);
+					xs[i] = random.nextInt(1000);
+					a[ps[i]] = xs[i];
+				}
+				seg.setAll(ps, xs);
+				for (int l = 0; l <= n; l++) {
+					long sum = 0L;
+					for (int r = l; r <= n; r++) {
+						assertEquals(sum, seg.prod(l, r));
+						if (r < n) {
+							sum += a[r];
+						}
+					}
+				}
+			}
+			long[] v = new long[n];
+			for (int i = 0; i < n; i++) {
+				v[i] = i;
+			}
+			seg.build(v);
+			assertEquals((long) n * (n - 1) / 2, seg.allProd());
+		}
+		Seg seg = new Seg(4);
+		assertThrows(IllegalArgumentException.class, () -> seg.setAll(new int[] { 0 }, new long[0]));
+		assertThrows(IllegalArgumentException.class, () -> seg.setAll(new int[] { 4 }, new long[] { 1L }));
+		assertThrows(IllegalArgumentException.class, () -> seg.build(new long[3]));
+	}
+
+	@Test
+	void compareNaive() {
+		Random random = new Random();
+		for (int n = 0; n < 40; n++) {
+			long[] a = new long[n];
+			for (int i = 0; i < n; i++) {
+				a[i] = random.nextInt(100);
+			}
+			Seg seg = (0 == (n & 1)) ? new Seg(a) : new Seg(n);
+			if (1 == (n & 1)) {
+				for (int i = 0; i < n; i++) {
+					seg.set(i, a[i]);
+				}
+			}
+			for (int q = 0; q < 3; q++) {
+				if (0 < n) {
+					int p = random.nextInt(n);
+					a[p] = random.nextInt(100);
+					seg.set(p, a[p]);
+					assertEquals(a[p], seg.get(p));
+				}
+				for (int l = 0; l <= n; l++) {
+					long sum = 0L;
+					for (int r = l; r <= n; r++) {
+						assertEquals(sum, seg.prod(l, r));
+						if (r < n) {
+							sum += a[r];
+						}
+					}
+				}
+				long limit = random.nextInt(500);
+				for (int l = 0; l <= n; l++) {
+					int r = l;
+					long sum = 0L;
+					while ((r < n) && (sum + a[r] <= limit)) {
+						sum += a[r++];
+					}
+					assertEquals(r, seg.maxRight(l, x -> x <= limit));
+				}
+				for (int r = 0; r <= n; r++) {
+					int l = r;
+					long sum = 0L;
+					while ((0 < l) && (sum + a[l - 1] <= limit)) {
+						sum += a[--l];
+					}
+					assertEquals(l, seg.minLeft(r, x -> x <= limit));
+				}
+			}
+		}
+	}
+}
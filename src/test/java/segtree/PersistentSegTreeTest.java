@@ -0,0 +1,124 @@
+package segtree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class PersistentSegTreeTest {
+
+	/**
+	 * テスト用クラス、文字列の連結
+	 */
+	private static class Seg extends PersistentSegTree<String> {
+		Seg(int n) {
+			super(n);
+		}
+
+		Seg(String[] v) {
+			super(v);
+		}
+
+		@Override
+		String e() {
+			return "";
+		}
+
+		@Override
+		String op(String a, String b) {
+			return a + b;
+		}
+	}
+
+	@Test
+	void zero() {
+		Seg s = new Seg(0);
+		assertEquals("", s.allProd(0));
+		assertEquals("", s.prod(0, 0, 0));
+		assertEquals(1, s.versions());
+	}
+
+	@Test
+	void invalid() {
+		assertThrows(IllegalArgumentException.class, () -> new Seg(-1));
+		Seg s = new Seg(10);
+		assertThrows(IllegalArgumentException.class, () -> s.get(1, 0));
+		assertThrows(IllegalArgumentException.class, () -> s.get(-1, 0));
+		assertThrows(IllegalArgumentException.class, () -> s.get(0, 10));
+		assertThrows(IllegalArgumentException.class, () -> s.set(0, -1, "a"));
+		assertThrows(IllegalArgumentException.class, () -> s.set(1, 0, "a"));
+		assertThrows(IllegalArgumentException.class, () -> s.prod(0, 3, 2));
+		assertThrows(IllegalArgumentException.class, () -> s.prod(0, 0, 11));
+	}
+
+	/**
+	 * 任意の版から枝分かれさせながら更新し、全ての版を配列の複製と比べる
+	 */
+	@Test
+	void compareNaive() {
+		Random random = new Random();
+		for (int n = 1; n < 30; n++) {
+			String[] v = new String[n];
+			for (int i = 0; i < n; i++) {
+				v[i] = String.valueOf((char) ('a' + i % 26));
+			}
+			Seg s = (0 == (n & 1)) ? new Seg(v) : new Seg(n);
+			List<String[]> naive = new ArrayList<>();
+			naive.add((0 == (n & 1)) ? v.clone() : filled(n));
+			for (int k = 0; k < 50; k++) {
+				int version = random.nextInt(naive.size()), p = random.nextInt(n);
+				String x = String.valueOf((char) ('A' + random.nextInt(26)));
+				String[] a = naive.get(version).clone();
+				a[p] = x;
+				naive.add(a);
+				assertEquals(naive.size() - 1, s.set(version, p, x));
+			}
+			assertEquals(naive.size(), s.versions());
+			for (int version = 0; version < naive.size(); version++) {
+				String[] a = naive.get(version);
+				for (int l = 0; l <= n; l++) {
+					StringBuilder sb = new StringBuilder();
+					for (int r = l; r <= n; r++) {
+						assertEquals(sb.toString(), s.prod(version, l, r));
+						if (r < n) {
+							sb.append(a[r]);
+						}
+					}
+				}
+				for (int p = 0; p < n; p++) {
+					assertEquals(a[p], s.get(version, p));
+				}
+				assertEquals(String.join("", a), s.allProd(version));
+			}
+		}
+	}
+
+	/**
+	 * 更新 1 回で増えるノードは log + 1 個
+	 */
+	@Test
+	void memory() {
+		int n = 1 << 16;
+		Seg s = new Seg(n);
+		assertEquals(17, s.nodes);
+		int version = 0;
+		for (int i = 0; i < 1000; i++) {
+			version = s.set(version, (i * 7919) % n, "x");
+		}
+		assertEquals(17 + 1000 * 17, s.nodes);
+		assertEquals("", s.allProd(0));
+		assertTrue(s.allProd(version).length() <= 1000);
+	}
+
+	private static String[] filled(int n) {
+		String[] a = new String[n];
+		Arrays.fill(a, "");
+		return a;
+	}
+}
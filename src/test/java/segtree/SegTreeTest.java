@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
 import java.util.function.Predicate;
 
 import org.junit.jupiter.api.Test;
@@ -139,6 +141,102 @@ class SegTreeTest {
 		}
 	}
 
+	private static class SumSeg extends SegTree<Long> {
+		SumSeg(int n) {
+			super(n);
+		}
+
+		SumSeg(Long[] v) {
+			super(v);
+		}
+
+		@Override
+		Long e() {
+			return 0L;
+		}
+
+		@Override
+		Long op(Long a, Long b) {
+			return a + b;
+		}
+	}
+
+	@Test
+	void parallelBuild() {
+		Random random = new Random();
+		for (int n : new int[] { SegTree.PARALLEL_THRESHOLD - 1, SegTree.PARALLEL_THRESHOLD + 1,
+				3 * SegTree.PARALLEL_THRESHOLD + 5 }) {
+			Long[] v = new Long[n];
+			long[] sum = new long[n + 1];
+			for (int i = 0; i < n; i++) {
+				v[i] = (long) random.nextInt(1000);
+				sum[i + 1] = sum[i] + v[i];
+			}
+			SumSeg seg = new SumSeg(v);
+			// 各段のノードが覆う区間
+			for (int w = 1; w <= seg.size; w <<= 1) {
+				for (int l = 0; l < n; l += w) {
+					int r = Math.min(n, l + w);
+					assertEquals(sum[r] - sum[l], seg.prod(l, r));
+				}
+			}
+			for (int i = 0; i < 1000; i++) {
+				int l = random.nextInt(n + 1), r = random.nextInt(n + 1);
+				if (l > r) {
+					int t = l;
+					l = r;
+					r = t;
+				}
+				assertEquals(sum[r] - sum[l], seg.prod(l, r));
+			}
+			Collections.reverse(Arrays.asList(v));
+			seg.build(v);
+			assertEquals(sum[n], seg.allProd());
+			assertEquals(v[0], seg.prod(0, 1));
+		}
+	}
+
+	@Test
+	void setAll() {
+		Random random = new Random();
+		for (int n = 0; n < 70; n++) {
+			SumSeg seg = new SumSeg(n);
+			long[] a = new long[n];
+			for (int k : new int[] { 0, 1, 3, n / 2, 2 * n }) {
+				if (0 == n) {
+					k = 0;
+				}
+				int[] ps = new int[k];
+				Long[] xs = new Long[k];
+				for (int i = 0; i < k; i++) {
+					ps[i] = random.nextInt(n);
+					xs[i] = (long) random.nextInt(1000);
+					a[ps[i]] = xs[i];
+				}
+				seg.setAll(ps, xs);
+				for (int l = 0; l <= n; l++) {
+					long sum = 0L;
+					for (int r = l; r <= n; r++) {
+						assertEquals(sum, seg.prod(l, r));
+						if (r < n) {
+							sum += a[r];
+						}
+					}
+				}
+			}
+			Long[] v = new Long[n];
+			for (int i = 0; i < n; i++) {
+				v[i] = (long) i;
+			}
+			seg.build(v);
+			assertEquals((long) n * (n - 1) / 2, seg.allProd());
+		}
+		SumSeg seg = new SumSeg(4);
+		assertThrows(IllegalArgumentException.class, () -> seg.setAll(new int[] { 0 }, new Long[0]));
+		assertThrows(IllegalArgumentException.class, () -> seg.setAll(new int[] { 4 }, new Long[] { 1L }));
+		assertThrows(IllegalArgumentException.class, () -> seg.build(new Long[3]));
+	}
+
 	@Test
 	void zero() {
 		Seg s = new Seg(0);
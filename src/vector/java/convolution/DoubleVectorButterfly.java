@@ -0,0 +1,47 @@
+package convolution;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * jdk.incubator.vector を使用する VectorComplexButterfly の実装
+ *
+ * 実部と虚部を交互に並べたまま、1 つのベクトルで SPECIES.length() / 2 個の複素数を計算する。
+ * 回転因子の実部、虚部をそれぞれ両方のレーンに並べ、b の実部と虚部を入れ替えたものと組み合わせて積を計算する。
+ * 演算の順序はスカラーの実装と同じため、結果も一致する。
+ */
+final class DoubleVectorButterfly implements VectorComplexButterfly {
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	/** 各複素数の実部を両方のレーンに並べる */
+	private static final VectorShuffle<Double> REAL = VectorShuffle.fromOp(SPECIES, i -> i & ~1);
+	/** 各複素数の虚部を両方のレーンに並べる */
+	private static final VectorShuffle<Double> IMAG = VectorShuffle.fromOp(SPECIES, i -> i | 1);
+	/** 各複素数の実部と虚部を入れ替える */
+	private static final VectorShuffle<Double> SWAP = VectorShuffle.fromOp(SPECIES, i -> i ^ 1);
+	/** 実部のレーンは -1、虚部のレーンは 1 */
+	private static final DoubleVector SIGN = DoubleVector.fromArray(SPECIES, signs(), 0);
+
+	@Override
+	public int butterflyBlock(double[] p, double[] w, int a, int s) {
+		int bound = SPECIES.loopBound(s << 1);
+		for (int k = 0; k < bound; k += SPECIES.length()) {
+			DoubleVector vw = DoubleVector.fromArray(SPECIES, w, k);
+			DoubleVector vb = DoubleVector.fromArray(SPECIES, p, a + k + (s << 1));
+			// (wr * br - wi * bi, wr * bi + wi * br)
+			DoubleVector t = vb.mul(vw.rearrange(REAL)).add(vb.rearrange(SWAP).mul(vw.rearrange(IMAG)).mul(SIGN));
+			DoubleVector va = DoubleVector.fromArray(SPECIES, p, a + k);
+			va.sub(t).intoArray(p, a + k + (s << 1));
+			va.add(t).intoArray(p, a + k);
+		}
+		return bound >> 1;
+	}
+
+	private static double[] signs() {
+		double[] sign = new double[SPECIES.length()];
+		for (int i = 0; i < sign.length; i++) {
+			sign[i] = (0 == (i & 1)) ? -1.0 : 1.0;
+		}
+		return sign;
+	}
+}
@@ -0,0 +1,106 @@
+package convolution;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * jdk.incubator.vector を使用する VectorButterfly の実装
+ *
+ * 32 bit の積は 64 bit になるため、int[] の値を同じレーン数の LongVector に拡張して計算する。
+ */
+final class IntVectorButterfly implements VectorButterfly {
+	private static final VectorSpecies<Long> LONG = LongVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Integer> INT = VectorSpecies.of(int.class,
+			VectorShape.forBitSize(LONG.vectorBitSize() / 2));
+	private static final long MASK = 0xFFFF_FFFFL;
+
+	@Override
+	public int butterflyBlock(int[] a, boolean inv, boolean radix4, int offset, int p, int iFrom, int iTo, long rot,
+			long rot2, long rot3, long imag, int mod, int negInv) {
+		int bound = iFrom + LONG.loopBound(iTo - iFrom);
+		long mod2 = 2L * mod, mod4 = 4L * mod, n = negInv & MASK;
+		if (!inv && !radix4) {
+			for (int i = iFrom; i < bound; i += LONG.length()) {
+				LongVector l = load(a, i + offset);
+				LongVector r = reduce(load(a, i + offset + p).mul(rot), mod, n);
+				store(lazyMod(l.add(r), mod2, mod4), a, i + offset);
+				store(lazyMod(l.sub(r).add(mod2), mod2, mod4), a, i + offset + p);
+			}
+		} else if (!inv) {
+			for (int i = iFrom; i < bound; i += LONG.length()) {
+				LongVector a0 = load(a, i + offset);
+				LongVector a1 = reduce(load(a, i + offset + p).mul(rot), mod, n);
+				LongVector a2 = reduce(load(a, i + offset + 2 * p).mul(rot2), mod, n);
+				LongVector a3 = reduce(load(a, i + offset + 3 * p).mul(rot3), mod, n);
+				LongVector a1na3imag = reduce(a1.sub(a3).add(mod2).mul(imag), mod, n);
+				LongVector na2 = a2.neg().add(mod2);
+				store(lazyMod(a0.add(a2).add(a1).add(a3), mod2, mod4), a, i + offset);
+				store(lazyMod(a0.add(a2).add(mod4).sub(a1.add(a3)), mod2, mod4), a, i + offset + p);
+				store(lazyMod(a0.add(na2).add(a1na3imag), mod2, mod4), a, i + offset + 2 * p);
+				store(lazyMod(a0.add(na2).add(mod2).sub(a1na3imag), mod2, mod4), a, i + offset + 3 * p);
+			}
+		} else if (!radix4) {
+			for (int i = iFrom; i < bound; i += LONG.length()) {
+				LongVector l = load(a, i + offset), r = load(a, i + offset + p);
+				store(lazyMod(l.add(r), mod2, mod4), a, i + offset);
+				store(reduce(l.sub(r).add(mod2).mul(rot), mod, n), a, i + offset + p);
+			}
+		} else {
+			for (int i = iFrom; i < bound; i += LONG.length()) {
+				LongVector a0 = load(a, i + offset);
+				LongVector a1 = load(a, i + offset + p);
+				LongVector a2 = load(a, i + offset + 2 * p);
+				LongVector a3 = load(a, i + offset + 3 * p);
+				LongVector a2na3iimag = reduce(a2.sub(a3).add(mod2).mul(imag), mod, n);
+				store(lazyMod(a0.add(a1).add(a2).add(a3), mod2, mod4), a, i + offset);
+				store(reduce(lazyMod(a0.sub(a1).add(mod2).add(a2na3iimag), mod2, mod4).mul(rot), mod, n), a,
+						i + offset + p);
+				store(reduce(lazyMod(a0.add(a1).add(mod4).sub(a2).sub(a3), mod2, mod4).mul(rot2), mod, n), a,
+						i + offset + 2 * p);
+				store(reduce(lazyMod(a0.sub(a1).add(mod4).sub(a2na3iimag), mod2, mod4).mul(rot3), mod, n), a,
+						i + offset + 3 * p);
+			}
+		}
+		return bound;
+	}
+
+	private static LongVector load(int[] a, int i) {
+		return (LongVector) IntVector.fromArray(INT, a, i).convertShape(VectorOperators.I2L, LONG, 0);
+	}
+
+	private static void store(LongVector v, int[] a, int i) {
+		((IntVector) v.convertShape(VectorOperators.L2I, INT, 0)).intoArray(a, i);
+	}
+
+	/**
+	 * NumberTheoreticTransform.reduce の各レーン版
+	 *
+	 * @param t
+	 * @param mod
+	 * @param negInv -mod^{-1} mod 2^32 を符号なしで表した値
+	 * @return t / 2^32 mod mod、[0, 2 * mod) の範囲
+	 */
+	private static LongVector reduce(LongVector t, int mod, long negInv) {
+		LongVector u = t.and(MASK).mul(negInv).and(MASK);
+		return t.add(u.mul(mod)).lanewise(VectorOperators.LSHR, 32);
+	}
+
+	/**
+	 * NumberTheoreticTransform.lazyMod の各レーン版
+	 *
+	 * @param x    [0, 8 * mod) の範囲
+	 * @param mod2
+	 * @param mod4
+	 * @return [0, 2 * mod) の範囲
+	 */
+	private static LongVector lazyMod(LongVector x, long mod2, long mod4) {
+		VectorMask<Long> ge4 = x.compare(VectorOperators.GE, mod4);
+		x = x.sub(mod4, ge4);
+		VectorMask<Long> ge2 = x.compare(VectorOperators.GE, mod2);
+		return x.sub(mod2, ge2);
+	}
+}